@@ -0,0 +1,68 @@
+package PocketImperium;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the decisions of a bot: planning its turn, expanding and exploring.
+ * <p>
+ * Expanding and exploring change the board, so each call first puts the board back in the 
+ * position the benchmark started from; that copy is a few hundred bytes and is part of the 
+ * measured time. Exploring goes through {@link Game#executeExplore(Player, int)}, the path the 
+ * game really uses for bots.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BotBenchmark {
+	@Param({"AGGRESSIVE", "DEFENSIVE", "RANDOM"})
+	public BotPlayer.Strategy strategy;
+
+	private Game game;
+	private BotPlayer bot;
+	private Board start;
+
+	@Setup
+	public void setup() throws InterruptedException {
+		game = Game.headless(strategy, BotPlayer.Strategy.RANDOM, BotPlayer.Strategy.RANDOM);
+		game.buildMap();
+		game.setupGame();
+		bot = (BotPlayer) game.getPlayers().get(0);
+		start = game.getBoard().copy();
+	}
+
+	@Benchmark
+	public Object plan() {
+		bot.plan();
+		return bot.getPlanList();
+	}
+
+	@Benchmark
+	public Board expand() {
+		game.getBoard().copyFrom(start);
+		bot.expand(3);
+		return game.getBoard();
+	}
+
+	@Benchmark
+	public Board explore() {
+		game.getBoard().copyFrom(start);
+		game.executeExplore(bot, 3);
+		return game.getBoard();
+	}
+}
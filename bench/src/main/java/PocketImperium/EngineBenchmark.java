@@ -0,0 +1,73 @@
+package PocketImperium;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the parts of the engine every turn goes through: building the map, 
+ * ordering the commands of a turn and scoring.
+ * <p>
+ * The game is set up once with three bots which have already planned a turn, every 
+ * benchmark then runs on that same position.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+	private Game game;
+	private int[] plans;
+	private final TurnOrder order = new TurnOrder();
+
+	@Setup
+	public void setup() throws InterruptedException {
+		game = Game.headless(BotPlayer.Strategy.AGGRESSIVE, BotPlayer.Strategy.DEFENSIVE, BotPlayer.Strategy.RANDOM);
+		game.buildMap();
+		game.setupGame();
+		List<Player> players = game.getPlayers();
+		plans = new int[players.size()];
+		for (int seat = 0; seat < plans.length; seat++) {
+			players.get(seat).plan();
+			plans[seat] = PlanTable.planOf(players.get(seat).getPlanList());
+		}
+	}
+
+	@Benchmark
+	public Board buildMap() {
+		game.buildMap();
+		return game.getBoard();
+	}
+
+	@Benchmark
+	public int planOf() {
+		return PlanTable.planOf(game.getPlayers().get(0).getPlanList());
+	}
+
+	@Benchmark
+	public void turnOrder(Blackhole blackhole) {
+		order.resolve(plans, plans.length);
+		blackhole.consume(order.seat);
+		blackhole.consume(order.command);
+		blackhole.consume(order.power);
+	}
+
+	@Benchmark
+	public void endTurn() {
+		game.endTurn();
+	}
+}
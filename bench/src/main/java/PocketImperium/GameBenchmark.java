@@ -0,0 +1,27 @@
+package PocketImperium;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of a whole headless game between the three rule-based bots.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+
+	@Benchmark
+	public GameResult headlessGame() throws InterruptedException {
+		return Game.simulate(BotPlayer.Strategy.AGGRESSIVE, BotPlayer.Strategy.DEFENSIVE, BotPlayer.Strategy.RANDOM);
+	}
+}
@@ -0,0 +1,76 @@
+package PocketImperium;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of saving a game and loading it back, through a file and in memory.
+ * <p>
+ * The game comes from one of the sample saves of the repository, looked for in the directory 
+ * given by the {@code pocketimperium.saves} property (the parent directory by default, for a 
+ * run from {@code bench}), or from a headless game played in the setup for {@code fresh}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveBenchmark {
+	@Param({"fresh", "save", "devsave", "jeu", "test"})
+	public String source;
+
+	private Game game;
+	private File file;
+	private byte[] save;
+
+	@Setup
+	public void setup() throws IOException, ClassNotFoundException, InterruptedException {
+		if (source.equals("fresh")) {
+			game = Game.headless(BotPlayer.Strategy.AGGRESSIVE, BotPlayer.Strategy.DEFENSIVE, BotPlayer.Strategy.RANDOM);
+			game.buildMap();
+			game.setupGame();
+		} else {
+			File sample = new File(System.getProperty("pocketimperium.saves", ".."), source);
+			game = Game.loadFromObject(sample.getPath());
+		}
+		file = File.createTempFile("pocket-imperium-", ".sav");
+		save = SaveCodec.toBytes(game);
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public Game roundTrip() throws IOException, ClassNotFoundException {
+		Game.saveToObject(game, file.getPath());
+		return Game.loadFromObject(file.getPath());
+	}
+
+	@Benchmark
+	public byte[] encode() {
+		return SaveCodec.toBytes(game);
+	}
+
+	@Benchmark
+	public Game decode() throws IOException {
+		return SaveCodec.fromBytes(save);
+	}
+}
@@ -0,0 +1,240 @@
+package PocketImperium;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves a game every few turns without making the turns wait for the disk.
+ * <p>
+ * At the start of a turn the game is encoded in memory with {@link SaveCodec}, which takes a 
+ * few microseconds, and the bytes are handed to a writer thread. The writer puts them in a 
+ * temporary file, forces it to the disk and renames it in one step, so an autosave is either 
+ * complete or absent. Only the last few autosaves are kept.
+ * </p>
+ * <p>
+ * An autosave of the turn {@code N} is written to {@code <base>-N.sav} and can be loaded like 
+ * any other save: the game goes on from the start of that turn.
+ * </p>
+ *
+ * @see Game#setAutosaver(Autosaver)
+ */
+public class Autosaver implements Closeable {
+	/** Turns between two autosaves when nothing else is set. */
+	public static final int DEFAULT_INTERVAL = 1;
+	/** Autosaves kept on the disk when nothing else is set. */
+	public static final int DEFAULT_RETENTION = 3;
+
+	private final String base;
+	private final int interval;
+	private final int retention;
+	private final ExecutorService writer;
+	private final Queue<Path> kept = new ArrayDeque<>(); // Only used by the writer
+	private final Queue<String> reports = new ConcurrentLinkedQueue<>();
+	private volatile long saves;
+	private volatile long failures;
+	private volatile long totalBytes;
+	private volatile long totalNanos;
+	private volatile long lastBytes;
+	private volatile long lastNanos;
+
+	/**
+	 * Builds an autosaver saving every turn and keeping the last {@link #DEFAULT_RETENTION} saves.
+	 * @param base The start of the file names, it may include a directory.
+	 */
+	public Autosaver(String base) {
+		this(base, DEFAULT_INTERVAL, DEFAULT_RETENTION);
+	}
+
+	/**
+	 * Builds an autosaver.
+	 * @param base The start of the file names, it may include a directory.
+	 * @param interval The number of turns between two autosaves.
+	 * @param retention The number of autosaves kept, older ones are deleted.
+	 */
+	public Autosaver(String base, int interval, int retention) {
+		if (interval < 1 || retention < 1) {
+			throw new IllegalArgumentException("interval and retention must be positive");
+		}
+		this.base = base;
+		this.interval = interval;
+		this.retention = retention;
+		this.writer = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "autosave-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Returns the number of turns between two autosaves.
+	 * @return the interval in turns.
+	 */
+	public int getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Returns the number of autosaves kept on the disk.
+	 * @return the retention count.
+	 */
+	public int getRetention() {
+		return retention;
+	}
+
+	/**
+	 * Returns the file an autosave of a turn is written to.
+	 * @param turnNumber The number of the turn.
+	 * @return the path of the save.
+	 */
+	public Path fileOf(int turnNumber) {
+		return Paths.get(base + "-" + turnNumber + ".sav");
+	}
+
+	/**
+	 * Saves the game in the background if the interval has passed. Only the encoding of 
+	 * the game happens on the calling thread.
+	 * @param game The game, at the start of a turn.
+	 * @param turnsPlayed The number of turns played so far.
+	 * @return true if an autosave was started.
+	 */
+	boolean turnStarting(Game game, int turnsPlayed) {
+		if (turnsPlayed % interval != 0) {
+			return false;
+		}
+		byte[] save = SaveCodec.toBytes(game);
+		Path file = fileOf(game.getTurnNumber());
+		writer.execute(() -> write(file, save));
+		return true;
+	}
+
+	/**
+	 * Writes a save on the writer thread.
+	 */
+	private void write(Path file, byte[] save) {
+		long start = System.nanoTime();
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, 
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.wrap(save);
+				while (buffer.hasRemaining()) {
+					out.write(buffer);
+				}
+				out.force(false);
+			}
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			failures++;
+			reports.add("Autosave to " + file + " failed: " + e.getMessage());
+			return;
+		}
+		long nanos = System.nanoTime() - start;
+
+		// Forget the oldest autosaves
+		kept.remove(file);
+		kept.add(file);
+		while (kept.size() > retention) {
+			try {
+				Files.deleteIfExists(kept.remove());
+			} catch (IOException e) {
+				reports.add("Could not delete an old autosave: " + e.getMessage());
+			}
+		}
+
+		lastBytes = save.length;
+		lastNanos = nanos;
+		totalBytes += save.length;
+		totalNanos += nanos;
+		saves++;
+		reports.add(String.format("Autosaved to %s: %d bytes in %.2f ms", file, save.length, nanos / 1e6));
+	}
+
+	/**
+	 * Takes the next report of an autosave finished by the writer, so that the game can 
+	 * show it from its own thread.
+	 * @return a line describing the autosave, or null if there is none.
+	 */
+	String pollReport() {
+		return reports.poll();
+	}
+
+	/**
+	 * Returns the number of autosaves written.
+	 * @return the number of autosaves.
+	 */
+	public long getSaveCount() {
+		return saves;
+	}
+
+	/**
+	 * Returns the number of autosaves that could not be written.
+	 * @return the number of failures.
+	 */
+	public long getFailureCount() {
+		return failures;
+	}
+
+	/**
+	 * Returns the size of the last autosave.
+	 * @return the number of bytes written.
+	 */
+	public long getLastBytes() {
+		return lastBytes;
+	}
+
+	/**
+	 * Returns how long the writer took for the last autosave, sync and rename included.
+	 * @return the duration in nanoseconds.
+	 */
+	public long getLastNanos() {
+		return lastNanos;
+	}
+
+	/**
+	 * Returns the number of bytes written by every autosave.
+	 * @return the total number of bytes.
+	 */
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * Returns the mean time the writer took for an autosave.
+	 * @return the mean duration in nanoseconds.
+	 */
+	public double getMeanNanos() {
+		return saves == 0 ? 0 : (double) totalNanos / saves;
+	}
+
+	/**
+	 * Waits for the autosaves started to be written and stops the writer.
+	 */
+	@Override
+	public void close() {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d autosaves, %d bytes, %.2f ms per save, %d failed", 
+				saves, totalBytes, getMeanNanos() / 1e6, failures);
+	}
+}
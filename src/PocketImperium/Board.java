@@ -0,0 +1,602 @@
+package PocketImperium;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact state of the map of Pocket Imperium, stored in a few flat arrays.
+ * <p>
+ * Every hex of the map has a global ID from 0 to {@link #HEX_COUNT} - 1, given sector by
+ * sector in the order of the sector IDs. The board keeps, for each hex, its system level,
+ * its number of ships and the seat of its owner, and for each sector the seat of its owner.
+ * Players are referred to by their seat, i.e. their index in the list of players of the Game.
+ * The whole state is a few hundred bytes and {@link #copy()} only needs three calls to
+ * {@code System.arraycopy}, which makes it cheap to copy for simulations and searches.
+ * </p>
+ * <p>
+ * The board also keeps the score of each seat up to date: every change of owner adds or 
+ * removes the levels concerned, so reading a score never scans the map. In the same way it 
+ * keeps a {@link Zobrist} hash of the fleets and owners, see {@link #getHash()}.
+ * </p>
+ * <p>
+ * The {@link Hex} and {@link Sector} objects used by the rest of the game are views over a
+ * board: they hold no state of their own.
+ * </p>
+ * <p>
+ * A {@link Move} can be tried with {@link #apply(Move)} and taken back with {@link #undo()}.
+ * While a move is applied, every field that changes is recorded with its old value in an
+ * undo log of primitives, so a search can go deep and come back without copying the board.
+ * </p>
+ */
+public class Board implements Serializable {
+	private static final long serialVersionUID = 1L;
+	/** Number of sectors on the map. */
+	public static final int SECTOR_COUNT = 9;
+	/** Number of hexes on the map. */
+	public static final int HEX_COUNT;
+	/** Seat used for a hex or a sector that nobody owns. */
+	public static final int NOBODY = -1;
+	/** Number of fields a change can touch: the fleet and owner of each hex and the owner of each sector. */
+	public static final int SLOT_COUNT;
+
+	// Number of hexes in each sector: the middle column has 5 hexes, except the center which has 1
+	private static final int[] SECTOR_SIZES = {6, 5, 6, 6, 1, 6, 6, 5, 6};
+	private static final int[] SECTOR_START = new int[SECTOR_COUNT + 1]; // First hex ID of each sector
+	private static final byte[] HEX_SECTOR; // Sector ID of each hex
+
+	static {
+		for (int i = 0; i < SECTOR_COUNT; i++) {
+			SECTOR_START[i + 1] = SECTOR_START[i] + SECTOR_SIZES[i];
+		}
+		HEX_COUNT = SECTOR_START[SECTOR_COUNT];
+		SLOT_COUNT = HEX_COUNT * 2 + SECTOR_COUNT;
+		HEX_SECTOR = new byte[HEX_COUNT];
+		for (int i = 0; i < SECTOR_COUNT; i++) {
+			for (int hex = SECTOR_START[i]; hex < SECTOR_START[i + 1]; hex++) {
+				HEX_SECTOR[hex] = (byte) (i + 1);
+			}
+		}
+	}
+
+	private final byte[] level; // System level of each hex, shared by the copies of a board
+	private final int[] fleet; // Number of ships on each hex
+	private final byte[] owner; // Seat + 1 of the owner of each hex, followed by the owner of each sector
+	private final Player[] seats; // The players by seat, shared by the copies of a board
+	private final int[] totals; // Score of each seat, followed by the levels of the hexes each seat owns
+	private long hash; // Zobrist hash of the fleets and owners
+
+	// Undo log: pairs of (slot, old value), a slot below HEX_COUNT is a fleet, above it an owner
+	private transient int[] undoLog;
+	private transient int undoSize;
+	private transient int[] frames; // Size of the undo log when each applied move started
+	private transient int frameCount;
+
+	/**
+	 * Builds an empty board, every system level is 0 until it is set.
+	 * @param players The players of the game, in seat order.
+	 */
+	public Board(List<Player> players) {
+		this.level = new byte[HEX_COUNT];
+		this.fleet = new int[HEX_COUNT];
+		this.owner = new byte[HEX_COUNT + SECTOR_COUNT];
+		this.seats = players.toArray(new Player[0]);
+		this.totals = new int[seats.length * 2];
+	}
+
+	private Board(Board other) {
+		this.level = other.level;
+		this.fleet = other.fleet.clone();
+		this.owner = other.owner.clone();
+		this.seats = other.seats;
+		this.totals = other.totals.clone();
+		this.hash = other.hash;
+	}
+
+	/**
+	 * Changes the fleet of a hex, remembering the old one if a move is being applied.
+	 */
+	private void writeFleet(int hex, int ships) {
+		if (frameCount > 0) {
+			log(hex, fleet[hex]);
+		}
+		changeFleet(hex, ships);
+	}
+
+	/**
+	 * Stores a new fleet and updates the hash.
+	 */
+	private void changeFleet(int hex, int ships) {
+		hash ^= Zobrist.fleet(hex, fleet[hex]) ^ Zobrist.fleet(hex, ships);
+		fleet[hex] = ships;
+	}
+
+	/**
+	 * Changes an owner, of a hex or of a sector, remembering the old one if a move is being applied.
+	 */
+	private void writeOwner(int index, int seat) {
+		if (owner[index] == seat + 1) {
+			return;
+		}
+		if (frameCount > 0) {
+			log(HEX_COUNT + index, owner[index]);
+		}
+		changeOwner(index, seat + 1);
+	}
+
+	/**
+	 * Stores a new owner and moves the points it is worth from the old owner to the new one.
+	 * @param index The index of the hex, or HEX_COUNT + the index of the sector.
+	 * @param stored The seat + 1 of the new owner.
+	 */
+	private void changeOwner(int index, int stored) {
+		int old = owner[index];
+		owner[index] = (byte) stored;
+		hash ^= Zobrist.owner(index, old) ^ Zobrist.owner(index, stored);
+		int offset;
+		int points;
+		if (index < HEX_COUNT) {
+			offset = seats.length;
+			points = level[index];
+		} else {
+			offset = 0;
+			points = sectorLevel(index - HEX_COUNT + 1) * 2; // Systems count double in a sector
+		}
+		if (old != 0) {
+			totals[offset + old - 1] -= points;
+		}
+		if (stored != 0) {
+			totals[offset + stored - 1] += points;
+		}
+	}
+
+	/**
+	 * Adds the levels of the systems of a sector.
+	 */
+	private int sectorLevel(int sectorID) {
+		int sum = 0;
+		for (int hex = SECTOR_START[sectorID - 1]; hex < SECTOR_START[sectorID]; hex++) {
+			sum += level[hex];
+		}
+		return sum;
+	}
+
+	private void log(int slot, int oldValue) {
+		if (undoSize + 2 > undoLog.length) {
+			undoLog = Arrays.copyOf(undoLog, undoLog.length * 2);
+		}
+		undoLog[undoSize++] = slot;
+		undoLog[undoSize++] = oldValue;
+	}
+
+	/**
+	 * Starts recording the changes made to the board, so that they can all be taken back by
+	 * the next call to {@link #undo()}. Changes made through the {@link Hex} and {@link Sector}
+	 * views are recorded as well.
+	 */
+	public void beginChange() {
+		if (frames == null) {
+			frames = new int[16];
+			undoLog = new int[64];
+		} else if (frameCount == frames.length) {
+			frames = Arrays.copyOf(frames, frameCount * 2);
+		}
+		frames[frameCount++] = undoSize;
+	}
+
+	/**
+	 * Plays a move on the board. The move is expected to be legal: an Expand adds ships to the
+	 * target, an Explore moves ships from the source to the target which the player then owns,
+	 * and an Exterminate moves ships from the source to attack the target.
+	 * <p>
+	 * Only the board changes, the hand of the player is left as it is.
+	 * </p>
+	 * @param move The move to play, it can be taken back with {@link #undo()}.
+	 */
+	public void apply(Move move) {
+		beginChange();
+		play(move);
+	}
+
+	/**
+	 * Plays a move on the board for good, it is only recorded if a change is being recorded.
+	 * @param move The move to play, see {@link #apply(Move)}.
+	 */
+	public void play(Move move) {
+		int target = move.getTarget();
+		int ships = move.getShips();
+		switch (move.getCommand()) {
+		case EXPAND:
+			addFleet(target, ships);
+			break;
+		case EXPLORE:
+			addFleet(move.getSource(), -ships);
+			addFleet(target, ships);
+			setOwner(target, move.getSeat());
+			break;
+		case EXTERMINATE:
+			addFleet(move.getSource(), -ships);
+			attack(target, ships, move.getSeat());
+			break;
+		}
+	}
+
+	/**
+	 * Takes back the last move applied, or the changes since the last {@link #beginChange()}.
+	 */
+	public void undo() {
+		if (frameCount == 0) {
+			throw new IllegalStateException("There is no move to undo");
+		}
+		int start = frames[--frameCount];
+		while (undoSize > start) {
+			int oldValue = undoLog[--undoSize];
+			int slot = undoLog[--undoSize];
+			if (slot < HEX_COUNT) {
+				changeFleet(slot, oldValue);
+			} else {
+				changeOwner(slot - HEX_COUNT, oldValue);
+			}
+		}
+	}
+
+	/**
+	 * Ends the last change started with {@link #beginChange()} and keeps what it did: it can 
+	 * no longer be taken back on its own.
+	 */
+	public void commitChange() {
+		if (frameCount == 0) {
+			throw new IllegalStateException("There is no change to commit");
+		}
+		frameCount--;
+		if (frameCount == 0) {
+			undoSize = 0;
+		}
+	}
+
+	/**
+	 * Lists what changed since the last {@link #beginChange()}, each field once.
+	 * @param slots Receives the slots that changed: below {@link #HEX_COUNT} the fleet of a hex, 
+	 *              above it {@link #HEX_COUNT} + the index of an owner, see {@link #getSlot(int)}. 
+	 *              It must hold {@link #SLOT_COUNT} slots.
+	 * @return the number of slots listed.
+	 */
+	public int getChangedSlots(int[] slots) {
+		if (frameCount == 0) {
+			return 0;
+		}
+		long seenLow = 0;
+		long seenHigh = 0;
+		int count = 0;
+		for (int i = frames[frameCount - 1]; i < undoSize; i += 2) {
+			int slot = undoLog[i];
+			long bit = 1L << (slot & 63);
+			if (slot < 64) {
+				if ((seenLow & bit) != 0) {
+					continue;
+				}
+				seenLow |= bit;
+			} else {
+				if ((seenHigh & bit) != 0) {
+					continue;
+				}
+				seenHigh |= bit;
+			}
+			slots[count++] = slot;
+		}
+		return count;
+	}
+
+	/**
+	 * Reads a field of the board by its slot: the fleet of a hex for a slot below 
+	 * {@link #HEX_COUNT}, the owner of the hex or sector {@code slot - HEX_COUNT} above it.
+	 * @param slot The slot, below {@link #SLOT_COUNT}.
+	 * @return the fleet, or the seat + 1 of the owner.
+	 */
+	public int getSlot(int slot) {
+		return slot < HEX_COUNT ? fleet[slot] : owner[slot - HEX_COUNT];
+	}
+
+	/**
+	 * Reads a field of the board as it was at the last {@link #beginChange()}.
+	 * @param slot The slot, below {@link #SLOT_COUNT}, see {@link #getSlot(int)}.
+	 * @return the fleet, or the seat + 1 of the owner, before the change.
+	 */
+	public int getSlotBefore(int slot) {
+		if (frameCount > 0) {
+			for (int i = frames[frameCount - 1]; i < undoSize; i += 2) {
+				if (undoLog[i] == slot) {
+					return undoLog[i + 1];
+				}
+			}
+		}
+		return getSlot(slot);
+	}
+
+	/**
+	 * Writes a field of the board by its slot, see {@link #getSlot(int)}.
+	 * @param slot The slot, below {@link #SLOT_COUNT}.
+	 * @param value The fleet, or the seat + 1 of the owner.
+	 */
+	public void setSlot(int slot, int value) {
+		if (slot < HEX_COUNT) {
+			writeFleet(slot, value);
+		} else {
+			writeOwner(slot - HEX_COUNT, value - 1);
+		}
+	}
+
+	/**
+	 * Returns the number of moves that can still be taken back.
+	 * @return the number of moves applied and not undone.
+	 */
+	public int getUndoDepth() {
+		return frameCount;
+	}
+
+	/**
+	 * Returns the Zobrist hash of the fleets and owners of the board, kept up to date by every 
+	 * change. Two boards of the same game in the same state have the same hash.
+	 * @return the hash of the board.
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Computes the hash of the board from scratch, it is always equal to {@link #getHash()}.
+	 * @return the hash of the board.
+	 */
+	long computeHash() {
+		long full = 0;
+		for (int hex = 0; hex < HEX_COUNT; hex++) {
+			full ^= Zobrist.level(hex, level[hex]) ^ Zobrist.fleet(hex, fleet[hex]);
+		}
+		for (int index = 0; index < owner.length; index++) {
+			full ^= Zobrist.owner(index, owner[index]);
+		}
+		return full;
+	}
+
+	/**
+	 * Returns a copy of the board that can be changed without changing this one.
+	 * @return a new board in the same state.
+	 */
+	public Board copy() {
+		return new Board(this);
+	}
+
+	/**
+	 * Puts this board back in the state of another board of the same game, the moves applied 
+	 * to this board can no longer be taken back.
+	 * @param other The board to copy.
+	 */
+	public void copyFrom(Board other) {
+		System.arraycopy(other.fleet, 0, fleet, 0, HEX_COUNT);
+		System.arraycopy(other.owner, 0, owner, 0, owner.length);
+		System.arraycopy(other.totals, 0, totals, 0, totals.length);
+		hash = other.hash;
+		frameCount = 0;
+		undoSize = 0;
+	}
+
+	/**
+	 * Returns the sector a hex belongs to.
+	 * @param hex The global ID of the hex.
+	 * @return the ID of the sector, from 1 to 9.
+	 */
+	public static int sectorOf(int hex) {
+		return HEX_SECTOR[hex];
+	}
+
+	/**
+	 * Returns the global ID of the first hex of a sector.
+	 * @param sectorID The ID of the sector, from 1 to 9.
+	 * @return the global ID of its first hex.
+	 */
+	public static int firstHex(int sectorID) {
+		return SECTOR_START[sectorID - 1];
+	}
+
+	/**
+	 * Returns the number of hexes in a sector.
+	 * @param sectorID The ID of the sector, from 1 to 9.
+	 * @return the number of hexes of the sector.
+	 */
+	public static int hexCount(int sectorID) {
+		return SECTOR_SIZES[sectorID - 1];
+	}
+
+	/**
+	 * Returns the number of seats at the table.
+	 * @return the number of players.
+	 */
+	public int getSeatCount() {
+		return seats.length;
+	}
+
+	/**
+	 * Returns the player sitting at a seat.
+	 * @param seat The seat of the player, or {@link #NOBODY}.
+	 * @return the player, or null for {@link #NOBODY}.
+	 */
+	public Player getPlayer(int seat) {
+		return seat == NOBODY ? null : seats[seat];
+	}
+
+	/**
+	 * Returns the seat of a player.
+	 * @param player A player of the game, or null.
+	 * @return the seat of the player, or {@link #NOBODY} for null.
+	 */
+	public int seatOf(Player player) {
+		if (player == null) {
+			return NOBODY;
+		}
+		for (int seat = 0; seat < seats.length; seat++) {
+			if (seats[seat] == player) {
+				return seat;
+			}
+		}
+		throw new IllegalArgumentException(player.getName() + " is not playing on this board");
+	}
+
+	/**
+	 * Returns the system level of a hex.
+	 * @param hex The global ID of the hex.
+	 * @return the level of its system, from 0 to 3.
+	 */
+	public int getLevel(int hex) {
+		return level[hex];
+	}
+
+	/**
+	 * Sets the system level of a hex while the map is being built, the level is part of the hash.
+	 * @param hex The global ID of the hex.
+	 * @param systemLevel The level of its system, from 0 to 3.
+	 */
+	void setLevel(int hex, int systemLevel) {
+		int change = systemLevel - level[hex];
+		hash ^= Zobrist.level(hex, level[hex]) ^ Zobrist.level(hex, systemLevel);
+		level[hex] = (byte) systemLevel;
+		int hexOwner = getOwner(hex);
+		if (hexOwner != NOBODY) {
+			totals[seats.length + hexOwner] += change;
+		}
+		int sectorOwner = getSectorOwner(sectorOf(hex));
+		if (sectorOwner != NOBODY) {
+			totals[sectorOwner] += change * 2;
+		}
+	}
+
+	/**
+	 * Returns the number of ships on a hex.
+	 * @param hex The global ID of the hex.
+	 * @return the number of ships.
+	 */
+	public int getFleet(int hex) {
+		return fleet[hex];
+	}
+
+	/**
+	 * Sets the number of ships on a hex.
+	 * @param hex The global ID of the hex.
+	 * @param ships The new number of ships.
+	 */
+	public void setFleet(int hex, int ships) {
+		writeFleet(hex, ships);
+	}
+
+	/**
+	 * Returns the seat of the owner of a hex.
+	 * @param hex The global ID of the hex.
+	 * @return the seat of the owner, or {@link #NOBODY}.
+	 */
+	public int getOwner(int hex) {
+		return owner[hex] - 1;
+	}
+
+	/**
+	 * Sets the owner of a hex.
+	 * @param hex The global ID of the hex.
+	 * @param seat The seat of the new owner, or {@link #NOBODY}.
+	 */
+	public void setOwner(int hex, int seat) {
+		writeOwner(hex, seat);
+	}
+
+	/**
+	 * Returns the seat of the owner of a sector.
+	 * @param sectorID The ID of the sector, from 1 to 9.
+	 * @return the seat of the owner, or {@link #NOBODY}.
+	 */
+	public int getSectorOwner(int sectorID) {
+		return owner[HEX_COUNT + sectorID - 1] - 1;
+	}
+
+	/**
+	 * Sets the owner of a sector.
+	 * @param sectorID The ID of the sector, from 1 to 9.
+	 * @param seat The seat of the new owner, or {@link #NOBODY}.
+	 */
+	public void setSectorOwner(int sectorID, int seat) {
+		writeOwner(HEX_COUNT + sectorID - 1, seat);
+	}
+
+	/**
+	 * Returns the score a seat gets from its sectors, kept up to date as owners change.
+	 * @param seat The seat of the player.
+	 * @return twice the level of every system in the sectors the player owns.
+	 */
+	public int getScore(int seat) {
+		return totals[seat];
+	}
+
+	/**
+	 * Returns how much the hexes a seat controls are worth, kept up to date as owners change.
+	 * @param seat The seat of the player.
+	 * @return the sum of the levels of the hexes the player owns.
+	 */
+	public int getControlledLevel(int seat) {
+		return totals[seats.length + seat];
+	}
+
+	/**
+	 * Calculates the number of ships that can still be added to a hex.
+	 * @param hex The global ID of the hex.
+	 * @return the room left on the hex, a system holds its level + 1 ships.
+	 */
+	public int capacity(int hex) {
+		return Math.max(0, level[hex] + 1 - fleet[hex]);
+	}
+
+	/**
+	 * Adds ships to a hex, or removes them with a negative number.
+	 * @param hex The global ID of the hex.
+	 * @param ships The number of ships entering the hex.
+	 */
+	public void addFleet(int hex, int ships) {
+		writeFleet(hex, fleet[hex] + ships);
+	}
+
+	/**
+	 * Brings the fleet of a hex back to its capacity.
+	 * @param hex The global ID of the hex.
+	 * @return the number of ships that were in extra.
+	 */
+	public int removeExtraFleet(int hex) {
+		int extra = fleet[hex] - (level[hex] + 1);
+		if (extra > 0) {
+			writeFleet(hex, fleet[hex] - extra);
+			return extra;
+		}
+		return 0;
+	}
+
+	/**
+	 * Resolves an attack on a hex: the attacker takes the hex if he brings more ships than
+	 * there are, otherwise both sides lose as many ships and the hex is freed if it is empty.
+	 * @param hex The global ID of the hex.
+	 * @param ships The number of attacking ships.
+	 * @param seat The seat of the attacker.
+	 */
+	public void attack(int hex, int ships, int seat) {
+		if (fleet[hex] < ships) {
+			writeFleet(hex, ships - fleet[hex]);
+			setOwner(hex, seat);
+		} else {
+			writeFleet(hex, fleet[hex] - ships);
+			releaseIfEmpty(hex);
+		}
+	}
+
+	/**
+	 * Frees a hex that has no ship left.
+	 * @param hex The global ID of the hex.
+	 */
+	public void releaseIfEmpty(int hex) {
+		if (fleet[hex] == 0) {
+			setOwner(hex, NOBODY);
+		}
+	}
+}
@@ -2,10 +2,10 @@ package PocketImperium;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Represents a computer-controlled player (bot) with a specific strategy.
@@ -15,12 +15,35 @@ public class BotPlayer extends Player implements Serializable {
     
     /**
      * Enum representing the possible strategies for a bot player.
+     * MCTS bots look ahead with a {@link MonteCarloSearch} instead of following fixed rules, 
+     * GREEDY bots play the best move one step ahead, see {@link GreedyPolicy}, and PLANNER 
+     * bots play the same moves but weigh their plans against the plans of the others with a 
+     * {@link PlanSearch}.
      */
     public enum Strategy {
-        AGGRESSIVE, DEFENSIVE, RANDOM
+        AGGRESSIVE, DEFENSIVE, RANDOM, MCTS, GREEDY, PLANNER;
+
+        /**
+         * Tells if the bots of the strategy search against the clock, so that how they play
+         * depends on the speed and the load of the machine.
+         *
+         * @return true for MCTS and PLANNER bots.
+         */
+        public boolean isTimed() {
+            return this == MCTS || this == PLANNER;
+        }
     }
 
+    private static final int GREEDY_PLAN_POWER = 2;
+
     private Strategy strategy;
+    private long searchBudget = MonteCarloSearch.DEFAULT_BUDGET_MILLIS;
+    private transient Game game; // The game the bot sits at, needed to look ahead
+    private transient MonteCarloSearch search;
+    private transient PlanSearch planSearch;
+    private transient EndgameSolver endgame;
+    private transient GreedyPolicy greedy;
+    private transient Board scratch; // Board the greedy plan is tried on
 
     /**
      * Constructs a new BotPlayer with the specified name, color, and strategy.
@@ -52,6 +75,72 @@ public class BotPlayer extends Player implements Serializable {
         this.strategy = strategy;
     }
 
+    /**
+     * Sets how long the bot thinks about each decision when it searches.
+     *
+     * @param millis The time budget of a decision, in milliseconds.
+     */
+    public void setSearchBudget(long millis) {
+        this.searchBudget = millis;
+        this.search = null;
+        this.planSearch = null;
+        this.endgame = null;
+    }
+
+    /**
+     * Returns how long the bot thinks about each decision when it searches.
+     *
+     * @return The time budget of a decision, in milliseconds.
+     */
+    public long getSearchBudget() {
+        return searchBudget;
+    }
+
+    /**
+     * Returns the search the bot thinks with, it is created the first time it is needed.
+     *
+     * @return The Monte Carlo search of the bot.
+     */
+    public MonteCarloSearch getSearch() {
+        if (search == null) {
+            search = new MonteCarloSearch(searchBudget);
+        }
+        return search;
+    }
+
+    /**
+     * Returns the search the bot plans with, it is created the first time it is needed.
+     *
+     * @return The plan search of the bot.
+     */
+    public PlanSearch getPlanSearch() {
+        if (planSearch == null) {
+            planSearch = new PlanSearch(searchBudget);
+        }
+        return planSearch;
+    }
+
+    /**
+     * Returns the solver the bot plans the last turn with, it is created the first time it is needed.
+     *
+     * @return The endgame solver of the bot.
+     */
+    public EndgameSolver getEndgameSolver() {
+        if (endgame == null) {
+            endgame = new EndgameSolver(searchBudget);
+        }
+        return endgame;
+    }
+
+    /**
+     * Seats the bot at a game, so that it can look at the board when it searches.
+     *
+     * @param game The game the bot plays.
+     */
+    void join(Game game) {
+        this.game = game;
+    }
+
     /**
      * Generates a list of command cards based on the bot's current strategy.
      * For example, a RANDOM strategy could generate random command cards.
@@ -61,7 +150,7 @@ public class BotPlayer extends Player implements Serializable {
     public List<CommandCard> generateStrategy() {
         // Implementation of the bot's strategy based on its type.
         // Example: returns an EXPAND command.
-        return List.of(new CommandCard(CommandCard.Command.EXPAND)); // Basic example
+        return List.of(CommandCard.of(CommandCard.Command.EXPAND)); // Basic example
     }
 
     /**
@@ -70,30 +159,151 @@ public class BotPlayer extends Player implements Serializable {
      */
     @Override
     public void plan() {
-        System.out.println(getName() + " (bot) is planning actions using " + strategy + " strategy...");
+        io().println(getName() + " (bot) is planning actions using " + strategy + " strategy...");
 
         planList.clear(); // Clear previous plans
+        if ((strategy == Strategy.MCTS || strategy == Strategy.PLANNER) && planEndgame()) {
+            return;
+        }
         switch (strategy) {
             case AGGRESSIVE:
-                planList.add(new CommandCard(CommandCard.Command.EXTERMINATE));
-                planList.add(new CommandCard(CommandCard.Command.EXPAND));
-                planList.add(new CommandCard(CommandCard.Command.EXPLORE));
+                planList.addAll(PlanTable.cards(TurnOrder.plan(2, 0, 1)));
                 break;
             case DEFENSIVE:
-                planList.add(new CommandCard(CommandCard.Command.EXPAND));
-                planList.add(new CommandCard(CommandCard.Command.EXPLORE));
-                planList.add(new CommandCard(CommandCard.Command.EXTERMINATE));
+                planList.addAll(PlanTable.cards(TurnOrder.plan(0, 1, 2)));
                 break;
             case RANDOM:
                 CommandCard.Command[] commands = CommandCard.Command.values();
                 for (int i = 0; i < 3; i++) {
-                    int randomIndex = (int) (Math.random() * commands.length);
-                    planList.add(new CommandCard(commands[randomIndex]));
+                    int randomIndex = random().nextInt(commands.length);
+                    planList.add(CommandCard.of(commands[randomIndex]));
+                }
+                break;
+            case MCTS:
+                if (game == null) {
+                    planList.addAll(PlanTable.cards(greedyPlan()));
+                    break;
+                }
+                int plan = getSearch().choosePlan(game, game.getBoard().seatOf(this));
+                planList.addAll(PlanTable.cards(plan));
+                reportSearch();
+                break;
+            case GREEDY:
+                planList.addAll(PlanTable.cards(greedyPlan()));
+                break;
+            case PLANNER:
+                if (game == null) {
+                    planList.addAll(PlanTable.cards(greedyPlan()));
+                    break;
                 }
+                planList.addAll(PlanTable.cards(getPlanSearch().choosePlan(game, game.getBoard().seatOf(this))));
+                io().println(getName() + " (bot) weighed " + planSearch.getLastCells() + " plan combinations in "
+                        + planSearch.getLastIterations() + " iterations");
                 break;
         }        
     }
 
+    /**
+     * Plans the last turn of the game with the {@link EndgameSolver}.
+     *
+     * @return true if the solver found a plan, false to let the bot plan the usual way.
+     */
+    private boolean planEndgame() {
+        if (game == null || game.getTurnNumber() != Game.LAST_TURN) {
+            return false;
+        }
+        EndgameSolver solver = getEndgameSolver();
+        int plan = solver.choosePlan(game, game.getBoard().seatOf(this));
+        String reach = plan == EndgameSolver.NO_PLAN ? "ran out of time on the last turn"
+                : solver.isLastSolved() ? "solved the last turn" : "searched the last turn " + solver.getLastDepth() + " steps deep";
+        io().println(getName() + " (bot) " + reach + ", " + solver.getLastNodes() + " nodes at "
+                + Math.round(solver.getLastNodesPerSecond()) + " nodes/s");
+        if (plan == EndgameSolver.NO_PLAN) {
+            return false;
+        }
+        planList.addAll(PlanTable.cards(plan));
+        return true;
+    }
+
+    /**
+     * Chooses the move of the bot for a command, for the bots that search their moves.
+     *
+     * @param command    The command the bot plays.
+     * @param shipNumber The number of ships the command allows.
+     * @return The move to play, or null to let the bot play the command the usual way.
+     */
+    public Move chooseMove(CommandCard.Command command, int shipNumber) {
+        if ((strategy == Strategy.GREEDY || strategy == Strategy.PLANNER) && game != null) {
+            Board board = game.getBoard();
+            int seat = board.seatOf(this);
+            int move = greedy().choose(board, seat, command.ordinal(), shipNumber);
+            return move == GreedyPolicy.NO_MOVE ? null : MoveGenerator.toMove(seat, move);
+        }
+        if (strategy != Strategy.MCTS || game == null) {
+            return null;
+        }
+        Move move = getSearch().chooseMove(game, game.getBoard().seatOf(this), command.ordinal(), shipNumber);
+        reportSearch();
+        return move;
+    }
+
+    private GreedyPolicy greedy() {
+        if (greedy == null) {
+            greedy = new GreedyPolicy();
+        }
+        return greedy;
+    }
+
+    /**
+     * Plans the turn one phase at a time: the command with the best greedy move is chosen and 
+     * its move is played on a scratch board before the next phase is planned. A command is 
+     * supposed to allow as many ships as the {@link OpponentModel} of the game predicts, which 
+     * steers the bot away from the cards the others are likely to share, or 2 ships before 
+     * any plan was revealed.
+     *
+     * @return The plan, from 0 to 26.
+     */
+    private int greedyPlan() {
+        if (game == null) {
+            return TurnOrder.plan(0, 1, 2);
+        }
+        Board board = game.getBoard();
+        if (scratch == null) {
+            scratch = board.copy();
+        } else {
+            scratch.copyFrom(board);
+        }
+        int seat = board.seatOf(this);
+        OpponentModel opponents = game.getOpponentModel();
+        int plan = 0;
+        for (int phase = 0; phase < 3; phase++) {
+            int best = 0;
+            int bestScore = Integer.MIN_VALUE;
+            int bestPower = GREEDY_PLAN_POWER;
+            for (int command = 0; command < 3; command++) {
+                int power = opponents == null ? GREEDY_PLAN_POWER
+                        : (int) Math.round(opponents.expectedPower(seat, phase, command));
+                int score = greedy().bestScore(scratch, seat, command, power);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = command;
+                    bestPower = power;
+                }
+            }
+            int move = greedy().choose(scratch, seat, best, bestPower);
+            if (move != GreedyPolicy.NO_MOVE) {
+                Simulator.play(scratch, seat, move);
+            }
+            plan = plan * 3 + best;
+        }
+        return plan;
+    }
+
+    private void reportSearch() {
+        io().println(getName() + " (bot) searched " + search.getLastPlayouts() + " playouts ("
+                + Math.round(search.getLastPlayoutsPerSecond()) + " playouts/s)");
+    }
+
     /**
      * Expands the bot's control by adding ships to its owned hexes.
      *
@@ -104,12 +314,12 @@ public class BotPlayer extends Player implements Serializable {
         // Retrieve the sectors owned by the bot
         List<Sector> ownedSectors = getOwnedSector();
         if (ownedSectors.isEmpty()) {
-            System.out.println(getName() + " has no sectors to expand.");
+            io().println(getName() + " has no sectors to expand.");
             return;
         }
 
         // Find the hexes owned in controlled sectors
-        Map<Sector, List<Hex>> ownedHexesInSectors = new HashMap<>();
+        Map<Sector, List<Hex>> ownedHexesInSectors = new LinkedHashMap<>(); // Keeps the choice reproducible
         for (Sector sector : ownedSectors) {
             List<Hex> ownedHexes = new ArrayList<>();
             for (Hex hex : sector.getSection()) {
@@ -123,23 +333,23 @@ public class BotPlayer extends Player implements Serializable {
         }
 
         if (ownedHexesInSectors.isEmpty()) {
-            System.out.println(getName() + " has no owned hexes with available space to expand.");
+            io().println(getName() + " has no owned hexes with available space to expand.");
             return;
         }
 
         // Choose a sector from those with available owned hexes
         List<Sector> availableSectors = new ArrayList<>(ownedHexesInSectors.keySet());
-        Sector selectedSector = availableSectors.get(new Random().nextInt(availableSectors.size()));
+        Sector selectedSector = availableSectors.get(random().nextInt(availableSectors.size()));
 
         // Choose a hex among the owned hexes in the selected sector
         List<Hex> availableHexes = ownedHexesInSectors.get(selectedSector);
-        Hex chosenHex = availableHexes.get(new Random().nextInt(availableHexes.size()));
+        Hex chosenHex = availableHexes.get(random().nextInt(availableHexes.size()));
         int hexIndex = selectedSector.getSection().indexOf(chosenHex);
 
         // Add ships to the chosen hex
-        System.out.println(getName() + " (bot) is expanding in sector " + selectedSector.getSectorID() + " at hex " + hexIndex);
+        io().println(getName() + " (bot) is expanding in sector " + selectedSector.getSectorID() + " at hex " + hexIndex);
         selectedSector.expand(hexIndex, shipNumber);
-        System.out.println("Bot placed " + shipNumber + " ships on hex " + hexIndex + " in sector " + selectedSector.getSectorID());
+        io().println("Bot placed " + shipNumber + " ships on hex " + hexIndex + " in sector " + selectedSector.getSectorID());
     }
 
     /**
@@ -155,7 +365,7 @@ public class BotPlayer extends Player implements Serializable {
     @Override
     public void explore(int fromSectorID, int fromHexID, int toSectorID, int toHexID, int shipNumber, Sector[][] map) {
         // Select an origin sector from the ones owned
-        Random random = new Random();
+        SplittableRandom random = random();
         Sector fromSector = null;
 
         // Search for the origin sector in owned sectors
@@ -167,7 +377,7 @@ public class BotPlayer extends Player implements Serializable {
         }
 
         if (fromSector == null) {
-            System.out.println("Invalid source sector. Aborting.");
+            io().println("Invalid source sector. Aborting.");
             return;
         }
 
@@ -181,7 +391,7 @@ public class BotPlayer extends Player implements Serializable {
 
         // Choose a hex randomly from the available ones
         if (availableHexes.isEmpty()) {
-            System.out.println("No available hexes in the source sector. Aborting.");
+            io().println("No available hexes in the source sector. Aborting.");
             return;
         }
 
@@ -199,7 +409,7 @@ public class BotPlayer extends Player implements Serializable {
         }
 
         if (toSector == null) {
-            System.out.println("No available target sector. Aborting.");
+            io().println("No available target sector. Aborting.");
             return;
         }
 
@@ -213,16 +423,16 @@ public class BotPlayer extends Player implements Serializable {
 
         // Choose a destination hex randomly
         if (availableTargetHexes.isEmpty()) {
-            System.out.println("No available hexes in the target sector. Aborting.");
+            io().println("No available hexes in the target sector. Aborting.");
             return;
         }
 
         Hex toHex = availableTargetHexes.get(random.nextInt(availableTargetHexes.size()));
 
         // Start exploration
-        System.out.println("Bot is exploring...");
+        io().println("Bot is exploring...");
         super.explore(fromSector.getSectorID(), fromHex.getSectorID(), toSector.getSectorID(), toHex.getSectorID(), fleetToMove, map);
-        System.out.println("Bot successfully explored and moved " + fleetToMove + " ships.");
+        io().println("Bot successfully explored and moved " + fleetToMove + " ships.");
     }
 
     /**
@@ -234,8 +444,11 @@ public class BotPlayer extends Player implements Serializable {
      */
     @Override
     public int commandFleetNumber(String command, int maxNumberShips) {
+        if (strategy == Strategy.MCTS || strategy == Strategy.GREEDY || strategy == Strategy.PLANNER) {
+            return maxNumberShips; // The bots that choose their moves play every ship they are allowed
+        }
         int shipNumber = 4;
-        Random rand = new Random();
+        SplittableRandom rand = random();
         while(shipNumber > maxNumberShips) {
             shipNumber = rand.nextInt(maxNumberShips);
         }
@@ -5,6 +5,7 @@ import java.io.Serializable;
 /**
  * Represents a command card used by a player or bot to issue commands in the game.
  * Each CommandCard holds a specific command that defines the action to be performed.
+ * Cards are immutable, so the players share one card per command, see {@link #of(Command)}.
  */
 public class CommandCard implements Serializable {
     
@@ -15,33 +16,38 @@ public class CommandCard implements Serializable {
         EXPAND, EXPLORE, EXTERMINATE
     }
 
-    private Command command;
+    private static final CommandCard[] SHARED = {
+        new CommandCard(Command.EXPAND), new CommandCard(Command.EXPLORE), new CommandCard(Command.EXTERMINATE)
+    };
+
+    private final Command command;
 
     /**
      * Constructs a new CommandCard with the specified command.
      *
      * @param command The command to be assigned to the card.
      */
-    public CommandCard(Command command) {
+    private CommandCard(Command command) {
         this.command = command;
     }
 
     /**
-     * Gets the command associated with this CommandCard.
+     * Returns the card shared by every player for a command.
      *
-     * @return The command associated with this CommandCard.
+     * @param command The command of the card.
+     * @return The shared card of the command.
      */
-    public Command getCommand() {
-        return command;
+    public static CommandCard of(Command command) {
+        return SHARED[command.ordinal()];
     }
 
     /**
-     * Sets a new command for this CommandCard.
+     * Gets the command associated with this CommandCard.
      *
-     * @param command The new command to be set for the CommandCard.
+     * @return The command associated with this CommandCard.
      */
-    public void setCommand(Command command) {
-        this.command = command;
+    public Command getCommand() {
+        return command;
     }
 
     /**
@@ -0,0 +1,398 @@
+package PocketImperium;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Search of the plan of a bot for the last turn of the game, which is followed by no other
+ * turn and can be searched to its end.
+ * <p>
+ * The bot takes the worst case: a plan is worth the least it gets whatever the others plan,
+ * and in the turn the others play the moves that hurt it most. Its plans are compared by
+ * alpha-beta, both over the combinations of plans and over the moves of the steps of each
+ * turn, the moves being tried best first as the {@link GreedyPolicy} scores them. What a
+ * position is worth is how far the bot leads the best of the others at the end of the turn.
+ * Positions already searched are kept in a {@link TranspositionTable} shared by every solver.
+ * </p>
+ * <p>
+ * The search deepens step by step: at depth d the first d steps of the turn are searched and
+ * the others are played by the greedy policy, so that a plan is ready whenever the time
+ * budget runs out. Each core searches its own plans and all of them share the best value
+ * found so far. If not even the depth 0 could be finished, no plan is returned and the bot
+ * plans as usual.
+ * </p>
+ *
+ * @see Game#LAST_TURN
+ */
+public class EndgameSolver {
+	/** Returned when the search ran out of time before finding a plan. */
+	public static final int NO_PLAN = -1;
+	/** Memory of the transposition table when nothing else is set, in megabytes. */
+	public static final int DEFAULT_TABLE_MEGABYTES = 16;
+	private static final int INFINITY = 1 << 20;
+	private static final int EXACT = 0;
+	private static final int LOWER = 1; // The value is at least the one kept
+	private static final int UPPER = 2; // The value is at most the one kept
+	private static final int CLOCK_MASK = 255; // The clock is read once every 256 nodes
+	private static int tableMegabytes = DEFAULT_TABLE_MEGABYTES;
+	private static TranspositionTable table;
+
+	private final long budgetMillis;
+	private long lastNodes;
+	private long lastNanos;
+	private int lastDepth = -1;
+	private boolean lastSolved;
+	private int lastValue;
+
+	/**
+	 * Builds a solver thinking for the given time about the last plan.
+	 * @param budgetMillis The time budget of the plan, in milliseconds.
+	 */
+	public EndgameSolver(long budgetMillis) {
+		if (budgetMillis < 1) {
+			throw new IllegalArgumentException("The time budget must be positive");
+		}
+		this.budgetMillis = budgetMillis;
+	}
+
+	/**
+	 * Sets the memory of the transposition table shared by every solver, the table is 
+	 * built again empty.
+	 * @param megabytes The size of the table, in megabytes.
+	 */
+	public static synchronized void setTableSize(int megabytes) {
+		table = new TranspositionTable(megabytes);
+		tableMegabytes = megabytes;
+	}
+
+	/**
+	 * Returns the transposition table shared by every solver, for its counters.
+	 * @return the table, built on first use.
+	 */
+	public static synchronized TranspositionTable getTable() {
+		if (table == null) {
+			table = new TranspositionTable(tableMegabytes);
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the time budget of the plan.
+	 * @return the budget in milliseconds.
+	 */
+	public long getBudgetMillis() {
+		return budgetMillis;
+	}
+
+	/**
+	 * Returns the number of positions the last search visited, over all the workers.
+	 * @return the number of nodes.
+	 */
+	public long getLastNodes() {
+		return lastNodes;
+	}
+
+	/**
+	 * Returns how many positions per second the last search visited.
+	 * @return the throughput of the last search.
+	 */
+	public double getLastNodesPerSecond() {
+		return lastNanos == 0 ? 0 : lastNodes / (lastNanos / 1e9);
+	}
+
+	/**
+	 * Returns the number of steps the last search finished searching, the others being played greedily.
+	 * @return the depth, or -1 if the search found no plan.
+	 */
+	public int getLastDepth() {
+		return lastDepth;
+	}
+
+	/**
+	 * Tells if the last search went through every step of the turn, the plan being then exact.
+	 * @return true if the turn was solved.
+	 */
+	public boolean isLastSolved() {
+		return lastSolved;
+	}
+
+	/**
+	 * Returns the worst lead over the others the plan of the last search guarantees.
+	 * @return the value of the plan.
+	 */
+	public int getLastValue() {
+		return lastValue;
+	}
+
+	/**
+	 * Chooses the plan of a player for the last turn.
+	 * @param game The game being played, in its last turn.
+	 * @param seat The seat of the player.
+	 * @return the plan, from 0 to 26, or {@link #NO_PLAN} if the budget was too short.
+	 */
+	public int choosePlan(Game game, int seat) {
+		long start = System.nanoTime();
+		long deadline = start + budgetMillis * 1_000_000;
+		Board root = game.getBoard().copy();
+		int steps = 3 * root.getSeatCount();
+		TranspositionTable table = getTable();
+		table.newSearch();
+
+		int best = NO_PLAN;
+		lastNodes = 0;
+		lastDepth = -1;
+		lastSolved = false;
+		int[] values = new int[TurnOrder.PLAN_COUNT];
+		boolean[] exact = new boolean[TurnOrder.PLAN_COUNT];
+		for (int depth = 0; depth <= steps; depth++) {
+			if (!solve(root, seat, depth, best, deadline, table, values, exact)) {
+				break;
+			}
+			// A plan cut off is worth at most its value, only the plans searched to the end compare
+			best = NO_PLAN;
+			for (int plan = 0; plan < TurnOrder.PLAN_COUNT; plan++) {
+				if (exact[plan] && (best == NO_PLAN || values[plan] > values[best])) {
+					best = plan;
+				}
+			}
+			lastDepth = depth;
+			lastValue = values[best];
+			lastSolved = depth == steps;
+		}
+		lastNanos = System.nanoTime() - start;
+		return best;
+	}
+
+	/**
+	 * Searches every plan to a depth, on all the cores.
+	 * @param values Receives the value of each plan, a plan cut off being worth no more than its value.
+	 * @param exact Receives for each plan whether it was searched to the end, its value being then exact.
+	 * @return false if the time ran out.
+	 */
+	private boolean solve(Board root, int seat, int depth, int first, long deadline, TranspositionTable table,
+			int[] values, boolean[] exact) {
+		int[] order = new int[TurnOrder.PLAN_COUNT];
+		for (int plan = 0, i = first == NO_PLAN ? 0 : 1; plan < TurnOrder.PLAN_COUNT; plan++) {
+			if (plan != first) {
+				order[i++] = plan;
+			}
+		}
+		if (first != NO_PLAN) {
+			order[0] = first; // The best plan of the depth before makes the others cut off sooner
+		}
+
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger alpha = new AtomicInteger(-INFINITY);
+		AtomicBoolean timeout = new AtomicBoolean();
+		List<Callable<Worker>> workers = new ArrayList<>(MonteCarloSearch.THREADS);
+		for (int i = 0; i < MonteCarloSearch.THREADS; i++) {
+			workers.add(() -> new Worker(root, seat, depth, deadline, table, timeout).run(order, next, alpha, values, exact));
+		}
+		try {
+			for (Future<Worker> future : MonteCarloSearch.workers().invokeAll(workers)) {
+				lastNodes += future.get().nodes;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("An endgame worker failed", e.getCause());
+		}
+		return !timeout.get();
+	}
+
+	/**
+	 * The search of one core, on its own copy of the board.
+	 */
+	private static class Worker {
+		final Board board;
+		final int seat;
+		final int seats;
+		final int depth;
+		final long deadline;
+		final TranspositionTable table;
+		final AtomicBoolean timeout;
+		final GreedyPolicy greedy = new GreedyPolicy();
+		final TurnOrder turn = new TurnOrder();
+		final int[] plans;
+		final int[][] moves;
+		final long[][] ordered; // Score << 32 | move, sorted to try the best moves first
+		long key; // Key of the combination of plans being searched
+		long nodes;
+
+		Worker(Board root, int seat, int depth, long deadline, TranspositionTable table, AtomicBoolean timeout) {
+			this.board = root.copy();
+			this.seat = seat;
+			this.seats = root.getSeatCount();
+			this.depth = depth;
+			this.deadline = deadline;
+			this.table = table;
+			this.timeout = timeout;
+			this.plans = new int[seats];
+			this.moves = new int[3 * seats][MoveGenerator.MAX_MOVES];
+			this.ordered = new long[3 * seats][MoveGenerator.MAX_MOVES];
+		}
+
+		/**
+		 * Takes plans until there is none left, each plan being worth the least it gets against
+		 * every combination of plans of the others.
+		 */
+		Worker run(int[] order, AtomicInteger next, AtomicInteger alpha, int[] values, boolean[] exact) {
+			int others = 1;
+			for (int s = 1; s < seats; s++) {
+				others *= TurnOrder.PLAN_COUNT;
+			}
+			int killer = 0; // Combination that last cut a plan off, tried first
+			for (int i = next.getAndIncrement(); i < order.length && !timeout.get(); i = next.getAndIncrement()) {
+				int plan = order[i];
+				int worst = INFINITY;
+				boolean cut = false;
+				for (int n = 0; n < others && !cut; n++) {
+					int combination = n == 0 ? killer : n == killer ? 0 : n;
+					int bound = alpha.get();
+					setPlans(plan, combination);
+					int value = search(0, bound, worst);
+					if (timeout.get()) {
+						return this;
+					}
+					if (value < worst) {
+						worst = value;
+						killer = combination;
+					}
+					cut = worst <= bound; // Another plan is at least as good
+				}
+				values[plan] = worst;
+				exact[plan] = !cut;
+				alpha.accumulateAndGet(worst, Math::max);
+			}
+			return this;
+		}
+
+		/**
+		 * Gives the plan to the seat of the bot and the combination to the others, then resolves the turn.
+		 */
+		private void setPlans(int plan, int combination) {
+			for (int s = 0; s < seats; s++) {
+				if (s == seat) {
+					plans[s] = plan;
+				} else {
+					plans[s] = combination % TurnOrder.PLAN_COUNT;
+					combination /= TurnOrder.PLAN_COUNT;
+				}
+			}
+			turn.resolve(plans, seats);
+			key = Zobrist.plans(seat, PlanTable.combination(plans, seats));
+		}
+
+		/**
+		 * Alpha-beta from a step of the turn: the bot takes the best move for it, the others the worst.
+		 */
+		private int search(int step, int alpha, int beta) {
+			nodes++;
+			if ((nodes & CLOCK_MASK) == 0 && System.nanoTime() > deadline) {
+				timeout.set(true);
+			}
+			if (timeout.get()) {
+				return 0;
+			}
+			if (step == turn.length) {
+				return lead();
+			}
+			if (step >= depth) {
+				return playout(step);
+			}
+
+			int remaining = depth - step;
+			long position = board.getHash() ^ Zobrist.step(step) ^ key;
+			long entry = table.probe(position);
+			int hint = -1;
+			if (entry != TranspositionTable.MISS) {
+				int kept = TranspositionTable.depthOf(entry);
+				int value = TranspositionTable.valueOf(entry);
+				if (kept >> 2 >= remaining) {
+					int bound = kept & 3;
+					if (bound == EXACT || bound == LOWER && value >= beta || bound == UPPER && value <= alpha) {
+						return value;
+					}
+				}
+				hint = TranspositionTable.moveOf(entry);
+			}
+
+			int mover = turn.seat[step];
+			int count = MoveGenerator.generate(board, mover, turn.command[step], turn.power[step], moves[step]);
+			if (count == 0) {
+				return search(step + 1, alpha, beta);
+			}
+			long[] sorted = ordered[step];
+			for (int i = 0; i < count; i++) {
+				int move = moves[step][i];
+				int score = move == hint ? INFINITY : GreedyPolicy.score(board, mover, move);
+				sorted[i] = (long) score << 32 | move;
+			}
+			Arrays.sort(sorted, 0, count);
+
+			boolean mine = mover == seat;
+			int best = mine ? -INFINITY : INFINITY;
+			int bestMove = 0;
+			int low = alpha;
+			int high = beta;
+			for (int i = count - 1; i >= 0 && low < high; i--) {
+				int move = (int) sorted[i];
+				board.beginChange();
+				Simulator.play(board, mover, move);
+				int value = search(step + 1, low, high);
+				board.undo();
+				if (mine ? value > best : value < best) {
+					best = value;
+					bestMove = move;
+				}
+				if (mine) {
+					low = Math.max(low, best);
+				} else {
+					high = Math.min(high, best);
+				}
+			}
+			if (!timeout.get()) {
+				int bound = best <= alpha ? UPPER : best >= beta ? LOWER : EXACT;
+				table.store(position, best, remaining << 2 | bound, bestMove);
+			}
+			return best;
+		}
+
+		/**
+		 * Plays the steps left with the greedy policy and returns the value of the end of the turn.
+		 */
+		private int playout(int step) {
+			board.beginChange();
+			for (int i = step; i < turn.length; i++) {
+				int move = greedy.choose(board, turn.seat[i], turn.command[i], turn.power[i]);
+				if (move != GreedyPolicy.NO_MOVE) {
+					Simulator.play(board, turn.seat[i], move);
+				}
+			}
+			int value = lead();
+			board.undo();
+			return value;
+		}
+
+		/**
+		 * Returns how far the bot leads the best of the others.
+		 */
+		private int lead() {
+			int mine = board.getScore(seat) + board.getControlledLevel(seat);
+			int best = -INFINITY;
+			for (int other = 0; other < seats; other++) {
+				if (other != seat) {
+					best = Math.max(best, board.getScore(other) + board.getControlledLevel(other));
+				}
+			}
+			return seats == 1 ? mine : mine - best;
+		}
+	}
+}
@@ -1,11 +1,14 @@
 package PocketImperium;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.file.Paths;
 import java.util.*;
 
 
@@ -31,11 +34,75 @@ public class Game implements Serializable{
 	private boolean isFinished;
 	private String[] color = {"Red", "Green", "Blue"};
 	private Sector[][] map; // Makes the 9 Sector that will be used for the game
+	private Board board; // State behind the sectors and hexes of the map
+	private int turnsPlayed;
+	private long seed = new SplittableRandom().nextLong(); // Every random choice of the game follows from it
+	private transient SplittableRandom random; // Random numbers of the turn being played
+	private transient boolean headless; // Bots only and nobody watching
+	private transient IOChannel io; // null means the console
+	private transient Pacing pacing; // null means real time
+	private transient TurnOrder turnOrder; // Steps of the turn being played
+	private transient int[] turnPlans; // Plan of each seat for the turn being played
+	private transient OpponentModel opponents; // What the players tend to plan, learned from this session
+	private transient TurnJournal journal; // null when nothing is journaled
+	private transient Autosaver autosaver; // null when the game is not autosaved
+	private transient GameArchive archive; // null when the game is not archived
+	private transient SnapshotChain snapshots; // null when no snapshot is taken
+	private transient GameArchive.Recording recording; // Record of the game for the archive
+	private transient int resumeStep = -1; // Step a recovered turn goes on from, -1 for none
+	
+	/** Number of the last turn of a game. */
+	static final int LAST_TURN = 9;
+	
+	// Pauses at normal speed, in milliseconds, letting humans follow the bots
+	private static final long BOT_PLACEMENT_PAUSE = 1000;
+	private static final long BOT_PLAN_PAUSE = 2000;
+	private static final long BOT_COMMAND_PAUSE = 2000;
+	private static final long COMMAND_PAUSE = 2000;
 	
 	public Game() {
 		this.playerList = new ArrayList<>();
 	}
 	
+	/**
+	 * Returns the channel the game talks through with the people at the table.
+	 * @return the channel set with {@link #setChannel(IOChannel)}, or the console by default
+	 */
+	IOChannel io() {
+		return io != null ? io : StreamChannel.console();
+	}
+	
+	/**
+	 * Sets the channel the game talks through, players added afterwards without a 
+	 * channel of their own will use it too.
+	 * @param io The channel to use, or null to go back to the console.
+	 */
+	public void setChannel(IOChannel io) {
+		this.io = io;
+	}
+	
+	/**
+	 * Sets how long the game really waits when it pauses for the humans.
+	 * @param pacing The pacing to use, or null to wait in real time.
+	 */
+	public void setPacing(Pacing pacing) {
+		this.pacing = pacing;
+	}
+	
+	/**
+	 * Adds a player to the game, a player without a channel of his own will use the one of the game.
+	 * @param player The player taking the next free seat.
+	 */
+	private void addPlayer(Player player) {
+		if (player.getChannel() == null) {
+			player.setChannel(io);
+		}
+		if (player instanceof BotPlayer) {
+			((BotPlayer) player).join(this);
+		}
+		playerList.add(player);
+	}
+	
 	/**
 	* Starts the Pocket Imperium game, allowing the user to set up and play.
 	* 
@@ -53,7 +120,7 @@ public class Game implements Serializable{
 	*   <li>If "New Game" is chosen, prompt the user to specify the number of players (maximum 3).</li>
 	*   <li>For each player, ask if it is a bot or a human:
 	*       <ul>
-	*         <li>For bots, request the name and strategy (AGGRESSIVE, DEFENSIVE, or RANDOM).</li>
+	*         <li>For bots, request the name and strategy (AGGRESSIVE, DEFENSIVE, RANDOM, MCTS, GREEDY or PLANNER).</li>
 	*         <li>For humans, request the player's name.</li>
 	*       </ul>
 	*   </li>
@@ -64,38 +131,58 @@ public class Game implements Serializable{
 	*/
 	public void startGame() throws InterruptedException {
 
-		System.out.println("Welcome to Pocket Imperium");
+		io().println("Welcome to Pocket Imperium");
 		
 		int menu = 0;
-		System.out.println("1 : New Game");
-		System.out.println("2 : Load Game");
-		Scanner scanMenu = new Scanner(System.in);
+		io().println("1 : New Game");
+		io().println("2 : Load Game");
+		IOChannel scanMenu = io();
 		
 		while (menu != 1 && menu != 2) {
-			System.out.print(">>> ");
+			io().print(">>> ");
 			if (scanMenu.hasNextInt()) {
 				menu = scanMenu.nextInt();
 			} else {
-				System.out.println("Invalid input. Please enter 1 or 2.");
+				io().println("Invalid input. Please enter 1 or 2.");
 				scanMenu.next();
 			}
 		}
 	
 		if (menu == 2) {
-			// load game
-			System.out.print("Enter the filename to load the game: ");
+			// load game, the saves of the current directory are listed with their summary
+			List<SaveCatalogue.Entry> saves = new ArrayList<>();
+			try {
+				saves = new SaveCatalogue(Paths.get(".")).list();
+			} catch (IOException e) {
+				io().println("Failed to list the saves: " + e.getMessage());
+			}
+			for (int i = 0; i < saves.size(); i++) {
+				io().println((i + 1) + ". " + saves.get(i));
+			}
+			io().print(saves.isEmpty() ? "Enter the filename to load the game: " 
+					: "Enter the number of a save or a filename to load the game: ");
 			String filename = scanMenu.next();
+			if (filename.matches("\\d{1,4}") && Integer.parseInt(filename) >= 1 && Integer.parseInt(filename) <= saves.size()) {
+				filename = saves.get(Integer.parseInt(filename) - 1).getFile().toString();
+			}
 			try {
 				Game loadedGame = loadFromObject(filename);
-				this.playerList = loadedGame.playerList;
+				this.playerList = new ArrayList<>();
+				for (Player player : loadedGame.playerList) {
+					addPlayer(player);
+				}
 				this.turnNumber = loadedGame.turnNumber;
+				this.turnsPlayed = loadedGame.turnsPlayed;
+				this.seed = loadedGame.seed;
 				this.isFinished = loadedGame.isFinished;
 				this.map = loadedGame.map;
+				this.board = loadedGame.board;
 				displayMap();
 				startTurn();
+				playTurns();
 				return;
 			} catch (IOException | ClassNotFoundException e) {
-				System.out.println("Failed to load game: " + e.getMessage());
+				io().println("Failed to load game: " + e.getMessage());
 				return; // Sortir si le chargement échoue
 			}
 		}
@@ -103,17 +190,17 @@ public class Game implements Serializable{
 
 		// Ask how many players will play in the game
 		int numberPlayer = -1;
-		System.out.println("How many players are in the game? (3 Player Maximum)");
-		Scanner scan = new Scanner(System.in); // Use a single Scanner instance
+		io().println("How many players are in the game? (3 Player Maximum)");
+		IOChannel scan = io(); // Use a single Scanner instance
 	    
 	    while (numberPlayer < 1 || numberPlayer > 3) {
-	        System.out.print("Enter a valid number of players: ");
+	        io().print("Enter a valid number of players: ");
 	        if (scan.hasNextInt()) {
 	            numberPlayer = scan.nextInt();
 	            scan.nextLine(); // Consume the leftover newline
 	        }
 	        else {
-	            System.out.println("Invalid input. Please enter an integer.");
+	            io().println("Invalid input. Please enter an integer.");
 	            scan.nextLine(); // Clear invalid input
 	        }
 	    }
@@ -121,38 +208,49 @@ public class Game implements Serializable{
 		// Setup all the players
 		String name;
 		for (int i = 0; i < numberPlayer; i++) {
-			System.out.println("Is this player a bot? (yes/no)");
+			io().println("Is this player a bot? (yes/no)");
 			String isBot = scan.nextLine().trim().toLowerCase();
 
 			if (isBot.equals("yes")) {
-				System.out.println("Enter the bot's name:");
+				io().println("Enter the bot's name:");
 				name = scan.nextLine();
-				System.out.println("Choose the bot's strategy: (AGGRESSIVE, DEFENSIVE, RANDOM)");
+				io().println("Choose the bot's strategy: (AGGRESSIVE, DEFENSIVE, RANDOM, MCTS, GREEDY, PLANNER)");
 				String strategyInput = scan.nextLine().trim().toUpperCase();
 
 				BotPlayer.Strategy strategy;
 				try {
 					strategy = BotPlayer.Strategy.valueOf(strategyInput);
 				} catch (IllegalArgumentException e) {
-					System.out.println("Invalid strategy. Defaulting to RANDOM.");
+					io().println("Invalid strategy. Defaulting to RANDOM.");
 					strategy = BotPlayer.Strategy.RANDOM;
 				}
 
 				BotPlayer botPlayer = new BotPlayer(name, color[i], strategy);
-				playerList.add(botPlayer);
-				System.out.println("Bot player " + name + " with " + strategy + " strategy added.");
+				addPlayer(botPlayer);
+				io().println("Bot player " + name + " with " + strategy + " strategy added.");
 			} else {
-				System.out.println("Enter the player's name:");
+				io().println("Enter the player's name:");
 				name = scan.nextLine();
 				Player player = new Player(name, color[i]);
-				playerList.add(player);
-				System.out.println("Human player " + name + " added.");
+				addPlayer(player);
+				io().println("Human player " + name + " added.");
 			}
 		}
 
-		
+		playGame();
+	}
+	
+	/**
+	 * Builds the map, lets the players place their first ships and plays the turns 
+	 * until the game is finished.
+	 * 
+	 * @throws InterruptedException
+	 */
+	void playGame() throws InterruptedException {
 		// Setup the game
 		turnNumber = 0;
+		turnsPlayed = 0;
+		reseed();
 		buildMap();
 		displayMap();
 		setupGame();
@@ -160,11 +258,365 @@ public class Game implements Serializable{
 		// Start the 1rst turn
 		isFinished = false;
 		turnNumber = 1;
+		if (archive != null) {
+			recording.start(playerList, board, seed);
+		}
+		if (journal != null) {
+			try {
+				journal.checkpoint(this);
+			} catch (IOException e) {
+				journalFailed(e);
+			}
+		}
+		playTurns();
+		if (archive != null) {
+			recording.finish(getResult());
+			try {
+				archive.append(recording);
+			} catch (IOException e) {
+				io().println("Failed to archive the game: " + e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Plays the turns following the current one until the game is finished.
+	 * 
+	 * @throws InterruptedException
+	 */
+	private void playTurns() throws InterruptedException {
 		while (turnNumber < 10 && isFinished == false) {
 			turnNumber++;
 			startTurn();
 		}
-		
+	}
+	
+	/**
+	 * Goes on with a game recovered from its journal: the turn stopped in the middle is 
+	 * played to its end, then the game goes on as usual.
+	 * 
+	 * @throws InterruptedException
+	 * @see TurnJournal#recover(String)
+	 */
+	public void resume() throws InterruptedException {
+		if (journal != null) {
+			// The journal starts over from the recovered game and the turn it stopped in
+			try {
+				journal.checkpoint(this);
+				if (resumeStep >= 0) {
+					journal.turnStarted(turnNumber, turnsPlayed, resumeStep);
+					for (Player player : playerList) {
+						journal.planned(turnNumber, board.seatOf(player), player.getPlanList());
+					}
+				}
+			} catch (IOException e) {
+				journalFailed(e);
+			}
+		}
+		if (resumeStep >= 0) {
+			startTurn();
+		}
+		playTurns();
+	}
+	
+	/**
+	 * Places a recovered game where its journal stops.
+	 * @param turnNumber The turn being played.
+	 * @param turnsPlayed The number of turns started.
+	 * @param step The step of the turn the game goes on from, or -1 to start the next turn.
+	 */
+	void resumeAt(int turnNumber, int turnsPlayed, int step) {
+		this.turnNumber = turnNumber;
+		this.turnsPlayed = turnsPlayed;
+		this.resumeStep = step;
+	}
+	
+	/**
+	 * Moves a loaded game to a later point of the same game.
+	 * @param turnNumber The turn being played.
+	 * @param finished Whether the game is over.
+	 * @param turnsPlayed The number of turns started.
+	 */
+	void restoreProgress(int turnNumber, boolean finished, int turnsPlayed) {
+		this.turnNumber = turnNumber;
+		this.isFinished = finished;
+		this.turnsPlayed = turnsPlayed;
+	}
+	
+	/**
+	 * Writes the game to a journal from now on, so that it can be recovered after a crash.
+	 * The journal starts from a snapshot of the game once the map is set up.
+	 * @param journal The journal, or null to stop journaling.
+	 */
+	public void setJournal(TurnJournal journal) {
+		this.journal = journal;
+	}
+	
+	/**
+	 * Sets the seed of the game. Every random choice follows from the seed: the map, the 
+	 * choices of the bots and the outcome of their commands, so a game played again from the 
+	 * same seed with the same answers from the humans is the same game. A game loaded at the 
+	 * start of a turn goes on as it did the first time.
+	 * @param seed The seed, a new game gets a random one.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		this.random = null;
+	}
+	
+	/**
+	 * Returns the seed of the game.
+	 * @return the seed every random choice follows from.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Derives the seed of a stream of random numbers from the seed of a game, streams of 
+	 * different numbers being unrelated.
+	 * @param seed The seed of the game.
+	 * @param stream The number of the stream.
+	 * @return the seed of the stream.
+	 */
+	static long streamSeed(long seed, long stream) {
+		long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * Starts the random numbers of the turn being played: they only depend on the seed and 
+	 * the number of turns played, and each player gets a stream of his own.
+	 */
+	private void reseed() {
+		random = new SplittableRandom(streamSeed(seed, turnsPlayed));
+		for (Player player : playerList) {
+			player.setRandom(random.split());
+		}
+	}
+	
+	/**
+	 * Returns the random numbers of the game itself, for the map.
+	 * @return the stream of the turn being played.
+	 */
+	private SplittableRandom random() {
+		if (random == null) {
+			reseed();
+		}
+		return random;
+	}
+	
+	/**
+	 * Shuffles a list with the random numbers of the game.
+	 * @param list The list to shuffle.
+	 * @param random The random numbers.
+	 */
+	private static <T> void shuffle(List<T> list, SplittableRandom random) {
+		for (int i = list.size() - 1; i > 0; i--) {
+			Collections.swap(list, i, random.nextInt(i + 1));
+		}
+	}
+	
+	/**
+	 * Saves the game in the background at the start of its turns from now on.
+	 * @param autosaver The autosaver, or null to stop autosaving.
+	 */
+	public void setAutosaver(Autosaver autosaver) {
+		this.autosaver = autosaver;
+	}
+	
+	/**
+	 * Takes a snapshot of the game at the start of every turn from now on.
+	 * @param snapshots The chain receiving the snapshots, or null to stop them.
+	 */
+	public void setSnapshots(SnapshotChain snapshots) {
+		this.snapshots = snapshots;
+	}
+	
+	/**
+	 * Adds the record of the game to an archive when it ends.
+	 * @param archive The archive, or null to stop archiving.
+	 */
+	public void setArchive(GameArchive archive) {
+		this.archive = archive;
+		if (archive != null && recording == null) {
+			recording = new GameArchive.Recording();
+		}
+	}
+	
+	/**
+	 * Stops journaling after the journal could not be written, the game itself goes on.
+	 * @param e The error of the journal.
+	 */
+	private void journalFailed(IOException e) {
+		io().println("Failed to write the journal: " + e.getMessage());
+		try {
+			journal.close();
+		} catch (IOException ignored) {
+			// The journal is given up anyway
+		}
+		journal = null;
+	}
+	
+	/**
+	 * Plays a full game between bots without any console input or output and without 
+	 * the pauses that let humans follow the bots.
+	 * <p>
+	 * One bot is seated for each strategy given, in the same order, and they receive 
+	 * the colors in that order as well. This is meant to evaluate strategies by playing 
+	 * a large number of games.
+	 * </p>
+	 * 
+	 * @param strategies The strategy of each bot, 1 to 3 bots can play.
+	 * @return the winner, the final score and controlled level of each bot and the number of turns played.
+	 * @throws InterruptedException
+	 */
+	public static GameResult simulate(BotPlayer.Strategy... strategies) throws InterruptedException {
+		return simulate(new SplittableRandom().nextLong(), null, strategies);
+	}
+	
+	/**
+	 * Plays a full headless game between bots from a seed, see {@link #simulate(BotPlayer.Strategy...)}, 
+	 * and adds its record to an archive. The same seed plays the same game again, as long as 
+	 * no bot searches with a time budget.
+	 * 
+	 * @param seed The seed of the game.
+	 * @param archive The archive receiving the game, or null.
+	 * @param strategies The strategy of each bot, 1 to 3 bots can play.
+	 * @return the winner, the final score and controlled level of each bot and the number of turns played.
+	 * @throws InterruptedException
+	 */
+	public static GameResult simulate(long seed, GameArchive archive, BotPlayer.Strategy... strategies) throws InterruptedException {
+		Game game = headless(strategies);
+		game.setSeed(seed);
+		game.setArchive(archive);
+		game.playGame();
+		return game.getResult();
+	}
+	
+	/**
+	 * Seats bots at a new headless game, which is silent and never pauses. The map is 
+	 * not built yet.
+	 * 
+	 * @param strategies The strategy of each bot, 1 to 3 bots can play.
+	 * @return the game, ready for {@link #buildMap()} and {@link #setupGame()}.
+	 */
+	static Game headless(BotPlayer.Strategy... strategies) {
+		if (strategies.length < 1 || strategies.length > 3) {
+			throw new IllegalArgumentException("A game needs 1 to 3 players, got " + strategies.length);
+		}
+		Game game = new Game();
+		game.headless = true;
+		game.io = ScriptChannel.silent();
+		game.pacing = Pacing.none();
+		for (int i = 0; i < strategies.length; i++) {
+			game.addPlayer(new BotPlayer("Bot " + (i + 1), game.color[i], strategies[i]));
+		}
+		return game;
+	}
+	
+	/**
+	 * Rebuilds a game from a save: the players are seated in the given order and the map is 
+	 * built over the given board.
+	 * 
+	 * @param players The players in seat order.
+	 * @param board The board of the game, seated with the same players.
+	 * @param turnNumber The turn being played.
+	 * @param finished Whether the game is over.
+	 * @param turnsPlayed The number of turns started.
+	 * @return the game, without any sector owned by a player yet.
+	 */
+	static Game restore(List<Player> players, Board board, int turnNumber, boolean finished, int turnsPlayed) {
+		Game game = new Game();
+		for (Player player : players) {
+			game.addPlayer(player);
+		}
+		game.board = board;
+		game.turnNumber = turnNumber;
+		game.isFinished = finished;
+		game.turnsPlayed = turnsPlayed;
+		game.buildSectors();
+		return game;
+	}
+	
+	/**
+	 * Tells if the game is over.
+	 * @return true once the last turn is played or a player has no ship left.
+	 */
+	public boolean isFinished() {
+		return isFinished;
+	}
+	
+	/**
+	 * Returns the number of turns started since the map was built.
+	 * @return the number of turns played.
+	 */
+	public int getTurnsPlayed() {
+		return turnsPlayed;
+	}
+	
+	/**
+	 * Returns the players of the game in seat order.
+	 * @return a read-only view of the list of players.
+	 */
+	public List<Player> getPlayers() {
+		return Collections.unmodifiableList(playerList);
+	}
+	
+	/**
+	 * Returns the number of the turn being played.
+	 * @return the turn number, from 2 to {@link #LAST_TURN} once the game is set up.
+	 */
+	public int getTurnNumber() {
+		return turnNumber;
+	}
+	
+	/**
+	 * Returns what the players tend to plan, learned from the plans revealed since the game 
+	 * was started or loaded.
+	 * @return the model, or null before the first plans are revealed.
+	 */
+	OpponentModel getOpponentModel() {
+		return opponents;
+	}
+	
+	/**
+	 * Returns the order of the turn being played, with the step currently played.
+	 * @return the order of the turn, or null before the first turn.
+	 */
+	TurnOrder getTurnOrder() {
+		return turnOrder;
+	}
+	
+	/**
+	 * Returns the Zobrist hash of the position: the fleets and owners of the board, the 
+	 * ships in the hand of each player, the turn and the step of the turn being played.
+	 * @return the hash of the position, equal for two games in the same position.
+	 */
+	public long getPositionHash() {
+		long hash = board.getHash() ^ Zobrist.turn(turnNumber) ^ Zobrist.step(turnOrder == null ? -1 : turnOrder.step);
+		for (int seat = 0; seat < playerList.size(); seat++) {
+			hash ^= Zobrist.hand(seat, playerList.get(seat).getRemainingShips());
+		}
+		return hash;
+	}
+	
+	/**
+	 * Returns the result of the game with the scores as they currently are.
+	 * @return a GameResult with the players in seat order.
+	 */
+	public GameResult getResult() {
+		String[] names = new String[playerList.size()];
+		int[] scores = new int[playerList.size()];
+		int[] levels = new int[playerList.size()];
+		for (int i = 0; i < playerList.size(); i++) {
+			names[i] = playerList.get(i).getName();
+			scores[i] = score(playerList.get(i));
+			levels[i] = board.getControlledLevel(i);
+		}
+		return new GameResult(names, scores, levels, turnsPlayed, seed);
 	}
 	
 
@@ -219,25 +671,25 @@ public class Game implements Serializable{
 			// Display all the free Sectors
 			for (int row = 0; row < 3; row++) {
 				for (int col = 0; col < 3; col++) {
-					map[row][col].displayFreeSector();
+					map[row][col].displayFreeSector(io());
 				}
 			}
 	
 			int sectorID = -1;
 			if (currentPlayer instanceof BotPlayer) {
 				// Logique pour le bot : choisir un secteur libre aléatoire
-				System.out.println(currentPlayer.getName() + " is a bot. He is thinking....");
-				Thread.sleep(1000);
+				io().println(currentPlayer.getName() + " is a bot. He is thinking....");
+				pause(BOT_PLACEMENT_PAUSE);
 				
-				sectorID = freeSectorID.stream().findAny().orElse(-1);
-				System.out.println(currentPlayer.getName() + " (bot) chose sector " + sectorID + ".");
+				sectorID = randomFreeSector(freeSectorID, currentPlayer.random());
+				io().println(currentPlayer.getName() + " (bot) chose sector " + sectorID + ".");
 			} else {
 				// Logique pour un joueur humain
-				Scanner scan = new Scanner(System.in);
+				IOChannel scan = currentPlayer.io();
 				while (!freeSectorID.contains(sectorID)) {
-					System.out.println(currentPlayer.getName() + " you have " + currentPlayer.getRemainingShips() +
+					scan.println(currentPlayer.getName() + " you have " + currentPlayer.getRemainingShips() +
 							" ships, please place 2 ships on an unoccupied level 1 system in an unoccupied Sector");
-					System.out.println("Please select the sector you want");
+					scan.println("Please select the sector you want");
 					sectorID = scan.nextInt();
 				}
 			}
@@ -251,22 +703,22 @@ public class Game implements Serializable{
 			freeSectorID.remove(sectorID); // Remove the sector from the map
 	
 			// This will display the sections available in the sector
-			map[row][col].availableSection();
+			map[row][col].availableSection(io());
 	
 			int systemLevel = 0;
 			int hexesID = -1;
 			if (currentPlayer instanceof BotPlayer) {
 				// Logique pour le bot : choisir un système de niveau 1 aléatoire
-				System.out.println(currentPlayer.getName() + " is thinking....");
-				Thread.sleep(1000);
+				io().println(currentPlayer.getName() + " is thinking....");
+				pause(BOT_PLACEMENT_PAUSE);
 				
-				hexesID = map[row][col].getRandomHexWithLevel(1);
-				System.out.println(currentPlayer.getName() + " (bot) chose hex " + hexesID + ".");
+				hexesID = map[row][col].getRandomHexWithLevel(1, currentPlayer.random());
+				io().println(currentPlayer.getName() + " (bot) chose hex " + hexesID + ".");
 			} else {
 				// Logique pour un joueur humain
-				Scanner scan = new Scanner(System.in);
+				IOChannel scan = currentPlayer.io();
 				while (systemLevel != 1) {
-					System.out.println("Please select one sector with a level 1 system");
+					scan.println("Please select one sector with a level 1 system");
 					hexesID = scan.nextInt();
 					systemLevel = map[row][col].getSystemLevel(hexesID);
 				}
@@ -286,23 +738,23 @@ public class Game implements Serializable{
 			// Display all the free Sectors
 			for (int row = 0; row < 3; row++) {
 				for (int col = 0; col < 3; col++) {
-					map[row][col].displayFreeSector();
+					map[row][col].displayFreeSector(io());
 				}
 			}
 	
 			int sectorID = -1;
 			if (currentPlayer instanceof BotPlayer) {
-				System.out.println(currentPlayer.getName() + " is thinking....");
-				Thread.sleep(1000);
+				io().println(currentPlayer.getName() + " is thinking....");
+				pause(BOT_PLACEMENT_PAUSE);
 				
-				sectorID = freeSectorID.stream().findAny().orElse(-1);
-				System.out.println(currentPlayer.getName() + " (bot) chose sector " + sectorID + ".");
+				sectorID = randomFreeSector(freeSectorID, currentPlayer.random());
+				io().println(currentPlayer.getName() + " (bot) chose sector " + sectorID + ".");
 			} else {
-				Scanner scan = new Scanner(System.in);
+				IOChannel scan = currentPlayer.io();
 				while (!freeSectorID.contains(sectorID)) {
-					System.out.println(currentPlayer.getName() + " you have " + currentPlayer.getRemainingShips() +
+					scan.println(currentPlayer.getName() + " you have " + currentPlayer.getRemainingShips() +
 							" ships, please place 2 ships on an unoccupied level 1 system in an unoccupied Sector");
-					System.out.println("Please select the sector you want");
+					scan.println("Please select the sector you want");
 					sectorID = scan.nextInt();
 				}
 			}
@@ -314,19 +766,19 @@ public class Game implements Serializable{
 	
 			freeSectorID.remove(sectorID);
 	
-			map[row][col].availableSection();
+			map[row][col].availableSection(io());
 	
 			int systemLevel = 0;
 			int hexesID = -1;
 			if (currentPlayer instanceof BotPlayer) {
-				System.out.println(currentPlayer.getName() + " is thinking....");
-				Thread.sleep(1000);
-				hexesID = map[row][col].getRandomHexWithLevel(1);
-				System.out.println(currentPlayer.getName() + " (bot) chose hex " + hexesID + ".");
+				io().println(currentPlayer.getName() + " is thinking....");
+				pause(BOT_PLACEMENT_PAUSE);
+				hexesID = map[row][col].getRandomHexWithLevel(1, currentPlayer.random());
+				io().println(currentPlayer.getName() + " (bot) chose hex " + hexesID + ".");
 			} else {
-				Scanner scan = new Scanner(System.in);
+				IOChannel scan = currentPlayer.io();
 				while (systemLevel != 1) {
-					System.out.println("Please select one sector with a level 1 system");
+					scan.println("Please select one sector with a level 1 system");
 					hexesID = scan.nextInt();
 					systemLevel = map[row][col].getSystemLevel(hexesID);
 				}
@@ -352,87 +804,143 @@ public class Game implements Serializable{
 	 * @throws InterruptedException
 	 */
 	public void startTurn() throws InterruptedException {
-		System.out.println("Turn starting");
+		io().println("Turn starting");
 		
-		// Offer the option to save at the start of the turn
-		System.out.println("Press 'q' to save the game or any other key to start the turn.");
-		Scanner scan = new Scanner(System.in);
-		String input = scan.nextLine();
+		// A recovered turn keeps the plans of its journal and goes on from its last step
+		int firstStep = Math.max(resumeStep, 0);
+		boolean resumed = resumeStep >= 0;
+		resumeStep = -1;
+		if (autosaver != null) {
+			for (String report = autosaver.pollReport(); report != null; report = autosaver.pollReport()) {
+				io().println(report);
+			}
+			if (!resumed) {
+				autosaver.turnStarting(this, turnsPlayed);
+			}
+		}
+		if (snapshots != null && !resumed) {
+			try {
+				snapshots.record(this);
+			} catch (IOException e) {
+				io().println("Failed to take a snapshot: " + e.getMessage());
+				snapshots = null;
+			}
+		}
+		// Offer the option to save at the start of the turn, nobody can answer in a headless game.
+		// The save is taken before the turn is counted, so that loading it plays this turn again.
+		IOChannel scan = io();
+		String input = "";
+		if (!headless && !resumed) {
+			scan.println("Press 'q' to save the game or any other key to start the turn.");
+			input = scan.nextLine();
+		}
 		
 		if (input.equalsIgnoreCase("q")) {
-			System.out.print("Do you want to save the game? (yes/no): ");
+			io().print("Do you want to save the game? (yes/no): ");
 			String response = scan.nextLine();
 			if (response.equalsIgnoreCase("yes")) {
-				System.out.print("Enter the filename to save the game: ");
+				io().print("Enter the filename to save the game: ");
 				String filename = scan.nextLine();
 				try {
 					saveToObject(this, filename);
-					System.out.println("Game saved successfully.");
+					io().println("Game saved successfully.");
 				} catch (IOException e) {
-					System.out.println("Failed to save game: " + e.getMessage());
+					io().println("Failed to save game: " + e.getMessage());
 				}
 			}
 		}
+		
+		if (!resumed) {
+			turnsPlayed++;
+		}
+		reseed();
+	
+		if (journal != null && !resumed) {
+			try {
+				journal.turnStarted(turnNumber, turnsPlayed, 0);
+			} catch (IOException e) {
+				journalFailed(e);
+			}
+		}
+	
+		if (turnOrder != null && !resumed) {
+			turnOrder.step = -1; // Planning
+		}
 	
 		// Initialize the player iterator and start the turn
-		Iterator<Player> playerIterator = playerList.iterator();
+		Iterator<Player> playerIterator = resumed ? Collections.emptyIterator() : playerList.iterator();
 	
 		while (playerIterator.hasNext()) {
 			Player currentPlayer = playerIterator.next();
 			currentPlayer.getPlanList().clear();
 			
-			System.out.println(currentPlayer.getName() + ", it's your turn. Preparing actions...");
+			io().println(currentPlayer.getName() + ", it's your turn. Preparing actions...");
 			
 			if (currentPlayer instanceof BotPlayer) {
 				// Bot planning
-				System.out.println(currentPlayer.getName() + " is thinking....");
-				Thread.sleep(2000);
+				io().println(currentPlayer.getName() + " is thinking....");
+				pause(BOT_PLAN_PAUSE);
 				currentPlayer.plan();
 				
 			} else {
 				// Human player planning
-				System.out.println("Please select your actions.");
+				io().println("Please select your actions.");
 				currentPlayer.plan();
 			}
-			System.out.println("\n");
+			if (archive != null) {
+				recording.plan(turnNumber, board.seatOf(currentPlayer), currentPlayer.getPlanList());
+			}
+			if (journal != null) {
+				try {
+					journal.planned(turnNumber, board.seatOf(currentPlayer), currentPlayer.getPlanList());
+				} catch (IOException e) {
+					journalFailed(e);
+				}
+			}
+			io().println("\n");
 		}
 		
 	
-		// Check the cards chosen by the players
-		int[] expandRepeat = this.commandRepeats().get(0);
-		int[] exploreRepeat = this.commandRepeats().get(1);
-		int[] exterminateRepeat = this.commandRepeats().get(2);
-		System.out.println("Expand array: " + Arrays.toString(expandRepeat));
-		System.out.println("Explore array: " + Arrays.toString(exploreRepeat));
-		System.out.println("Exterminate array: " + Arrays.toString(exterminateRepeat));
-		System.out.println();
-		
-		// Sets the order of the turn, i.e in what order the players will play their commands
-		List<Integer> playerOrder = this.setTurnOrder(expandRepeat, exploreRepeat, exterminateRepeat); // Keeps track of Player order
-		List<Integer> commandOrder = this.setCommandOrder(expandRepeat, exploreRepeat, exterminateRepeat); // Keeps track of Command order
-		System.out.println(playerOrder);
-		System.out.println(commandOrder);
+		// Sets the order of the turn, i.e in what order the players will play their commands, 
+		// it is kept whole for the bots that look ahead
+		if (turnOrder == null) {
+			turnOrder = new TurnOrder();
+			turnPlans = new int[PlanTable.MAX_SEATS];
+		}
+		for (int seat = 0; seat < playerList.size(); seat++) {
+			turnPlans[seat] = PlanTable.planOf(playerList.get(seat).getPlanList());
+		}
+		PlanTable.resolve(turnPlans, playerList.size(), turnOrder);
+		if (opponents == null) {
+			opponents = new OpponentModel(playerList.size(), OpponentModel.DEFAULT_DECAY);
+		}
+		for (int seat = 0; seat < playerList.size(); seat++) {
+			opponents.observe(seat, turnPlans[seat]);
+		}
+		if (!headless) {
+			this.printTurnOrder();
+		}
 		
-		for (int i = 0; i < playerOrder.size(); i++) {
-			int order = playerOrder.get(i);
-			int command = commandOrder.get(i);
+		for (int i = firstStep; i < turnOrder.length; i++) {
+			int order = turnOrder.seat[i];
+			int command = turnOrder.command[i];
+			turnOrder.step = i;
 			
 			Player currentPlayer = playerList.get(order);
-			System.out.println(currentPlayer.getName() + " it is your turn now.....");
+			io().println(currentPlayer.getName() + " it is your turn now.....");
 			
 			if (currentPlayer instanceof BotPlayer) {
-				System.out.println(currentPlayer.getName() + " is a bot. He is thinking....");
-				Thread.sleep(2000);
+				io().println(currentPlayer.getName() + " is a bot. He is thinking....");
+				pause(BOT_COMMAND_PAUSE);
 			}
-			int numberOfRep;
 			int shipNumber;
 			int maxShipNumber;
+			board.beginChange(); // Lets the journal see what the command changed
 			// 0 represents EXPAND, 1 represents EXPLORE & 2 represents EXTERMINATE
 			switch(command) {
 			case 0:
-				System.out.println(currentPlayer.getName() + " will play the command EXPAND.....");
-				numberOfRep = expandRepeat[i/3];
-				maxShipNumber = this.commandPower(numberOfRep);
+				io().println(currentPlayer.getName() + " will play the command EXPAND.....");
+				maxShipNumber = this.showPower(turnOrder.power[i]);
 				shipNumber = currentPlayer.commandFleetNumber("EXPAND", maxShipNumber);
 				
 				this.executeExpand(currentPlayer, shipNumber);
@@ -440,9 +948,8 @@ public class Game implements Serializable{
 				break;
 				
 			case 1:
-				System.out.println(currentPlayer.getName() + " will play the command EXPLORE.....");
-				numberOfRep = exploreRepeat[i/3];
-				maxShipNumber = this.commandPower(numberOfRep);
+				io().println(currentPlayer.getName() + " will play the command EXPLORE.....");
+				maxShipNumber = this.showPower(turnOrder.power[i]);
 				shipNumber = currentPlayer.commandFleetNumber("EXPLORE", maxShipNumber);
 				
 				this.executeExplore(currentPlayer, shipNumber);
@@ -450,45 +957,75 @@ public class Game implements Serializable{
 				break;
 				
 			case 2:
-				System.out.println(currentPlayer.getName() + " will play the command EXTERMINATE.....");
-				numberOfRep = exterminateRepeat[i/3];
-				maxShipNumber = this.commandPower(numberOfRep);
+				io().println(currentPlayer.getName() + " will play the command EXTERMINATE.....");
+				maxShipNumber = this.showPower(turnOrder.power[i]);
 				shipNumber = currentPlayer.commandFleetNumber("EXTERMINATE", maxShipNumber);
 				
 				this.executeExterminate(currentPlayer, shipNumber);
 				this.displayMap();
 				break;
 			}
+			if (archive != null) {
+				recording.move(board, turnNumber, i, order, command);
+			}
+			if (journal != null) {
+				try {
+					journal.resolved(board, turnNumber, i, order, command, turnOrder.power[i], currentPlayer.getRemainingShips());
+				} catch (IOException e) {
+					journalFailed(e);
+				}
+			}
+			board.commitChange();
 			// Make a small pause in between
 			try {
-				Thread.sleep(2000);
+				pause(COMMAND_PAUSE);
 			} catch (InterruptedException e) {
 				e.printStackTrace();
 			}
 		}
 		endTurn();
 		verifyEnd();
+		if (journal != null) {
+			try {
+				if (isFinished) {
+					journal.close();
+				} else {
+					journal.sync();
+				}
+			} catch (IOException e) {
+				journalFailed(e);
+			}
+		}
+	}
+	/**
+	 * Makes a pause so that humans can follow what the bots are doing, the pacing of the 
+	 * game decides how long it really lasts.
+	 * @param millis The length of the pause at normal speed, in milliseconds.
+	 * @throws InterruptedException
+	 */
+	private void pause(long millis) throws InterruptedException {
+		(pacing != null ? pacing : Pacing.realTime()).pause(millis);
+	}
+	
+	/**
+	 * Returns the score of a player, the board keeps the score of the sectors up to date.
+	 * @param player The player whose score is returned.
+	 * @return the points of the player plus twice the level of every system in his sectors.
+	 */
+	private int score(Player player) {
+		return player.getCurrentScore() + board.getScore(board.seatOf(player));
 	}
+	
 	/**
 	 * Calculates the scores of each player to determine who is the Winner at the end.
 	 */
 	public void endTurn() {
 		// Calculate the scores
-		Map<Player, Integer> Scores = new HashMap<>();
+		Map<Player, Integer> Scores = new LinkedHashMap<>();
 		for (Player player : playerList) {
-			int score = player.getCurrentScore();
-
-			for (Sector[] row : map) {
-				for (Sector sector : row) {
-					if (sector.getOwner() == player) {
-						for (Hex hex : sector.getHexes()) {
-							score += hex.getSystemLevel() * 2; // Double the value of the systems
-						}
-					}
-				}
-			}
+			int score = score(player);
 			Scores.put(player, score);
-			System.out.println(player.getName() + " final score: " + score);
+			io().println(player.getName() + " final score: " + score);
 		}
 	}
 	
@@ -502,38 +1039,28 @@ public class Game implements Serializable{
 	public void verifyEnd() {
 
 		// Check if the game has reached 9 turns or if a player has been eliminated
-		if (turnNumber >= 9 || playerList.stream().anyMatch(player -> player.getFleetSize() == 0)) {
+		if (turnNumber >= LAST_TURN || playerList.stream().anyMatch(player -> player.getFleetSize() == 0)) {
 			isFinished = true; // Mark the game as finished
-			System.out.println("The game has ended!");
+			io().println("The game has ended!");
 	
 			// Calculate the final scores
-			Map<Player, Integer> finalScores = new HashMap<>();
+			Map<Player, Integer> finalScores = new LinkedHashMap<>(); // Ties go to the earlier seat
 			for (Player player : playerList) {
-				int score = player.getCurrentScore();
-	
-				for (Sector[] row : map) {
-					for (Sector sector : row) {
-						if (sector.getOwner() == player) {
-							for (Hex hex : sector.getHexes()) {
-								score += hex.getSystemLevel() * 2; // Double the value of the systems
-							}
-						}
-					}
-				}
+				int score = score(player);
 				finalScores.put(player, score);
-				System.out.println(player.getName() + " final score: " + score);
+				io().println(player.getName() + " final score: " + score);
 			}
 	
 			// Determine the winner
 			Player winner = Collections.max(finalScores.entrySet(), Map.Entry.comparingByValue()).getKey();
-			System.out.println("The winner is " + winner.getName() + " with " + finalScores.get(winner) + " points!");
+			io().println("The winner is " + winner.getName() + " with " + finalScores.get(winner) + " points!");
 	
 			// Mark the game as finished
 			return;
 		}
 	
 		// If no end condition is met, the game continues
-		System.out.println("The game continues. Turn " + turnNumber + " is in progress.");
+		io().println("The game continues. Turn " + turnNumber + " is in progress.");
 	}
 	
 
@@ -550,221 +1077,78 @@ public class Game implements Serializable{
 	* <p>A message displaying the result is shown to the player.</p>
 	*/
 	public int commandPower(int numberOfRep) {
-		if (numberOfRep == 1) {
-			System.out.println("You can use 3 ships");
-			return 3;
-		}
-		if (numberOfRep == 2) {
-			System.out.println("You can use 2 ships");
-			return 2;
-		}
-		System.out.println("You can use 1 ship only");
-		return 1;
+		return showPower(TurnOrder.power(numberOfRep));
 	}
 	
-
-	/**
-	* Calculates the number of occurrences of each command card (EXPAND, EXPLORE, EXTERMINATE) 
-	* selected by players during a turn.
-	* 
-	* <p>This method iterates over the players and counts how many times each command card is chosen 
-	* in each phase of the turn (three phases in total). The results are stored as follows:</p>
-	* <ul>
-	*   <li>An array for the "EXPAND" command counts per phase.</li>
-	*   <li>An array for the "EXPLORE" command counts per phase.</li>
-	*   <li>An array for the "EXTERMINATE" command counts per phase.</li>
-	* </ul>
-	* 
-	* <p>Each array contains three integers, where each index corresponds to a phase of the turn. 
-	* These arrays are then added to a list that represents the total counts for all commands.</p>
-	* 
-	* @return a list of three integer arrays, each representing the count of a specific command card:
-	*         <ul>
-	*           <li>The first array contains the counts for the "EXPAND" command for each phase.</li>
-	*           <li>The second array contains the counts for the "EXPLORE" command for each phase.</li>
-	*           <li>The third array contains the counts for the "EXTERMINATE" command for each phase.</li>
-	*         </ul>
-	*/
-	public List<int[]> commandRepeats() {
-		// Check how many times they are being repeated in a turn
-		int[] expandRepeat = new int[3];
-		int[] exploreRepeat = new int[3];
-		int[] exterminateRepeat = new int[3];
-		List<int[]> cardRepeat = new ArrayList<int[]>();
-		
-		// Check the moves selected in order for each player
-		for (int i = 0; i < 3; i++) {
-			Iterator<Player> playerIterator = playerList.iterator();
-			int expandRepeating = 0;
-			int exploreRepeating = 0;
-			int exterminateRepeating = 0;
-			while(playerIterator.hasNext()) {
-				Player currentPlayer = playerIterator.next();
-				String card = currentPlayer.getPlanList().get(i).toString(); // This will get the command chosen by the player
-				switch (card) {
-				case "EXPAND":
-					expandRepeating++;
-					break;
-				case "EXPLORE":
-					exploreRepeating++;
-					break;
-				case "EXTERMINATE":
-					exterminateRepeating++;	
-					break;
-				}
-			}
-			
-			// Add repetitions in an array so we can get the move
-			expandRepeat[i] = expandRepeating;
-			exploreRepeat[i] = exploreRepeating;
-			exterminateRepeat[i] = exterminateRepeating;
-		}
-		
-		// Add all the values in 1 single List
-		cardRepeat.add(expandRepeat);
-		cardRepeat.add(exploreRepeat);
-		cardRepeat.add(exterminateRepeat);
-		return cardRepeat;
+	private int showPower(int power) {
+		io().println(power == 1 ? "You can use 1 ship only" : "You can use " + power + " ships");
+		return power;
 	}
 	
 
-
 	/**
-	* Determines the turn order of players based on their chosen command cards (EXPAND, EXPLORE, EXTERMINATE) 
-	* and the number of times each card was selected during a turn.
-	* 
-	* <p>The method creates a turn order list by iterating over the command card counts for each phase of the turn 
-	* (three phases in total). Players who chose a specific command are added to the turn order based on the card 
-	* type and its occurrence.</p>
+	* Displays how many players chose each command card (EXPAND, EXPLORE, EXTERMINATE) in 
+	* each phase of the turn, then the order of the players and of their commands.
 	* 
-	* @param expandRepeat an array containing the count of "EXPAND" commands chosen in each phase of the turn.
-	* @param exploreRepeat an array containing the count of "EXPLORE" commands chosen in each phase of the turn.
-	* @param exterminateRepeat an array containing the count of "EXTERMINATE" commands chosen in each phase of the turn.
-	* @return a list of integers representing the turn order of players. Each integer corresponds to a player's index 
-	*         in the {@code playerList}. The order is determined by the players' command card selections.
+	* <p>The order comes from the {@link PlanTable}, the counts are taken back from the steps 
+	* of each phase.</p>
 	*/
-	public List<Integer> setTurnOrder(int[] expandRepeat, int[] exploreRepeat, int[] exterminateRepeat) {
-		List<Integer> playerTurnOrder = new ArrayList<Integer>();
-		// We need to make a local copy of the arrays to keep them intact
-		int[] expandCopy = expandRepeat.clone();
-		int[] exploreCopy = exploreRepeat.clone();
-		int[] exterminateCopy = exterminateRepeat.clone();
-		
-		// Because we have 3 command cards, we will loop through the players 3 times
-		for (int i = 0; i < 3; i++) {
-			while (expandCopy[i] > 0) {
-				for (int j = 0; j < playerList.size(); j++) {
-					String command = playerList.get(j).getPlanList().get(i).toString();
-					if(command.equals("EXPAND")) {
-						playerTurnOrder.add(j);
-					}
-					expandCopy[i]--;
-				}
-			}
-			
-			while (exploreCopy[i] > 0) {
-				for (int j = 0; j < playerList.size(); j++) {
-					String command = playerList.get(j).getPlanList().get(i).toString();
-					if(command.equals("EXPLORE")) {
-						playerTurnOrder.add(j);
-					}
-					exploreCopy[i]--;
-				}
-			}
-			
-			while (exterminateCopy[i] > 0) {
-				for (int j = 0; j < playerList.size(); j++) {
-					String command = playerList.get(j).getPlanList().get(i).toString();
-					if(command.equals("EXTERMINATE")) {
-						playerTurnOrder.add(j);
-					}
-					exterminateCopy[i]--;
-				}
-			}
-		}
-		return playerTurnOrder;
-	}
-	
-
-	/**
-	* Generates the execution order of commands (EXPAND, EXPLORE, EXTERMINATE) for a turn, 
-	* based on the number of times each command was selected in each phase of the turn.
-	* 
-	* <p>The method processes the counts of command card selections and returns a list 
-	* where each element represents a specific command. The commands are encoded as follows:</p>
-	* <ul>
-	*   <li>{@code 0} - Represents the "EXPAND" command.</li>
-	*   <li>{@code 1} - Represents the "EXPLORE" command.</li>
-	*   <li>{@code 2} - Represents the "EXTERMINATE" command.</li>
-	* </ul>
-	* 
-	* @param expandRepeat an array containing the count of "EXPAND" commands chosen in each phase of the turn.
-	* @param exploreRepeat an array containing the count of "EXPLORE" commands chosen in each phase of the turn.
-	* @param exterminateRepeat an array containing the count of "EXTERMINATE" commands chosen in each phase of the turn.
-	* @return a list of integers representing the execution order of commands for the turn. Each integer corresponds 
-	*         to a command type, encoded as described above.
-	*/
-	public List<Integer> setCommandOrder(int[] expandRepeat, int[] exploreRepeat, int[] exterminateRepeat) {
+	private void printTurnOrder() {
+		int seats = playerList.size();
+		int[][] repeats = new int[3][3];
+		List<Integer> playerOrder = new ArrayList<Integer>();
 		List<Integer> commandOrder = new ArrayList<Integer>();
-		// We need to make a local copy of the arrays to keep them intact
-		int[] expandCopy = expandRepeat.clone();
-		int[] exploreCopy = exploreRepeat.clone();
-		int[] exterminateCopy = exterminateRepeat.clone();
-		
-		// Because we have 3 command cards, we will loop through the players 3 times
-		for (int i = 0; i < 3; i++) {
-			// 0 represents "EXPAND", 1 represents "EXPLORE", 2 represents "EXTERMINATE"
-			while (expandCopy[i] > 0) {
-				commandOrder.add(0);
-				expandCopy[i]--;
-			}
-			
-			while (exploreCopy[i] > 0) {
-				commandOrder.add(1);
-				exploreCopy[i]--;
-			}
-			
-			while (exterminateCopy[i] > 0) {
-				commandOrder.add(2);
-				exterminateCopy[i]--;
-			}
+		for (int i = 0; i < turnOrder.length; i++) {
+			repeats[turnOrder.command[i]][i / seats]++;
+			playerOrder.add(turnOrder.seat[i]);
+			commandOrder.add(turnOrder.command[i]);
 		}
-		return commandOrder;
+		io().println("Expand array: " + Arrays.toString(repeats[0]));
+		io().println("Explore array: " + Arrays.toString(repeats[1]));
+		io().println("Exterminate array: " + Arrays.toString(repeats[2]));
+		io().println();
+		io().println(playerOrder.toString());
+		io().println(commandOrder.toString());
 	}
 	
 
 	/**
-	* Finds and returns the neighboring hexes of a given hex within the same sector.
+	* Finds and returns the neighboring hexes of a given hex, in its sector or across its borders.
 	* 
-	* <p>This method retrieves all hexes in the sector where the provided hex is located.
-	* It identifies the index of the given hex and displays the neighboring hexes within the sector.</p>
+	* <p>The neighbours are looked up in the {@link HexGrid}, which knows for every hex 
+	* the hexes touching it, and are displayed to the player.</p>
 	* 
 	* @param hex the {@code Hex} object for which neighboring hexes are to be found.
 	*            This hex must belong to a sector on the game map.
-	* @return a list of {@code Hex} objects representing all hexes in the same sector as the given hex.
+	* @return a list of {@code Hex} objects representing all the hexes touching the given hex.
 	* 
 	* @see Hex
-	* @see Sector
-	* @see Map
+	* @see HexGrid
 	*/
 	public List<Hex> findNeighbours(Hex hex) {
-
-        // Get the sector ID as well as the sector of the hex
         int sectorID = hex.getSectorID();
-        Sector hexSector = this.getMap().get(sectorID - 1);
+        io().println("You are moving from sector No. " + sectorID + " from the Hex " + (hex.getId() - Board.firstHex(sectorID)));
 
-        // Get all the hexes in the same sector
-        List<Hex> neighbours = hexSector.getHexes();
-        int hexID = neighbours.indexOf(hex);
-
-        System.out.println("You are moving from sector No. " + sectorID + " from the Hex + " + hexID);
-        for (int i = 0; i < neighbours.size(); i++) {
-            System.out.println("You can move on the sector No. " + sectorID + " Hex No. " + i);
+        List<Hex> neighbours = new ArrayList<>();
+        for (long rest = HexGrid.neighbours(hex.getId()); rest != 0; rest &= rest - 1) {
+            Hex neighbour = getHex(Long.numberOfTrailingZeros(rest));
+            neighbours.add(neighbour);
+            io().println("You can move on the sector No. " + neighbour.getSectorID() + " Hex No. " 
+                    + (neighbour.getId() - Board.firstHex(neighbour.getSectorID())));
         }
-
         return neighbours;
     }
 	
+	/**
+	 * Returns the hex of the map with the given global ID.
+	 * @param id The global ID of the hex, see {@link Board}.
+	 * @return the hex, as held by its sector.
+	 */
+	public Hex getHex(int id) {
+		int sectorID = Board.sectorOf(id);
+		return map[(sectorID - 1) / 3][(sectorID - 1) % 3].getSection().get(id - Board.firstHex(sectorID));
+	}
+	
 	/**
 	* Executes the "Explore" command for the given player.
 	* The player selects a sector and hex to move ships from, and then selects a destination sector and hex to explore.
@@ -778,50 +1162,77 @@ public class Game implements Serializable{
 	*   <li>Identifies all sectors and hexes owned by the player that can be used for exploration.</li>
 	*   <li>Allows a human player to select a sector and hex or selects them randomly for a bot.</li>
 	*   <li>Adjusts the number of ships moved if there are insufficient ships in the selected hex.</li>
-	*   <li>Allows the player to select a target sector and hex for exploration, or selects them randomly for a bot.</li>
+	*   <li>Allows the player to select a target sector and hex for exploration, or selects them randomly for a bot 
+	*       among the hexes within {@link HexGrid#EXPLORE_RANGE} moves that no other player owns.</li>
 	*   <li>Validates the selected destination and performs the exploration by moving the ships.</li>
 	* </ul>
 	*
 	* Notes:
 	* <ul>
 	*   <li>If the player does not own any sectors or hexes suitable for exploration, the method exits early.</li>
-	*   <li>If the target destination is invalid, the exploration is aborted.</li>
+	*   <li>If the target destination is invalid, out of range or owned by another player, the exploration 
+	*       is aborted, see {@link MoveGenerator#exploreTargets}.</li>
 	* </ul>
 	*/
 	public void executeExplore(Player currentPlayer, int shipNumber) {
+		if (playSearchedMove(currentPlayer, CommandCard.Command.EXPLORE, shipNumber)) {
+			return;
+		}
 		
-		this.moveFrom(currentPlayer, shipNumber);
-		Random random = new Random();
+		// The ships leave the source before the destination is known, they come back if it is invalid
+		board.beginChange();
+		Hex sourceHex = this.moveFrom(currentPlayer, shipNumber);
+		if (sourceHex == null) {
+			board.undo();
+			return;
+		}
+		SplittableRandom random = currentPlayer.random();
+		int seat = board.seatOf(currentPlayer);
 	
 		// Select a destination
 		int targetSectorID;
 		int targetHexID;
 	
 		if (currentPlayer instanceof BotPlayer) {
-			// Select a random sector and hexagon for the bot
-			targetSectorID = random.nextInt(9) + 1; // Assume that sector IDs are between 1 and 9
-			targetHexID = random.nextInt(6); // Assume there are 6 hexagons per sector
-			System.out.println("Bot exploring to sector " + targetSectorID + " and hex " + targetHexID);
+			// Select a random hex within reach that no other player owns
+			long targets = MoveGenerator.exploreTargets(board, seat, sourceHex.getId());
+			if (targets == 0) {
+				io().println("No hex within reach. Exploration aborted.");
+				board.undo();
+				return;
+			}
+			for (int skip = random.nextInt(Long.bitCount(targets)); skip > 0; skip--) {
+				targets &= targets - 1;
+			}
+			int target = Long.numberOfTrailingZeros(targets);
+			targetSectorID = Board.sectorOf(target);
+			targetHexID = target - Board.firstHex(targetSectorID);
+			io().println("Bot exploring to sector " + targetSectorID + " and hex " + targetHexID);
 		} else {
 			// Ask the user to choose a destination
-			Scanner scan = new Scanner(System.in);
-			System.out.println("Please select the sector you want to move to: ");
+			IOChannel scan = currentPlayer.io();
+			scan.println("Please select the sector you want to move to: ");
 			targetSectorID = scan.nextInt();
-			System.out.println("Please select the hex you want to move to: ");
+			scan.println("Please select the hex you want to move to: ");
 			targetHexID = scan.nextInt();
 		}
 	
-		// Verify and execute the exploration
-		Sector targetSector = map[(targetSectorID - 1) / 3][(targetSectorID - 1) % 3];
-		if (targetSector == null || targetHexID < 0 || targetHexID >= targetSector.getSection().size()) {
-			System.out.println("Invalid destination. Exploration aborted.");
+		// Verify and execute the exploration, by the same rule as the moves of the bots
+		if (targetSectorID < 1 || targetSectorID > Board.SECTOR_COUNT 
+				|| targetHexID < 0 || targetHexID >= Board.hexCount(targetSectorID)
+				|| (MoveGenerator.exploreTargets(board, seat, sourceHex.getId())
+						>>> Board.firstHex(targetSectorID) + targetHexID & 1) == 0) {
+			io().println("Invalid destination. Exploration aborted.");
+			board.undo();
 			return;
 		}
 	
+		Sector targetSector = map[(targetSectorID - 1) / 3][(targetSectorID - 1) % 3];
 		targetSector.expand(targetHexID, shipNumber);
 		Hex targetHex = targetSector.getSection().get(targetHexID);
 		targetHex.setOwner(currentPlayer);
-		System.out.println(currentPlayer.getName() + " successfully explored to sector " + targetSectorID + " and hex " + targetHexID);
+		board.commitChange();
+		io().println(currentPlayer.getName() + " successfully explored to sector " + targetSectorID + " and hex " + targetHexID);
 	}
 	
 	/**
@@ -836,15 +1247,48 @@ public class Game implements Serializable{
 	 * @param shipNumber: The number of ships the player wishes to add on a Hex.
 	 */
 	public void executeExpand(Player currentPlayer, int shipNumber) {
-		Scanner scan1 = new Scanner(System.in);
+		if (currentPlayer instanceof BotPlayer) {
+			// A bot never answers on the console, it places what it has left
+			shipNumber = Math.min(shipNumber, currentPlayer.getFleetSize());
+			if (playSearchedMove(currentPlayer, CommandCard.Command.EXPAND, shipNumber)) {
+				return;
+			}
+		}
+		IOChannel scan1 = currentPlayer.io();
     	while (shipNumber > currentPlayer.getFleetSize()) {
-    		System.out.println("You have " + currentPlayer.getFleetSize() + " left, you don't have enough ships to place.....");
-    		System.out.println("Please select the number of ships that you want to place: ");
+    		scan1.println("You have " + currentPlayer.getFleetSize() + " left, you don't have enough ships to place.....");
+    		scan1.println("Please select the number of ships that you want to place: ");
     		shipNumber = scan1.nextInt();
     	}
 		currentPlayer.expand(shipNumber);
 	}
 	
+	/**
+	 * Lets a bot that searches its moves choose one and plays it on the board, once the 
+	 * {@link MoveGenerator} has checked that it is legal.
+	 * @param currentPlayer The player of the command.
+	 * @param command The command played.
+	 * @param shipNumber The number of ships the command allows.
+	 * @return true if the move was played, false if the command must be played the usual way.
+	 */
+	private boolean playSearchedMove(Player currentPlayer, CommandCard.Command command, int shipNumber) {
+		if (!(currentPlayer instanceof BotPlayer)) {
+			return false;
+		}
+		Move move = ((BotPlayer) currentPlayer).chooseMove(command, shipNumber);
+		if (move == null) {
+			return false;
+		}
+		if (move.getCommand() != command || move.getShips() > shipNumber
+				|| !MoveGenerator.isLegal(board, board.seatOf(currentPlayer), MoveGenerator.pack(move))) {
+			io().println(currentPlayer.getName() + " chose an illegal move " + move + ", it is played the usual way.");
+			return false;
+		}
+		board.play(move);
+		io().println(currentPlayer.getName() + " plays " + move);
+		return true;
+	}
+	
 	/**
 	* Executes the "Exterminate" command for the given player.
 	* The player selects an opponent's sector and hex to attack, or a bot makes the selection randomly.
@@ -868,11 +1312,19 @@ public class Game implements Serializable{
 	* </ul>
 	*/
 	public void executeExterminate(Player currentPlayer, int shipNumber) {
-		System.out.println(currentPlayer.getName() + " is about to use the Exterminate command...");
+		io().println(currentPlayer.getName() + " is about to use the Exterminate command...");
+		if (playSearchedMove(currentPlayer, CommandCard.Command.EXTERMINATE, shipNumber)) {
+			return;
+		}
 	
-		this.moveFrom(currentPlayer, shipNumber);
+		// The ships leave the source before the target is known, they come back if there is none
+		board.beginChange();
+		if (this.moveFrom(currentPlayer, shipNumber) == null) {
+			board.undo();
+			return;
+		}
 		
-		Random random = new Random();
+		SplittableRandom random = currentPlayer.random();
 		int indexOfPlayer = playerList.indexOf(currentPlayer);
 	
 		// List of sectors owned by opponents
@@ -883,7 +1335,7 @@ public class Game implements Serializable{
 			if (i != indexOfPlayer) {
 				List<Sector> opponentSectors = playerList.get(i).getOwnedSector();
 				for (Sector sector : opponentSectors) {
-					System.out.println("The sector " + sector.getSectorID() + " is owned by " + playerList.get(i).getName());
+					io().println("The sector " + sector.getSectorID() + " is owned by " + playerList.get(i).getName());
 					playerSectors.add(sector);
 					playerSectorIDs.add(sector.getSectorID());
 				}
@@ -891,7 +1343,8 @@ public class Game implements Serializable{
 		}
 	
 		if (playerSectors.isEmpty()) {
-			System.out.println("No sectors available to attack. Aborting.");
+			io().println("No sectors available to attack. Aborting.");
+			board.undo();
 			return;
 		}
 	
@@ -905,13 +1358,13 @@ public class Game implements Serializable{
 					.filter(sector -> sector.getSectorID() == targetSectorID)
 					.findFirst()
 					.orElse(null);
-			System.out.println("Bot selected sector " + targetSectorID + " to attack.");
+			io().println("Bot selected sector " + targetSectorID + " to attack.");
 		} else {
 			// Ask the user to choose a sector
-			Scanner scan = new Scanner(System.in);
+			IOChannel scan = currentPlayer.io();
 			int userSelectedSectorID = -1;
 			do {
-				System.out.println("Please select the sector you want to attack: ");
+				scan.println("Please select the sector you want to attack: ");
 				userSelectedSectorID = scan.nextInt();
 			} while (!playerSectorIDs.contains(userSelectedSectorID));
 	
@@ -923,7 +1376,8 @@ public class Game implements Serializable{
 		}
 	
 		if (targetSector == null) {
-			System.out.println("Invalid sector selected. Aborting.");
+			io().println("Invalid sector selected. Aborting.");
+			board.undo();
 			return;
 		}
 	
@@ -933,13 +1387,14 @@ public class Game implements Serializable{
 	
 		for (int i = 0; i < availableHexes.size(); i++) {
 			if (availableHexes.get(i).getAvailability()) {
-				System.out.println("You can attack the " + i + "th Hex of level " + availableHexes.get(i).getSystemLevel());
+				io().println("You can attack the " + i + "th Hex of level " + availableHexes.get(i).getSystemLevel());
 				hexIndexes.add(i);
 			}
 		}
 	
 		if (hexIndexes.isEmpty()) {
-			System.out.println("No hexes available to attack in the selected sector.");
+			io().println("No hexes available to attack in the selected sector.");
+			board.undo();
 			return;
 		}
 	
@@ -948,13 +1403,13 @@ public class Game implements Serializable{
 		if (currentPlayer instanceof BotPlayer) {
 			// Randomly select a hex for the bot
 			targetHexIndex = hexIndexes.get(random.nextInt(hexIndexes.size()));
-			System.out.println("Bot selected hex " + targetHexIndex + " to attack.");
+			io().println("Bot selected hex " + targetHexIndex + " to attack.");
 		} else {
 			// Ask the user to choose a hex
-			Scanner scan = new Scanner(System.in);
+			IOChannel scan = currentPlayer.io();
 			int userSelectedHexIndex = -1;
 			do {
-				System.out.println("Please select the Hex you want to attack: ");
+				scan.println("Please select the Hex you want to attack: ");
 				userSelectedHexIndex = scan.nextInt();
 			} while (!hexIndexes.contains(userSelectedHexIndex));
 	
@@ -964,8 +1419,23 @@ public class Game implements Serializable{
 		// Attack the selected hex
 		Hex targetHex = availableHexes.get(targetHexIndex);
 		targetHex.isAttached(shipNumber, currentPlayer);
+		board.commitChange();
+	
+		io().println(currentPlayer.getName() + " successfully attacked Hex " + targetHexIndex + " in sector " + targetSectorID + ".");
+	}
 	
-		System.out.println(currentPlayer.getName() + " successfully attacked Hex " + targetHexIndex + " in sector " + targetSectorID + ".");
+	/**
+	 * Draws one of the free sectors for a bot, from the random numbers of the bot.
+	 * @param freeSectorID The IDs of the free sectors.
+	 * @param random The random numbers of the bot.
+	 * @return the ID of the sector, or -1 if none is free.
+	 */
+	private static int randomFreeSector(Set<Integer> freeSectorID, SplittableRandom random) {
+		if (freeSectorID.isEmpty()) {
+			return -1;
+		}
+		// Sorted first, so that the draw does not depend on the order of the set
+		return freeSectorID.stream().sorted().skip(random.nextInt(freeSectorID.size())).findFirst().orElse(-1);
 	}
 	
 	/**
@@ -979,11 +1449,12 @@ public class Game implements Serializable{
 	 *
 	 * @param currentPlayer The player whose ships are being moved. Can be a human player or a bot.
 	 * @param shipNumber The number of ships the player wants to move.
+	 * @return the hex the ships left, or null if the player had no hex to move from.
 	 * @throws IllegalArgumentException If the selected sector or hex is invalid.
 	 */
-	public void moveFrom(Player currentPlayer, int shipNumber) {
+	public Hex moveFrom(Player currentPlayer, int shipNumber) {
 		
-		Random random = new Random();
+		SplittableRandom random = currentPlayer.random();
 	
 		// Attack the selected hex
 		List<Integer> sectorIDs = new ArrayList<>();
@@ -992,8 +1463,8 @@ public class Game implements Serializable{
 		}
 	
 		if (sectorIDs.isEmpty()) {
-			System.out.println("No sectors available to explore from.");
-			return;
+			io().println("No sectors available to explore from.");
+			return null;
 		}
 	
 		Sector sector;
@@ -1009,13 +1480,13 @@ public class Game implements Serializable{
 					break; // Stop the loop as soon as the sector is found
 				}
 			}
-			System.out.println("Bot selected sector " + selectedSector);
+			io().println("Bot selected sector " + selectedSector);
 		} else {
 			// Ask the user to choose a sector
-			Scanner scan = new Scanner(System.in);
+			IOChannel scan = currentPlayer.io();
 			int selectedSector;
 			do {
-				System.out.println("Please select a sector you want to move your ships from: ");
+				scan.println("Please select a sector you want to move your ships from: ");
 				selectedSector = scan.nextInt();
 			} while (!sectorIDs.contains(selectedSector));
 			
@@ -1033,8 +1504,8 @@ public class Game implements Serializable{
 		}
 	
 		if (sector == null) {
-			System.out.println("Invalid sector. Aborting.");
-			return;
+			io().println("Invalid sector. Aborting.");
+			return null;
 		}
 	
 		// List the available hexes in the sector
@@ -1046,8 +1517,8 @@ public class Game implements Serializable{
 		}
 	
 		if (availableHexes.isEmpty()) {
-			System.out.println("No available hexes to explore from.");
-			return;
+			io().println("No available hexes to explore from.");
+			return null;
 		}
 	
 		int selectedHex;
@@ -1055,12 +1526,12 @@ public class Game implements Serializable{
 		if (currentPlayer instanceof BotPlayer) {
 			// Randomly select a hex for the bot
 			selectedHex = availableHexes.get(random.nextInt(availableHexes.size()));
-			System.out.println("Bot selected hex " + selectedHex);
+			io().println("Bot selected hex " + selectedHex);
 		} else {
 			// Ask the user to choose a hex
-			Scanner scan = new Scanner(System.in);
+			IOChannel scan = currentPlayer.io();
 			do {
-				System.out.println("Please select the hex you want to move your ships from: ");
+				scan.println("Please select the hex you want to move your ships from: ");
 				selectedHex = scan.nextInt();
 			} while (!availableHexes.contains(selectedHex));
 		}
@@ -1068,9 +1539,10 @@ public class Game implements Serializable{
 		Hex hex = sector.getSection().get(selectedHex);
 		if (hex.getFleet() - shipNumber < 0) {
 			shipNumber = hex.getFleet(); // Adjust the number of ships
-			System.out.println("Not enough ships. Moving " + shipNumber + " ships instead.");
+			io().println("Not enough ships. Moving " + shipNumber + " ships instead.");
 		}
 		hex.setFleet(-shipNumber);
+		return hex;
 	}
 	
 
@@ -1095,16 +1567,16 @@ public class Game implements Serializable{
 	*/
 	public void buildMap() {
 		map = new Sector[3][3]; // Makes the 9 Sector that will be used for the game
+		board = new Board(playerList);
 		
 		int sectorID = 1;
 		// Build one sector at a time
 		for(int row = 0; row < map.length; row++) {
 			for(int column = 0; column < map[row].length; column++) {
-				List<Hex> hexes = new ArrayList<>();
 				List<Integer> hexLevel = new ArrayList<Integer>();
+				int firstHex = Board.firstHex(sectorID);
 				if (row == map.length /2 && column == map[row].length /2){
-					Hex hex = new Hex(sectorID, 3);
-					hexes.add(hex);
+					board.setLevel(firstHex, 3);
 				}
 				else {
 					// Determine if the sector is in the middle column
@@ -1118,23 +1590,50 @@ public class Game implements Serializable{
 						// Sectors with 6 hexagons
 						Collections.addAll(hexLevel, 1, 1, 1, 2, 0, 0);
 					}
-					Collections.shuffle(hexLevel);
+					shuffle(hexLevel, random());
 	
 					// Number of hexagons to create
 					int hexCount = isMiddleColumn ? 5 : 6;
 					for (int i = 0; i < hexCount; i++) {
 						int systemLevel = hexLevel.get(i);
-						Hex hex = new Hex(sectorID, systemLevel);
-						hexes.add(hex);
+						board.setLevel(firstHex + i, systemLevel);
 					}
 				}
+				sectorID++;
+			}
+		}
+		buildSectors();
+	}
+	
+	/**
+	 * Builds the sectors of the map and their hexes, as views over the board.
+	 */
+	private void buildSectors() {
+		map = new Sector[3][3];
+		int sectorID = 1;
+		for (int row = 0; row < map.length; row++) {
+			for (int column = 0; column < map[row].length; column++) {
+				List<Hex> hexes = new ArrayList<>();
+				int firstHex = Board.firstHex(sectorID);
+				for (int i = 0; i < Board.hexCount(sectorID); i++) {
+					hexes.add(new Hex(board, firstHex + i));
+				}
 				// Assign the sector to one part of the map
-				map[row][column] = new Sector(sectorID, hexes);
+				map[row][column] = new Sector(board, sectorID, hexes);
 				sectorID++;
 			}
 		}
 	}
 	
+	/**
+	 * Returns the sector of the map with the given ID.
+	 * @param sectorID The ID of the sector, from 1 to 9.
+	 * @return the sector.
+	 */
+	public Sector getSector(int sectorID) {
+		return map[(sectorID - 1) / 3][(sectorID - 1) % 3];
+	}
+	
 
 	/**
 	* Displays the game map in a structured and readable format.
@@ -1173,14 +1672,17 @@ public class Game implements Serializable{
 	* @see Hex
 	*/
 	public void displayMap() {
-		System.out.println("Map:");
+		if (headless) {
+			return; // Nobody is watching
+		}
+		io().println("Map:");
 	
 		// Display the sector IDs in a single line
 		for (Sector[] row : map) {
 			for (Sector sector : row) {
-				System.out.print("Sector ID: " + sector.getSectorID() + "   			");
+				io().print("Sector ID: " + sector.getSectorID() + "   			");
 			}
-			System.out.println(); // Move to the next line after the sector IDs
+			io().println(); // Move to the next line after the sector IDs
 	
 			// Find the maximum number of hexagons in a sector in the row
 			int maxHexCount = 0;
@@ -1194,36 +1696,44 @@ public class Game implements Serializable{
 					if (hexIndex < sector.getSection().size()) {
 						Hex hex = sector.getSection().get(hexIndex);
 						// Display hexagon information
-						System.out.print("  Hex Level: " + hex.getSystemLevel() + ", Fleet: " + hex.getFleet());
+						io().print("  Hex Level: " + hex.getSystemLevel() + ", Fleet: " + hex.getFleet());
 					} else {
 						// If the sector has fewer hexagons than the current row, display empty space
-						System.out.print("                        ");
+						io().print("                        ");
 					}
-					System.out.print("   "); // Space between sectors
+					io().print("   "); // Space between sectors
 				}
-				System.out.println(); // Move to the next line after a row of hexagons
+				io().println(); // Move to the next line after a row of hexagons
 	
 				// Display the owners of the hexagons in a dedicated line
 				for (Sector sector : row) {
 					if (hexIndex < sector.getSection().size()) {
 						Hex hex = sector.getSection().get(hexIndex);
 						if (hex.getOwner() != null) {
-							System.out.print("    Owner: " + hex.getOwner().getName() + "     ");
+							io().print("    Owner: " + hex.getOwner().getName() + "     ");
 						} else {
-							System.out.print("                         "); // Spacing for alignment
+							io().print("                         "); // Spacing for alignment
 						}
 					} else {
-						System.out.print("                         "); // Spacing for alignment
+						io().print("                         "); // Spacing for alignment
 					}
-					System.out.print("   "); // Space between sectors
+					io().print("   "); // Space between sectors
 				}
-				System.out.println(); // Move to the next line after a row of owners
+				io().println(); // Move to the next line after a row of owners
 			}
 	
-			System.out.println(); // Empty line between sector groups
+			io().println(); // Empty line between sector groups
 		}
 	}
 	
+	/**
+	 * Returns the compact state of the map, shared by its sectors and hexes.
+	 * @return the board of the game
+	 */
+	public Board getBoard() {
+		return board;
+	}
+	
 	/**
 	 * Returns all the Sectors of the map as a list
 	 * @return List of the sectors in the map
@@ -1256,9 +1766,15 @@ public class Game implements Serializable{
 		return Sectors;
 	}
 	
+	/**
+	 * Saves a game to a file, in the binary format of {@link SaveCodec}.
+	 * @param game The game to save.
+	 * @param filename The file to write.
+	 * @throws IOException
+	 */
 	public static void saveToObject(Game game, String filename) throws IOException {
-		try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-			oos.writeObject(game);
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+			SaveCodec.write(game, out);
 		}
 	}
 	
@@ -1271,17 +1787,125 @@ public class Game implements Serializable{
 		return null; // If no player is found with the given name
 	}
 
+	/**
+	 * Loads a game from a file, saves of the first versions of the game are imported.
+	 * @param filename The file to read.
+	 * @return the game, ready to go on.
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
 	public static Game loadFromObject(String filename) throws IOException, ClassNotFoundException {
-		try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
-			return (Game) ois.readObject();
+		try (InputStream in = new BufferedInputStream(new FileInputStream(filename))) {
+			return SaveCodec.read(in);
 		}
 	}	
 	
 	
+	/**
+	 * Plays headless bot games from the command line and prints a summary.
+	 * <p>
+	 * Usage: {@code --simulate [games] [strategy...]}, by default one game is played between 
+	 * an AGGRESSIVE, a DEFENSIVE and a RANDOM bot.
+	 * </p>
+	 * @param args The arguments given after {@code --simulate}.
+	 * @throws InterruptedException
+	 */
+	private static void runSimulations(String[] args) throws InterruptedException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+		BotPlayer.Strategy[] strategies;
+		if (args.length > 1) {
+			strategies = new BotPlayer.Strategy[args.length - 1];
+			for (int i = 1; i < args.length; i++) {
+				strategies[i - 1] = BotPlayer.Strategy.valueOf(args[i].toUpperCase());
+			}
+		} else {
+			strategies = new BotPlayer.Strategy[] { BotPlayer.Strategy.AGGRESSIVE, BotPlayer.Strategy.DEFENSIVE, BotPlayer.Strategy.RANDOM };
+		}
+		
+		int[] wins = new int[strategies.length];
+		long[] totalScores = new long[strategies.length];
+		long start = System.nanoTime();
+		for (int g = 0; g < games; g++) {
+			GameResult result = simulate(strategies);
+			wins[result.getWinnerIndex()]++;
+			for (int i = 0; i < strategies.length; i++) {
+				totalScores[i] += result.getScore(i);
+			}
+			if (games == 1) {
+				System.out.println(result);
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		
+		System.out.printf("Played %d games in %.3f s (%.1f games/s)%n", games, seconds, games / seconds);
+		for (int i = 0; i < strategies.length; i++) {
+			System.out.printf("Seat %d %-10s wins: %d  mean score: %.2f%n", i + 1, strategies[i], wins[i], (double) totalScores[i] / games);
+		}
+	}
+	
 	// Main function, i.e the entry of our game
 	public static void main(String[] args) throws InterruptedException {
+		if (args.length > 0 && args[0].equals("--simulate")) {
+			runSimulations(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 1 && args[0].equals("--recover")) {
+			// Goes on with a game that stopped, from the journal it was writing
+			try {
+				Game recovered = TurnJournal.recover(args[1]);
+				recovered.setJournal(new TurnJournal(args[1]));
+				recovered.resume();
+			} catch (IOException e) {
+				System.out.println("Failed to recover the game: " + e.getMessage());
+			}
+			return;
+		}
 		Game PocketImperium = new Game();
-		PocketImperium.startGame();
+		String autosave = null;
+		int autosaveEvery = Autosaver.DEFAULT_INTERVAL;
+		int autosaveKeep = Autosaver.DEFAULT_RETENTION;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+			case "--pace":
+				// e.g. --pace 0.5 to watch the bots play twice as fast
+				PocketImperium.setPacing(Pacing.scaled(Double.parseDouble(args[i + 1])));
+				break;
+			case "--journal":
+				PocketImperium.setJournal(new TurnJournal(args[i + 1]));
+				break;
+			case "--seed":
+				PocketImperium.setSeed(Long.parseLong(args[i + 1]));
+				break;
+			case "--snapshots":
+				try {
+					PocketImperium.setSnapshots(new SnapshotChain(args[i + 1]));
+				} catch (IOException e) {
+					System.out.println("Failed to open the snapshots: " + e.getMessage());
+				}
+				break;
+			case "--autosave":
+				autosave = args[i + 1];
+				break;
+			case "--autosave-every":
+				autosaveEvery = Integer.parseInt(args[i + 1]);
+				break;
+			case "--autosave-keep":
+				autosaveKeep = Integer.parseInt(args[i + 1]);
+				break;
+			}
+		}
+		if (autosave == null) {
+			PocketImperium.startGame();
+			return;
+		}
+		Autosaver autosaver = new Autosaver(autosave, autosaveEvery, autosaveKeep);
+		PocketImperium.setAutosaver(autosaver);
+		try {
+			PocketImperium.startGame();
+		} finally {
+			autosaver.close(); // Lets the last autosave reach the disk
+			System.out.println(autosaver);
+		}
 	}
 
 }
\ No newline at end of file
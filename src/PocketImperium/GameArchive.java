@@ -0,0 +1,484 @@
+package PocketImperium;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.StreamCorruptedException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single file holding the records of a large number of finished games, written by the
+ * simulations and read back without loading it in the heap.
+ * <p>
+ * Every game takes a record of {@link #RECORD_SIZE} bytes, so the record of a game is found
+ * from its index alone: {@code (index + 1) * RECORD_SIZE}, the first record of the file
+ * being its header. The file is mapped in memory by chunks of {@link #CHUNK_RECORDS} records,
+ * which lets it grow to tens of gigabytes. A writer grows the file a whole chunk at a time and 
+ * cuts it back to its last record on close. Threads append at the same time: each one reserves
+ * an index with an atomic counter, copies its record in the mapping and marks it as committed
+ * last, so that readers never see a record half written.
+ * </p>
+ * <pre>
+ * byte committed, byte seats, byte turns played, byte winner,
+ * 3 bytes strategy of each seat (ordinal + 1, 0 for a human), byte unused,
+ * long seed, 3 shorts final score of each seat, 2 bytes unused,
+ * 12 bytes level of each hex (2 bits each),
+ * 24 bytes packed plan of each seat for turns 2 to 9, 4 bytes unused,
+ * 72 shorts move of each step of turns 2 to 9, 48 bytes unused
+ * </pre>
+ * A move is packed as {@code ships << 12 | (source + 1) << 6 | target}, 0 when the command
+ * changed nothing. The player and the command of a step follow from the plans, as in
+ * {@link TurnOrder}.
+ *
+ * @see Game#setArchive(GameArchive)
+ */
+public class GameArchive implements Closeable {
+	/** Size of the record of a game, the header of the file takes one record as well. */
+	public static final int RECORD_SIZE = 256;
+	/** Number of records mapped at once. */
+	public static final int CHUNK_RECORDS = 1 << 18; // 64 MB
+	/** Number of turns a record keeps, turns 2 to {@link Game#LAST_TURN}. */
+	public static final int TURNS = Game.LAST_TURN - 1;
+	/** Number of steps a record keeps for each turn. */
+	public static final int STEPS = 9;
+	private static final int MAGIC = 0x50494D41; // "PIMA"
+	private static final short VERSION = 1;
+	private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * RECORD_SIZE;
+
+	// Layout of a record
+	private static final int COMMITTED = 0;
+	private static final int SEATS = 1;
+	private static final int TURNS_PLAYED = 2;
+	private static final int WINNER = 3;
+	private static final int STRATEGIES = 4;
+	private static final int SEED = 8;
+	private static final int SCORES = 16;
+	private static final int LEVELS = 24;
+	private static final int PLANS = 36;
+	private static final int MOVES = 64;
+
+	private final FileChannel channel;
+	private final boolean writable;
+	private final MappedByteBuffer header;
+	private final AtomicLong next; // Index of the next record reserved
+	private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+	private GameArchive(FileChannel channel, boolean writable) throws IOException {
+		this.channel = channel;
+		this.writable = writable;
+		long size = channel.size();
+		if (size == 0 && writable) {
+			header = channel.map(FileChannel.MapMode.READ_WRITE, 0, RECORD_SIZE);
+			header.putInt(0, MAGIC).putShort(4, VERSION).putShort(6, (short) RECORD_SIZE).putLong(8, 0);
+			next = new AtomicLong();
+			return;
+		}
+		if (size < RECORD_SIZE) {
+			throw new StreamCorruptedException("Not a Pocket Imperium archive");
+		}
+		header = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, RECORD_SIZE);
+		if (header.getInt(0) != MAGIC) {
+			throw new StreamCorruptedException("Not a Pocket Imperium archive");
+		}
+		if (header.getShort(4) > VERSION || header.getShort(6) != RECORD_SIZE) {
+			throw new InvalidObjectException("The archive was written by a newer version");
+		}
+
+		// The count of the header is written on close, records committed after it are kept
+		long count = header.getLong(8);
+		long capacity = size / RECORD_SIZE - 1;
+		for (long index = capacity - 1; index >= count; index--) {
+			if (isCommitted(index)) {
+				count = index + 1;
+				break;
+			}
+		}
+		next = new AtomicLong(count);
+	}
+
+	/**
+	 * Opens an archive to add games to it, it is created if it does not exist.
+	 * @param filename The file of the archive.
+	 * @return the archive.
+	 * @throws IOException if the file cannot be opened or is not an archive.
+	 */
+	public static GameArchive open(String filename) throws IOException {
+		return new GameArchive(FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE), true);
+	}
+
+	/**
+	 * Opens an archive to read it only.
+	 * @param filename The file of the archive.
+	 * @return the archive.
+	 * @throws IOException if the file cannot be opened or is not an archive.
+	 */
+	public static GameArchive read(String filename) throws IOException {
+		return new GameArchive(FileChannel.open(Paths.get(filename), StandardOpenOption.READ), false);
+	}
+
+	/**
+	 * Returns the chunk of the mapping holding a record, mapping it the first time.
+	 * @param index The index of the record.
+	 * @return the mapping of the chunk, or null if a reader goes past the end of the file.
+	 */
+	private MappedByteBuffer chunkOf(long index) throws IOException {
+		int chunk = (int) (index / CHUNK_RECORDS);
+		int end = offset(index) + RECORD_SIZE;
+		MappedByteBuffer[] mapped = chunks;
+		if (chunk < mapped.length && mapped[chunk] != null && mapped[chunk].limit() >= end) {
+			return mapped[chunk];
+		}
+		synchronized (this) {
+			mapped = chunks;
+			if (chunk < mapped.length && mapped[chunk] != null && mapped[chunk].limit() >= end) {
+				return mapped[chunk];
+			}
+			long start = RECORD_SIZE + chunk * CHUNK_BYTES;
+			long length = CHUNK_BYTES;
+			if (!writable) {
+				// A reader maps what the file holds, the last chunk is mapped again once it grows
+				length = Math.min(length, channel.size() - start);
+				if (length < end) {
+					return null;
+				}
+			}
+			MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, start, length);
+			MappedByteBuffer[] grown = Arrays.copyOf(mapped, Math.max(mapped.length, chunk + 1));
+			grown[chunk] = buffer;
+			chunks = grown;
+			return buffer;
+		}
+	}
+
+	/**
+	 * Returns the position of a record in its chunk.
+	 */
+	private static int offset(long index) {
+		return (int) (index % CHUNK_RECORDS) * RECORD_SIZE;
+	}
+
+	private boolean isCommitted(long index) throws IOException {
+		MappedByteBuffer buffer = chunkOf(index);
+		return buffer != null && buffer.get(offset(index) + COMMITTED) == 1;
+	}
+
+	/**
+	 * Adds the record of a game to the archive, threads can append at the same time.
+	 * @param recording The record of the game.
+	 * @return the index of the record.
+	 * @throws IOException if the archive cannot grow.
+	 */
+	long append(Recording recording) throws IOException {
+		if (!writable) {
+			throw new IllegalStateException("The archive is open to read only");
+		}
+		long index = next.getAndIncrement();
+		ByteBuffer target = chunkOf(index).duplicate();
+		int offset = offset(index);
+		ByteBuffer source = recording.record.duplicate();
+		source.position(COMMITTED + 1);
+		source.limit(RECORD_SIZE);
+		target.position(offset + COMMITTED + 1);
+		target.put(source);
+
+		// The record is complete before anybody can see it as committed
+		VarHandle.releaseFence();
+		target.put(offset + COMMITTED, (byte) 1);
+		return index;
+	}
+
+	/**
+	 * Returns the number of records in the archive, some of the last ones may still be written.
+	 * @return the number of records.
+	 */
+	public long size() {
+		return next.get();
+	}
+
+	/**
+	 * Reads the record of a game, straight from the mapping of the file.
+	 * @param index The index of the record.
+	 * @return a view of the record, or null if it is not committed yet.
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	public Entry get(long index) throws IOException {
+		if (index < 0) {
+			throw new IndexOutOfBoundsException("No record " + index);
+		}
+		MappedByteBuffer buffer = chunkOf(index);
+		int offset = offset(index);
+		if (buffer == null || buffer.get(offset + COMMITTED) != 1) {
+			return null;
+		}
+		VarHandle.acquireFence();
+		ByteBuffer record = buffer.asReadOnlyBuffer();
+		record.position(offset);
+		record.limit(offset + RECORD_SIZE);
+		return new Entry(record.slice());
+	}
+
+	/**
+	 * Writes the count of records in the header and forces the archive to the disk.
+	 */
+	public void force() {
+		if (!writable) {
+			return;
+		}
+		for (MappedByteBuffer chunk : chunks) {
+			if (chunk != null) {
+				chunk.force();
+			}
+		}
+		header.putLong(8, next.get());
+		header.force();
+	}
+
+	/**
+	 * Writes the count of records in the header, cuts the unused end of the last chunk off 
+	 * the file and closes it.
+	 */
+	@Override
+	public void close() throws IOException {
+		force();
+		chunks = new MappedByteBuffer[0];
+		if (writable) {
+			channel.truncate((size() + 1) * RECORD_SIZE);
+		}
+		channel.close();
+	}
+
+	/**
+	 * Packs a move for a record.
+	 * @param source The hex the ships left, or {@link Move#NO_HEX}.
+	 * @param target The hex the ships went to.
+	 * @param ships The number of ships, up to 15 are kept.
+	 * @return the packed move.
+	 */
+	static int packMove(int source, int target, int ships) {
+		return Math.min(ships, 15) << 12 | (source + 1) << 6 | target;
+	}
+
+	/**
+	 * The record of a game being played, filled by the game as it goes.
+	 */
+	static final class Recording {
+		private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		private final int[] slots = new int[Board.SLOT_COUNT];
+
+		/**
+		 * Starts the record of a game over.
+		 * @param players The players in seat order.
+		 * @param board The board, once the map is built.
+		 * @param seed The seed of the game.
+		 */
+		void start(List<Player> players, Board board, long seed) {
+			Arrays.fill(record.array(), (byte) 0);
+			record.put(SEATS, (byte) players.size());
+			for (int seat = 0; seat < players.size(); seat++) {
+				Player player = players.get(seat);
+				int strategy = player instanceof BotPlayer ? ((BotPlayer) player).getStrategy().ordinal() + 1 : 0;
+				record.put(STRATEGIES + seat, (byte) strategy);
+			}
+			record.putLong(SEED, seed);
+			for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+				int at = LEVELS + hex / 4;
+				record.put(at, (byte) (record.get(at) | board.getLevel(hex) << (hex % 4) * 2));
+			}
+		}
+
+		/**
+		 * Records the plan of a player.
+		 * @param turnNumber The number of the turn, from 2.
+		 * @param seat The seat of the player.
+		 * @param plan The cards of the plan.
+		 */
+		void plan(int turnNumber, int seat, List<CommandCard> plan) {
+			int turn = turnNumber - 2;
+			if (turn >= 0 && turn < TURNS) {
+				record.put(PLANS + turn * 3 + seat, (byte) SaveCodec.packPlan(plan));
+			}
+		}
+
+		/**
+		 * Records what a command did, from the changes of the board since its
+		 * {@link Board#beginChange()}: the hex of the player that lost ships is the source,
+		 * the other hex that changed is the target.
+		 * @param board The board, its change is still open.
+		 * @param turnNumber The number of the turn, from 2.
+		 * @param step The step of the turn.
+		 * @param seat The seat of the player.
+		 * @param command 0 for Expand, 1 for Explore and 2 for Exterminate.
+		 */
+		void move(Board board, int turnNumber, int step, int seat, int command) {
+			int turn = turnNumber - 2;
+			if (turn < 0 || turn >= TURNS || step >= STEPS) {
+				return;
+			}
+			int source = Move.NO_HEX;
+			int target = Move.NO_HEX;
+			int ships = 0;
+			int changed = board.getChangedSlots(slots);
+			for (int i = 0; i < changed; i++) {
+				int hex = slots[i] % Board.HEX_COUNT;
+				if (slots[i] >= Board.HEX_COUNT * 2) {
+					continue; // Sector owner
+				}
+				int lost = board.getSlotBefore(hex) - board.getFleet(hex);
+				if (lost == 0 && board.getSlotBefore(Board.HEX_COUNT + hex) == board.getSlot(Board.HEX_COUNT + hex)) {
+					continue; // Written back as it was
+				}
+				if (command != 0 && source == Move.NO_HEX && lost > 0 && board.getSlotBefore(Board.HEX_COUNT + hex) == seat + 1) {
+					source = hex;
+					ships = lost;
+				} else if (target == Move.NO_HEX && hex != source) {
+					target = hex;
+					if (command == 0) {
+						ships = -lost;
+					}
+				}
+			}
+			if (target != Move.NO_HEX) {
+				record.putShort(MOVES + (turn * STEPS + step) * 2, (short) packMove(source, target, ships));
+			}
+		}
+
+		/**
+		 * Records the end of the game.
+		 * @param result The result of the game.
+		 */
+		void finish(GameResult result) {
+			record.put(TURNS_PLAYED, (byte) result.getTurnsPlayed());
+			record.put(WINNER, (byte) result.getWinnerIndex());
+			for (int seat = 0; seat < result.getPlayerCount(); seat++) {
+				record.putShort(SCORES + seat * 2, (short) result.getScore(seat));
+			}
+		}
+	}
+
+	/**
+	 * A read-only view of the record of a game in the mapping of the archive.
+	 */
+	public static final class Entry {
+		private final ByteBuffer record;
+
+		private Entry(ByteBuffer record) {
+			this.record = record;
+		}
+
+		/**
+		 * Returns the number of players of the game.
+		 * @return the number of seats.
+		 */
+		public int getSeats() {
+			return record.get(SEATS);
+		}
+
+		/**
+		 * Returns the number of turns played.
+		 * @return the number of turns.
+		 */
+		public int getTurnsPlayed() {
+			return record.get(TURNS_PLAYED);
+		}
+
+		/**
+		 * Returns the seat of the winner, ties go to the earlier seat.
+		 * @return the seat of the winner.
+		 */
+		public int getWinner() {
+			return record.get(WINNER);
+		}
+
+		/**
+		 * Returns the strategy of a player.
+		 * @param seat The seat of the player.
+		 * @return the strategy, or null for a human.
+		 */
+		public BotPlayer.Strategy getStrategy(int seat) {
+			int strategy = record.get(STRATEGIES + seat);
+			return strategy == 0 ? null : BotPlayer.Strategy.values()[strategy - 1];
+		}
+
+		/**
+		 * Returns the seed of the game.
+		 * @return the seed.
+		 */
+		public long getSeed() {
+			return record.getLong(SEED);
+		}
+
+		/**
+		 * Returns the final score of a player.
+		 * @param seat The seat of the player.
+		 * @return the score.
+		 */
+		public int getScore(int seat) {
+			return record.getShort(SCORES + seat * 2);
+		}
+
+		/**
+		 * Returns the level of a hex of the map.
+		 * @param hex The global ID of the hex.
+		 * @return the level, from 0 to 3.
+		 */
+		public int getLevel(int hex) {
+			return record.get(LEVELS + hex / 4) >> (hex % 4) * 2 & 3;
+		}
+
+		/**
+		 * Returns the plan of a player for a turn.
+		 * @param turnNumber The number of the turn, from 2 to {@link Game#LAST_TURN}.
+		 * @param seat The seat of the player.
+		 * @return the plan packed as by {@link SaveCodec}, 0 if the turn was not played.
+		 */
+		public int getPlan(int turnNumber, int seat) {
+			return record.get(PLANS + (turnNumber - 2) * 3 + seat) & 0xFF;
+		}
+
+		/**
+		 * Returns the move of a step of a turn.
+		 * @param turnNumber The number of the turn, from 2 to {@link Game#LAST_TURN}.
+		 * @param step The step of the turn.
+		 * @return the packed move, 0 if the step changed nothing.
+		 */
+		public int getMove(int turnNumber, int step) {
+			return record.getShort(MOVES + ((turnNumber - 2) * STEPS + step) * 2) & 0xFFFF;
+		}
+
+		/**
+		 * Returns the hex the ships of a packed move left.
+		 * @param move The packed move.
+		 * @return the global ID of the hex, or {@link Move#NO_HEX}.
+		 */
+		public static int sourceOf(int move) {
+			return (move >> 6 & 63) - 1;
+		}
+
+		/**
+		 * Returns the hex the ships of a packed move went to.
+		 * @param move The packed move.
+		 * @return the global ID of the hex.
+		 */
+		public static int targetOf(int move) {
+			return move & 63;
+		}
+
+		/**
+		 * Returns the number of ships of a packed move.
+		 * @param move The packed move.
+		 * @return the number of ships.
+		 */
+		public static int shipsOf(int move) {
+			return move >>> 12;
+		}
+	}
+}
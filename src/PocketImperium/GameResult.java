@@ -0,0 +1,141 @@
+package PocketImperium;
+
+import java.util.Arrays;
+
+/**
+ * Summary of a finished game of Pocket Imperium, as returned by a headless simulation.
+ * <p>
+ * The result keeps the players in seat order (the order in which they were added to the
+ * Game) so that the scores can be matched with the seat, the color and the strategy of
+ * each player. Besides the scores, which the sectors taken at setup decide, the result keeps 
+ * the level of the systems each player controls at the end, which follows from how he played.
+ * </p>
+ *
+ * @see Game#simulate(BotPlayer.Strategy...)
+ */
+public class GameResult {
+	private final String[] playerNames;
+	private final int[] scores;
+	private final int[] levels;
+	private final int winner;
+	private final int turnsPlayed;
+	private final long seed;
+
+	/**
+	 * Builds the result of a game.
+	 * @param playerNames The names of the players in seat order.
+	 * @param scores The final score of each player in seat order.
+	 * @param turnsPlayed The number of turns that were played.
+	 */
+	public GameResult(String[] playerNames, int[] scores, int turnsPlayed) {
+		this(playerNames, scores, turnsPlayed, 0);
+	}
+
+	/**
+	 * Builds the result of a game played from a seed.
+	 * @param playerNames The names of the players in seat order.
+	 * @param scores The final score of each player in seat order.
+	 * @param turnsPlayed The number of turns that were played.
+	 * @param seed The seed of the game, it plays the same game again.
+	 */
+	public GameResult(String[] playerNames, int[] scores, int turnsPlayed, long seed) {
+		this(playerNames, scores, new int[scores.length], turnsPlayed, seed);
+	}
+
+	/**
+	 * Builds the result of a game played from a seed, with the systems each player controls.
+	 * @param playerNames The names of the players in seat order.
+	 * @param scores The final score of each player in seat order.
+	 * @param levels The level of the systems each player controls at the end, in seat order.
+	 * @param turnsPlayed The number of turns that were played.
+	 * @param seed The seed of the game, it plays the same game again.
+	 */
+	public GameResult(String[] playerNames, int[] scores, int[] levels, int turnsPlayed, long seed) {
+		this.playerNames = playerNames;
+		this.scores = scores;
+		this.levels = levels;
+		this.turnsPlayed = turnsPlayed;
+		this.seed = seed;
+
+		// The first player with the best score wins, so ties go to the earlier seat
+		int best = 0;
+		for (int i = 1; i < scores.length; i++) {
+			if (scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		this.winner = best;
+	}
+
+	/**
+	 * Returns the seat of the winner.
+	 * @return The index of the winner in the list of players.
+	 */
+	public int getWinnerIndex() {
+		return this.winner;
+	}
+
+	/**
+	 * Returns the name of the winner.
+	 * @return A string representing the winner's name.
+	 */
+	public String getWinner() {
+		return this.playerNames[winner];
+	}
+
+	/**
+	 * Returns the number of players who took part in the game.
+	 * @return The number of seats in the game.
+	 */
+	public int getPlayerCount() {
+		return this.scores.length;
+	}
+
+	/**
+	 * Returns the name of the player sitting at the given seat.
+	 * @param seat The index of the player in the list of players.
+	 * @return The name of the player.
+	 */
+	public String getPlayerName(int seat) {
+		return this.playerNames[seat];
+	}
+
+	/**
+	 * Returns the final score of the player sitting at the given seat.
+	 * @param seat The index of the player in the list of players.
+	 * @return The final score of the player.
+	 */
+	public int getScore(int seat) {
+		return this.scores[seat];
+	}
+
+	/**
+	 * Returns the level of the systems the player sitting at the given seat controls at the end.
+	 * @param seat The index of the player in the list of players.
+	 * @return The sum of the levels of his systems.
+	 */
+	public int getControlledLevel(int seat) {
+		return this.levels[seat];
+	}
+
+	/**
+	 * Returns the number of turns that were played before the game ended.
+	 * @return The number of turns played.
+	 */
+	public int getTurnsPlayed() {
+		return this.turnsPlayed;
+	}
+
+	/**
+	 * Returns the seed the game was played from.
+	 * @return The seed of the game.
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	@Override
+	public String toString() {
+		return "winner=" + getWinner() + " scores=" + Arrays.toString(scores) + " levels=" + Arrays.toString(levels) + " turns=" + turnsPlayed + " seed=" + seed;
+	}
+}
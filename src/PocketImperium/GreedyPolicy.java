@@ -0,0 +1,139 @@
+package PocketImperium;
+
+/**
+ * Greedy choice of a move by looking one move ahead: every legal move of the command is
+ * scored by a weighted sum of features of the position it leads to, and the best one is played.
+ * <p>
+ * The features are the levels of the systems the player gains or takes from the others,
+ * the level of the systems he reinforces, the ships lost because a hex is full, the hexes
+ * he holds in the sector of the target, and the enemy ships next to the hexes he leaves
+ * or reaches. Moves are scored from the board without playing them, and the list of moves
+ * is kept in a buffer of the policy, so choosing a move allocates nothing. The policy plays
+ * the {@link BotPlayer.Strategy#GREEDY} bots and the playouts of the {@link Simulator}.
+ * </p>
+ */
+final class GreedyPolicy {
+	/** Returned when the player has no legal move. */
+	static final int NO_MOVE = -1;
+	private static final int EXPAND = 0;
+	private static final int EXPLORE = 1;
+	private static final int EXTERMINATE = 2;
+
+	// Weights of the features
+	private static final int GAINED_LEVEL = 8; // For each level of a system taken
+	private static final int DENIED_LEVEL = 4; // For each level of a system taken from another player
+	private static final int REINFORCED_LEVEL = 1; // For each level of a system times the ships that stay on it
+	private static final int WASTED_SHIP = 3; // For each ship over the capacity of the target
+	private static final int SECTOR_HEX = 2; // For each hex held in the sector of the target
+	private static final int EXPOSED_SHIP = 1; // For each enemy ship next to a hex more than it holds
+	private static final int DAMAGE = 1; // For each enemy ship destroyed
+
+	private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+	/**
+	 * Chooses the best move of a player for a command, the first one listed among equals.
+	 * @param board The board.
+	 * @param seat The seat of the player.
+	 * @param command 0 for Expand, 1 for Explore and 2 for Exterminate.
+	 * @param power The number of ships the command allows.
+	 * @return the packed move, see {@link MoveGenerator}, or {@link #NO_MOVE}.
+	 */
+	int choose(Board board, int seat, int command, int power) {
+		int count = MoveGenerator.generate(board, seat, command, power, moves);
+		int best = NO_MOVE;
+		int bestScore = Integer.MIN_VALUE;
+		for (int i = 0; i < count; i++) {
+			int score = score(board, seat, moves[i]);
+			if (score > bestScore) {
+				bestScore = score;
+				best = moves[i];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the score of the best move of a player for a command.
+	 * @return the score, or {@link Integer#MIN_VALUE} if the player has no legal move.
+	 */
+	int bestScore(Board board, int seat, int command, int power) {
+		int move = choose(board, seat, command, power);
+		return move == NO_MOVE ? Integer.MIN_VALUE : score(board, seat, move);
+	}
+
+	/**
+	 * Scores a move from the position it leads to, without playing it.
+	 * @param board The board before the move.
+	 * @param seat The seat of the player.
+	 * @param move The packed move, see {@link MoveGenerator}.
+	 * @return the score, higher is better.
+	 */
+	static int score(Board board, int seat, int move) {
+		int command = MoveGenerator.command(move);
+		int target = MoveGenerator.target(move);
+		int ships = MoveGenerator.ships(move);
+		int level = board.getLevel(target);
+		int owner = board.getOwner(target);
+		int fleet = board.getFleet(target);
+		int score = 0;
+		int fleetAfter;
+		boolean taken;
+		if (command == EXTERMINATE) {
+			taken = ships > fleet;
+			fleetAfter = taken ? ships - fleet : 0;
+			score += DAMAGE * Math.min(ships, fleet);
+			if (taken) {
+				score += DENIED_LEVEL * level;
+			}
+		} else {
+			taken = owner != seat;
+			fleetAfter = fleet + ships;
+			int kept = Math.min(ships, board.capacity(target));
+			score += REINFORCED_LEVEL * level * kept - WASTED_SHIP * (ships - kept);
+		}
+		if (taken) {
+			score += GAINED_LEVEL * level + SECTOR_HEX * (1 + hexesInSector(board, seat, Board.sectorOf(target)));
+			score -= EXPOSED_SHIP * Math.max(0, threat(board, seat, target) - fleetAfter);
+		} else if (command != EXTERMINATE) {
+			// A reinforced hex is less exposed than it was
+			int threat = threat(board, seat, target);
+			score += EXPOSED_SHIP * (Math.max(0, threat - fleet) - Math.max(0, threat - fleetAfter));
+		}
+		if (command != EXPAND) {
+			int source = MoveGenerator.source(move);
+			int threat = threat(board, seat, source);
+			int left = board.getFleet(source);
+			score -= EXPOSED_SHIP * (Math.max(0, threat - (left - ships)) - Math.max(0, threat - left));
+		}
+		return score;
+	}
+
+	/**
+	 * Counts the hexes a player holds in a sector.
+	 */
+	private static int hexesInSector(Board board, int seat, int sectorID) {
+		int held = 0;
+		int first = Board.firstHex(sectorID);
+		for (int hex = first; hex < first + Board.hexCount(sectorID); hex++) {
+			if (board.getOwner(hex) == seat) {
+				held++;
+			}
+		}
+		return held;
+	}
+
+	/**
+	 * Counts the ships of the other players on the hexes next to a hex.
+	 */
+	private static int threat(Board board, int seat, int hex) {
+		int ships = 0;
+		for (long rest = HexGrid.neighbours(hex); rest != 0; rest &= rest - 1) {
+			int neighbour = Long.numberOfTrailingZeros(rest);
+			int owner = board.getOwner(neighbour);
+			if (owner != Board.NOBODY && owner != seat) {
+				ships += board.getFleet(neighbour);
+			}
+		}
+		return ships;
+	}
+}
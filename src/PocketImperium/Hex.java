@@ -6,24 +6,31 @@ import java.io.Serializable;
  * This class helps to define the hex in the Pocket Imperium Game. A hex is a sector with a
  * specific system level, fleet count, and an owner. Its information is maintained whether
  * it's occupied or not
+ * <p>
+ * A Hex is a view over one hex of a {@link Board}, which holds its level, its ships and its owner.
+ * </p>
  */
 public class Hex implements Serializable {
-	private int sectorID;
-	private int systemLevel;
-	private int fleet;
-	private Player fleetOwner;
-	private boolean isOccupied;
+	private final Board board;
+	private final int id;
 	
 	/**
-	 * Builds a Hex object with the sector ID and its system level
-	 * @param sectorID The unique ID of the sector.
-	 * @param systemLevel The level of the system in the sector.
+	 * Builds a Hex object over one hex of the board
+	 * @param board The board holding the state of the hex.
+	 * @param id The global ID of the hex on the board.
 	 */
-	public Hex(int sectorID, int systemLevel) {
-		this.sectorID = sectorID;
-		this.systemLevel = systemLevel;
-		isOccupied = false;
-		this.fleetOwner = null;
+	Hex(Board board, int id) {
+		this.board = board;
+		this.id = id;
+	}
+	
+	/**
+	 * Gets the global ID of the hex on the board.
+	 * 
+	 * @return The ID of the hex, unique on the whole map.
+	 */
+	public int getId() {
+		return this.id;
 	}
 	
 	/**
@@ -32,7 +39,7 @@ public class Hex implements Serializable {
 	 * @return The system level of the hex.
 	 */
 	public int getSystemLevel() {
-		return this.systemLevel;
+		return board.getLevel(id);
 	}
 
 	/**
@@ -41,7 +48,7 @@ public class Hex implements Serializable {
 	 * @return The sector ID of the hex.
 	 */
 	public int getSectorID() {
-		return this.sectorID;
+		return Board.sectorOf(id);
 	}
 	
 	/**
@@ -49,7 +56,7 @@ public class Hex implements Serializable {
 	 * @return An integer representing the number of ships on the hex.
 	 */
 	public int getFleet() {
-		return this.fleet;
+		return board.getFleet(id);
 	}
 
 	/**
@@ -57,7 +64,7 @@ public class Hex implements Serializable {
 	 * @return The Player who owns the hex.
 	 */
 	public Player getOwner() {
-		return this.fleetOwner;
+		return board.getPlayer(board.getOwner(id));
 	}
 	
 	/**
@@ -65,7 +72,7 @@ public class Hex implements Serializable {
 	 * @param owner The Player who is the owner of the Hex.
 	 */
 	public void setOwner(Player owner) {
-		this.fleetOwner = owner;
+		board.setOwner(id, board.seatOf(owner));
     }
 	
 	/**
@@ -73,13 +80,7 @@ public class Hex implements Serializable {
 	 * @return True if the hex is occupied, else False.
 	 */
 	public boolean getAvailability() {
-		if (this.fleet != 0) {
-			this.isOccupied = true;
-		}
-		else {
-			this.isOccupied = false;
-		}
-		return this.isOccupied;
+		return board.getFleet(id) != 0;
 	}
 
 	/**
@@ -88,13 +89,7 @@ public class Hex implements Serializable {
 	 * @return The number of ships that the hex can store in extra.
 	 */
 	public int fleetAvailablity() {
-		if (this.fleet < this.systemLevel + 1) {
-			return this.systemLevel + 1 - this.fleet;
-		}
-		else {
-			return 0;
-		}
-		
+		return board.capacity(id);
 	}
 	
 	/**
@@ -102,10 +97,7 @@ public class Hex implements Serializable {
 	 * @param fleetEntering The number of ships entering the hex.
 	 */
 	public void setFleet(int fleetEntering) {
-		this.fleet += fleetEntering;
-		if (this.fleet > 0) {
-			this.isOccupied = true;
-		}
+		board.addFleet(id, fleetEntering);
 	}
 	
 	/**
@@ -114,12 +106,7 @@ public class Hex implements Serializable {
 	 */
 	public int extraFleet() {
 		// Set the fleet number to be at max the systemLevel
-		if (this.fleet > systemLevel + 1) {
-			int extraFleet = this.fleet - (systemLevel + 1);
-			this.fleet = systemLevel + 1;
-			return extraFleet;
-		}
-		return 0;
+		return board.removeExtraFleet(id);
 	}
 	
 	/**
@@ -129,23 +116,14 @@ public class Hex implements Serializable {
 	 * @param attacker The player who is attacking.
 	 */
 	public void isAttached(int fleetEntering, Player attacker) {
-		if (this.fleet < fleetEntering) {
-			this.fleet = fleetEntering - this.fleet;
-			this.fleetOwner = attacker;
-		}
-		else {
-			this.fleet = this.fleet - fleetEntering;
-			this.updateOwner();
-		}
+		board.attack(id, fleetEntering, board.seatOf(attacker));
 	}
 	
 	/**
 	 * Updates the owner of the Hex.
 	 */
 	public void updateOwner() {
-		if(this.fleet == 0) {
-			this.fleetOwner = null;
-		}
+		board.releaseIfEmpty(id);
 	}
 }
 
@@ -0,0 +1,131 @@
+package PocketImperium;
+
+/**
+ * Which hexes of the map touch each other, across sector borders too.
+ * <p>
+ * The map is laid out as a grid of 6 columns and 9 rows of hexagonal cells, where odd columns 
+ * are shifted down by half a hex. Each sector covers a block of 2 columns by 3 rows and its hexes 
+ * fill the block row by row, the last cell of a 5-hex sector being empty space. The center 
+ * sector has a single large system covering its whole block.
+ * </p>
+ * <p>
+ * Since there are fewer than 64 hexes, a set of hexes is a {@code long} with bit {@code id} set 
+ * for each hex it contains. The neighbours of every hex, and the hexes an Explore can reach, are 
+ * computed once when the class is loaded, so every query is a table lookup.
+ * </p>
+ */
+public final class HexGrid {
+	/** Number of moves a fleet makes when it explores. */
+	public static final int EXPLORE_RANGE = 2;
+	private static final int COLUMNS = 6;
+	private static final int ROWS = 9;
+	private static final int VOID = -1;
+
+	private static final int[] CELL_HEX = new int[COLUMNS * ROWS]; // Hex covering each cell, or VOID
+	private static final long[] NEIGHBOURS = new long[Board.HEX_COUNT];
+	private static final long[] EXPLORE_REACH = new long[Board.HEX_COUNT];
+
+	static {
+		for (int row = 0; row < ROWS; row++) {
+			for (int column = 0; column < COLUMNS; column++) {
+				int sectorID = (row / 3) * 3 + column / 2 + 1;
+				int local = (row % 3) * 2 + column % 2;
+				int hex;
+				if (Board.hexCount(sectorID) == 1) {
+					hex = Board.firstHex(sectorID);
+				} else {
+					hex = local < Board.hexCount(sectorID) ? Board.firstHex(sectorID) + local : VOID;
+				}
+				CELL_HEX[row * COLUMNS + column] = hex;
+			}
+		}
+		for (int row = 0; row < ROWS; row++) {
+			for (int column = 0; column < COLUMNS; column++) {
+				int hex = CELL_HEX[row * COLUMNS + column];
+				if (hex == VOID) {
+					continue;
+				}
+				// Odd columns are shifted down, so their side neighbours are one row lower
+				int shift = column % 2;
+				link(hex, column, row - 1);
+				link(hex, column, row + 1);
+				link(hex, column - 1, row - 1 + shift);
+				link(hex, column - 1, row + shift);
+				link(hex, column + 1, row - 1 + shift);
+				link(hex, column + 1, row + shift);
+			}
+		}
+		for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+			EXPLORE_REACH[hex] = expandReach(1L << hex, EXPLORE_RANGE) & ~(1L << hex);
+		}
+	}
+
+	private HexGrid() {
+	}
+
+	private static void link(int hex, int column, int row) {
+		if (column < 0 || column >= COLUMNS || row < 0 || row >= ROWS) {
+			return;
+		}
+		int other = CELL_HEX[row * COLUMNS + column];
+		if (other != VOID && other != hex) {
+			NEIGHBOURS[hex] |= 1L << other;
+		}
+	}
+
+	/**
+	 * Grows a set of hexes by their neighbours a number of times.
+	 */
+	private static long expandReach(long hexes, int steps) {
+		for (int step = 0; step < steps; step++) {
+			long grown = hexes;
+			for (long rest = hexes; rest != 0; rest &= rest - 1) {
+				grown |= NEIGHBOURS[Long.numberOfTrailingZeros(rest)];
+			}
+			hexes = grown;
+		}
+		return hexes;
+	}
+
+	/**
+	 * Returns the hexes touching a hex.
+	 * @param hex The global ID of the hex.
+	 * @return the set of its neighbours, one bit per hex ID.
+	 */
+	public static long neighbours(int hex) {
+		return NEIGHBOURS[hex];
+	}
+
+	/**
+	 * Tells if two hexes touch each other.
+	 * @param hex The global ID of a hex.
+	 * @param other The global ID of the other hex.
+	 * @return true if they are neighbours.
+	 */
+	public static boolean adjacent(int hex, int other) {
+		return (NEIGHBOURS[hex] & (1L << other)) != 0;
+	}
+
+	/**
+	 * Returns the hexes a fleet can reach from a hex in a number of moves, without the hex itself.
+	 * @param hex The global ID of the hex the fleet leaves.
+	 * @param steps The number of moves, the Explore range is looked up directly.
+	 * @return the set of the reachable hexes, one bit per hex ID.
+	 */
+	public static long reach(int hex, int steps) {
+		if (steps == EXPLORE_RANGE) {
+			return EXPLORE_REACH[hex];
+		}
+		return expandReach(1L << hex, steps) & ~(1L << hex);
+	}
+
+	/**
+	 * Tells if an Explore can move a fleet from one hex to another.
+	 * @param source The global ID of the hex the fleet leaves.
+	 * @param target The global ID of the hex it goes to.
+	 * @return true if the target is within {@link #EXPLORE_RANGE} moves of the source.
+	 */
+	public static boolean canExplore(int source, int target) {
+		return (EXPLORE_REACH[source] & (1L << target)) != 0;
+	}
+}
@@ -0,0 +1,63 @@
+package PocketImperium;
+
+/**
+ * The channel through which the game talks with the people playing it.
+ * <p>
+ * The game and the players write their messages and prompts to a channel and read the 
+ * answers from it, instead of using the console directly. The reading methods behave 
+ * like the ones of {@link java.util.Scanner}, so the same answers can be typed on the 
+ * console, sent through a pipe or a socket, or replayed from a script.
+ * </p>
+ *
+ * @see StreamChannel
+ * @see ScriptChannel
+ */
+public interface IOChannel {
+
+	/**
+	 * Writes a message without ending the line.
+	 * @param text The message to write.
+	 */
+	void print(String text);
+
+	/**
+	 * Writes a message and ends the line.
+	 * @param text The message to write.
+	 */
+	void println(String text);
+
+	/**
+	 * Ends the current line.
+	 */
+	default void println() {
+		println("");
+	}
+
+	/**
+	 * Checks whether the next answer is an integer, waiting for it if needed.
+	 * @return True if the next token can be read with {@link #nextInt()}.
+	 */
+	boolean hasNextInt();
+
+	/**
+	 * Reads the next answer as an integer.
+	 * @return The integer that was entered.
+	 * @throws java.util.InputMismatchException if the next token is not an integer.
+	 * @throws java.util.NoSuchElementException if there is nothing left to read.
+	 */
+	int nextInt();
+
+	/**
+	 * Reads the next token.
+	 * @return The next word that was entered.
+	 * @throws java.util.NoSuchElementException if there is nothing left to read.
+	 */
+	String next();
+
+	/**
+	 * Reads the rest of the current line.
+	 * @return The line that was entered, without its end of line.
+	 * @throws java.util.NoSuchElementException if there is nothing left to read.
+	 */
+	String nextLine();
+}
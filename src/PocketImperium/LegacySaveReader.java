@@ -0,0 +1,387 @@
+package PocketImperium;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the saves written by the first versions of the game, which were plain Java serialization 
+ * of the whole {@link Game}.
+ * <p>
+ * Those files cannot be read back with an {@code ObjectInputStream} since the classes of the game 
+ * have changed (and they never had a {@code serialVersionUID}). This reader parses the serialization 
+ * stream itself and turns every object into a {@link Record} holding its fields by name, without 
+ * loading any class. {@link SaveCodec} then picks the fields it needs, so a save is read whatever 
+ * version of the classes wrote it.
+ * </p>
+ */
+final class LegacySaveReader {
+	private static final short STREAM_MAGIC = (short) 0xACED;
+	private static final int BASE_HANDLE = 0x7E0000;
+
+	private static final byte TC_NULL = 0x70;
+	private static final byte TC_REFERENCE = 0x71;
+	private static final byte TC_CLASSDESC = 0x72;
+	private static final byte TC_OBJECT = 0x73;
+	private static final byte TC_STRING = 0x74;
+	private static final byte TC_ARRAY = 0x75;
+	private static final byte TC_CLASS = 0x76;
+	private static final byte TC_BLOCKDATA = 0x77;
+	private static final byte TC_ENDBLOCKDATA = 0x78;
+	private static final byte TC_RESET = 0x79;
+	private static final byte TC_BLOCKDATALONG = 0x7A;
+	private static final byte TC_LONGSTRING = 0x7C;
+	private static final byte TC_ENUM = 0x7E;
+
+	private static final byte SC_WRITE_METHOD = 0x01;
+	private static final byte SC_SERIALIZABLE = 0x02;
+
+	private final DataInputStream in;
+	private final List<Object> handles = new ArrayList<>();
+
+	private LegacySaveReader(InputStream in) {
+		this.in = new DataInputStream(in);
+	}
+
+	/**
+	 * Tells if a save starts like a Java serialization stream.
+	 * @param header The first two bytes of the file.
+	 * @return true if the file is an old save.
+	 */
+	static boolean isLegacy(short header) {
+		return header == STREAM_MAGIC;
+	}
+
+	/**
+	 * Reads the object at the root of an old save.
+	 * @param in The whole file, from its first byte.
+	 * @return the record of the saved game.
+	 * @throws IOException if the file is not a serialization stream or is cut short.
+	 */
+	static Record read(InputStream in) throws IOException {
+		LegacySaveReader reader = new LegacySaveReader(in);
+		if (reader.in.readShort() != STREAM_MAGIC) {
+			throw new StreamCorruptedException("Not a serialization stream");
+		}
+		reader.in.readShort(); // Stream version
+		Object root = reader.readContent();
+		if (!(root instanceof Record)) {
+			throw new InvalidObjectException("The save does not hold an object");
+		}
+		return (Record) root;
+	}
+
+	/**
+	 * A class as described in the stream.
+	 */
+	private static final class ClassDesc {
+		final String name;
+		final byte flags;
+		final char[] types;
+		final String[] fields;
+		ClassDesc superClass;
+
+		ClassDesc(String name, byte flags, int fieldCount) {
+			this.name = name;
+			this.flags = flags;
+			this.types = new char[fieldCount];
+			this.fields = new String[fieldCount];
+		}
+	}
+
+	/**
+	 * An object read from an old save: the name of its class, its fields by name (the fields of 
+	 * its superclasses included) and, for classes with their own {@code writeObject} such as 
+	 * lists and maps, the objects they wrote after their fields.
+	 */
+	static final class Record {
+		private final String className;
+		private final Map<String, Object> fields = new HashMap<>();
+		private final List<Object> written = new ArrayList<>();
+		private String enumConstant;
+
+		Record(String className) {
+			this.className = className;
+		}
+
+		/**
+		 * Returns the name of the class of the object.
+		 * @return the fully qualified class name.
+		 */
+		String getClassName() {
+			return className;
+		}
+
+		/**
+		 * Tells if the object is of a class of the game, whatever its package.
+		 * @param simpleName The simple name of the class.
+		 * @return true if the class has that simple name.
+		 */
+		boolean is(String simpleName) {
+			return className.equals(simpleName) || className.endsWith("." + simpleName);
+		}
+
+		/**
+		 * Returns a field of the object.
+		 * @param name The name of the field.
+		 * @return the value, a boxed primitive, a String, an array, a Record or null.
+		 */
+		Object get(String name) {
+			return fields.get(name);
+		}
+
+		/**
+		 * Tells if the object has a field, even a null one.
+		 */
+		boolean has(String name) {
+			return fields.containsKey(name);
+		}
+
+		int getInt(String name, int otherwise) {
+			Object value = fields.get(name);
+			return value instanceof Number ? ((Number) value).intValue() : otherwise;
+		}
+
+		boolean getBoolean(String name) {
+			return Boolean.TRUE.equals(fields.get(name));
+		}
+
+		/**
+		 * Returns the elements of a list, the keys and values of a map one after the other, 
+		 * or the value of a boxed number: whatever the class wrote after its fields.
+		 */
+		List<Object> getWritten() {
+			return written;
+		}
+
+		/**
+		 * Returns the name of the constant for an enum.
+		 */
+		String getEnumConstant() {
+			return enumConstant;
+		}
+	}
+
+	private int newHandle(Object object) {
+		handles.add(object);
+		return handles.size() - 1;
+	}
+
+	private Object readContent() throws IOException {
+		return readContent(in.readByte());
+	}
+
+	private Object readContent(byte tag) throws IOException {
+		switch (tag) {
+		case TC_NULL:
+			return null;
+		case TC_REFERENCE:
+			int handle = in.readInt() - BASE_HANDLE;
+			if (handle < 0 || handle >= handles.size()) {
+				throw new StreamCorruptedException("Unknown handle " + handle);
+			}
+			return handles.get(handle);
+		case TC_STRING:
+			return registered(in.readUTF());
+		case TC_LONGSTRING:
+			return registered(readLongString());
+		case TC_CLASSDESC:
+			return readClassDescBody();
+		case TC_CLASS:
+			ClassDesc described = readClassDesc();
+			return registered(described == null ? null : described.name);
+		case TC_ARRAY:
+			return readArray();
+		case TC_ENUM:
+			return readEnum();
+		case TC_OBJECT:
+			return readObject();
+		case TC_RESET:
+			handles.clear();
+			return readContent();
+		case TC_BLOCKDATA:
+			in.skipBytes(in.readUnsignedByte());
+			return readContent();
+		case TC_BLOCKDATALONG:
+			in.skipBytes(in.readInt());
+			return readContent();
+		default:
+			throw new StreamCorruptedException(String.format("Unexpected tag 0x%02x", tag));
+		}
+	}
+
+	private <T> T registered(T object) {
+		newHandle(object);
+		return object;
+	}
+
+	private String readLongString() throws IOException {
+		long length = in.readLong();
+		if (length > Integer.MAX_VALUE) {
+			throw new StreamCorruptedException("String too long");
+		}
+		byte[] bytes = new byte[(int) length];
+		in.readFully(bytes);
+		return new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+	}
+
+	private ClassDesc readClassDesc() throws IOException {
+		Object desc = readContent();
+		if (desc != null && !(desc instanceof ClassDesc)) {
+			throw new StreamCorruptedException("Expected a class description");
+		}
+		return (ClassDesc) desc;
+	}
+
+	private ClassDesc readClassDescBody() throws IOException {
+		String name = in.readUTF();
+		in.readLong(); // serialVersionUID, the whole point is to ignore it
+		int handle = newHandle(null);
+		byte flags = in.readByte();
+		ClassDesc desc = new ClassDesc(name, flags, in.readShort());
+		handles.set(handle, desc);
+		for (int i = 0; i < desc.fields.length; i++) {
+			desc.types[i] = (char) in.readByte();
+			desc.fields[i] = in.readUTF();
+			if (desc.types[i] == 'L' || desc.types[i] == '[') {
+				readContent(); // Type of the field
+			}
+		}
+		skipAnnotation();
+		desc.superClass = readClassDesc();
+		return desc;
+	}
+
+	/**
+	 * Skips what a class wrote about itself, up to the end of its block.
+	 */
+	private void skipAnnotation() throws IOException {
+		readAnnotation(null);
+	}
+
+	/**
+	 * Reads the objects a class wrote up to the end of its block, keeping them if asked.
+	 */
+	private void readAnnotation(List<Object> objects) throws IOException {
+		while (true) {
+			byte tag = in.readByte();
+			switch (tag) {
+			case TC_ENDBLOCKDATA:
+				return;
+			case TC_BLOCKDATA:
+				in.skipBytes(in.readUnsignedByte());
+				break;
+			case TC_BLOCKDATALONG:
+				in.skipBytes(in.readInt());
+				break;
+			default:
+				Object object = readContent(tag);
+				if (objects != null) {
+					objects.add(object);
+				}
+			}
+		}
+	}
+
+	private Object readArray() throws IOException {
+		ClassDesc desc = readClassDesc();
+		int handle = newHandle(null);
+		int length = in.readInt();
+		char type = desc.name.charAt(1);
+		Object array;
+		switch (type) {
+		case 'I':
+			int[] ints = new int[length];
+			for (int i = 0; i < length; i++) {
+				ints[i] = in.readInt();
+			}
+			array = ints;
+			break;
+		case 'B':
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			array = bytes;
+			break;
+		case 'L':
+		case '[':
+			Object[] objects = new Object[length];
+			handles.set(handle, objects);
+			for (int i = 0; i < length; i++) {
+				objects[i] = readContent();
+			}
+			array = objects;
+			break;
+		default:
+			Object[] values = new Object[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = readPrimitive(type);
+			}
+			array = values;
+		}
+		handles.set(handle, array);
+		return array;
+	}
+
+	private Record readEnum() throws IOException {
+		ClassDesc desc = readClassDesc();
+		Record constant = new Record(desc.name);
+		newHandle(constant);
+		constant.enumConstant = (String) readContent();
+		return constant;
+	}
+
+	private Record readObject() throws IOException {
+		ClassDesc desc = readClassDesc();
+		Record record = new Record(desc.name);
+		newHandle(record);
+
+		// Superclasses first
+		List<ClassDesc> hierarchy = new ArrayList<>();
+		for (ClassDesc c = desc; c != null; c = c.superClass) {
+			hierarchy.add(0, c);
+		}
+		for (ClassDesc c : hierarchy) {
+			if ((c.flags & SC_SERIALIZABLE) == 0) {
+				throw new InvalidObjectException("Externalizable objects are not supported: " + c.name);
+			}
+			for (int i = 0; i < c.fields.length; i++) {
+				char type = c.types[i];
+				Object value = type == 'L' || type == '[' ? readContent() : readPrimitive(type);
+				record.fields.put(c.fields[i], value);
+			}
+			if ((c.flags & SC_WRITE_METHOD) != 0) {
+				readAnnotation(record.written);
+			}
+		}
+		return record;
+	}
+
+	private Object readPrimitive(char type) throws IOException {
+		switch (type) {
+		case 'B':
+			return in.readByte();
+		case 'C':
+			return in.readChar();
+		case 'D':
+			return in.readDouble();
+		case 'F':
+			return in.readFloat();
+		case 'I':
+			return in.readInt();
+		case 'J':
+			return in.readLong();
+		case 'S':
+			return in.readShort();
+		case 'Z':
+			return in.readBoolean();
+		default:
+			throw new StreamCorruptedException("Unknown field type " + type);
+		}
+	}
+}
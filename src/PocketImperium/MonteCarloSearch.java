@@ -0,0 +1,280 @@
+package PocketImperium;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo search for the bots: the choices of the bot are tried again and again until 
+ * the time budget runs out, each one by playing the game to its end, and the choice tried 
+ * most often is played.
+ * <p>
+ * The search is a UCB1 bandit over the choices of the bot at the root only (the 27 plans of 
+ * a turn, or the legal moves of a command): no tree is grown below them. Every playout 
+ * finishes the game on a {@link Simulator}, whose moves are the ones of the 
+ * {@link GreedyPolicy} three times out of four and random legal moves otherwise. When the 
+ * bot chooses a plan, the plans of the others in that turn are drawn from the 
+ * {@link OpponentModel} of the game, and the plans of the turns after it at random. Each core 
+ * of the machine runs its own bandit on its own scratch board and their visits are added 
+ * together at the end, so the workers never wait for one another.
+ * </p>
+ * <p>
+ * Different moves of a command can leave the same board. Before the moves are searched, the 
+ * hash of the board each one leads to is collected, and a move reaching a board already 
+ * reached by another move of the same decision is dropped, so the budget is not split 
+ * between copies of one choice.
+ * </p>
+ *
+ * @see BotPlayer.Strategy#MCTS
+ */
+public class MonteCarloSearch {
+	/** Time a bot thinks about each decision when nothing else is set, in milliseconds. */
+	public static final long DEFAULT_BUDGET_MILLIS = 50;
+	private static final double EXPLORATION = 0.7; // Weight of the exploration term of UCB1
+	static final int THREADS = Runtime.getRuntime().availableProcessors();
+	private static ExecutorService workers;
+
+	private final long budgetMillis;
+	private long lastPlayouts;
+	private long lastNanos;
+
+	/**
+	 * Builds a search thinking for the given time about each decision.
+	 * @param budgetMillis The time budget of a decision, in milliseconds.
+	 */
+	public MonteCarloSearch(long budgetMillis) {
+		if (budgetMillis < 1) {
+			throw new IllegalArgumentException("The time budget must be positive");
+		}
+		this.budgetMillis = budgetMillis;
+	}
+
+	/**
+	 * Returns the threads shared by every search, they are daemons so that they never keep 
+	 * the program alive.
+	 */
+	static synchronized ExecutorService workers() {
+		if (workers == null) {
+			workers = Executors.newFixedThreadPool(THREADS, task -> {
+				Thread thread = new Thread(task, "mcts-worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return workers;
+	}
+
+	/**
+	 * Returns the time budget of a decision.
+	 * @return the budget in milliseconds.
+	 */
+	public long getBudgetMillis() {
+		return budgetMillis;
+	}
+
+	/**
+	 * Returns the number of playouts of the last decision.
+	 * @return the number of games played to the end.
+	 */
+	public long getLastPlayouts() {
+		return lastPlayouts;
+	}
+
+	/**
+	 * Returns how many playouts per second the last decision ran, over all the workers.
+	 * @return the throughput of the last decision.
+	 */
+	public double getLastPlayoutsPerSecond() {
+		return lastNanos == 0 ? 0 : lastPlayouts / (lastNanos / 1e9);
+	}
+
+	/**
+	 * Chooses the plan of a player for the coming turn.
+	 * @param game The game being played.
+	 * @param seat The seat of the player.
+	 * @return the plan, from 0 to 26, see {@link TurnOrder#card(int, int)}.
+	 */
+	public int choosePlan(Game game, int seat) {
+		Board root = game.getBoard().copy();
+		int nextTurn = game.getTurnNumber() + 1;
+		int seats = root.getSeatCount();
+		OpponentModel opponents = game.getOpponentModel();
+		return search(root, streamOf(game, seat), TurnOrder.PLAN_COUNT, () -> {
+			int[] plans = new int[seats];
+			return (simulator, plan) -> {
+				for (int other = 0; other < seats; other++) {
+					plans[other] = other == seat ? plan : simulator.modelPlan(opponents, other);
+				}
+				simulator.playTurn(plans);
+				simulator.playUntilEnd(nextTurn);
+				return simulator.reward(seat);
+			};
+		});
+	}
+
+	/**
+	 * Chooses the move of a player for the command he is playing.
+	 * @param game The game being played, its turn order gives the steps still to come.
+	 * @param seat The seat of the player.
+	 * @param command 0 for Expand, 1 for Explore and 2 for Exterminate.
+	 * @param power The number of ships the command allows.
+	 * @return the move to play, or null if the player has no legal move.
+	 */
+	public Move chooseMove(Game game, int seat, int command, int power) {
+		Board root = game.getBoard().copy();
+		SplittableRandom random = streamOf(game, seat);
+		Simulator lister = new Simulator(root, random.split());
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generate(root, seat, command, power, moves);
+		count = dropTranspositions(lister, root, seat, moves, count);
+		if (count == 0) {
+			return null;
+		}
+		TurnOrder order = new TurnOrder();
+		order.copyFrom(game.getTurnOrder());
+		int nextStep = order.step + 1;
+		int nextTurn = game.getTurnNumber() + 1;
+		int best = count == 1 ? 0 : search(root, random, count, () -> (simulator, move) -> {
+			simulator.play(seat, moves[move]);
+			simulator.playSteps(order, nextStep);
+			simulator.playUntilEnd(nextTurn);
+			return simulator.reward(seat);
+		});
+		return MoveGenerator.toMove(seat, moves[best]);
+	}
+
+	/**
+	 * Removes the moves leaving the same board as a move before them in the list.
+	 * @return the number of moves left at the start of the buffer.
+	 */
+	private static int dropTranspositions(Simulator lister, Board root, int seat, int[] moves, int count) {
+		Set<Long> reached = new HashSet<>(2 * count);
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			lister.reset(root);
+			lister.play(seat, moves[i]);
+			if (reached.add(lister.getBoard().getHash())) {
+				moves[kept++] = moves[i];
+			}
+		}
+		lister.reset(root);
+		return kept;
+	}
+
+	/**
+	 * Seeds the random numbers of a decision from the player, so that a game replayed 
+	 * from the same seed searches the same playouts, as far as the time budget allows.
+	 */
+	private static SplittableRandom streamOf(Game game, int seat) {
+		return new SplittableRandom(game.getPlayers().get(seat).random().nextLong());
+	}
+
+	/**
+	 * Finishes a game on the board of a simulator after the bot made a choice.
+	 */
+	private interface Playout {
+		double play(Simulator simulator, int choice);
+	}
+
+	/**
+	 * Runs the workers until the budget is spent and picks the choice visited the most.
+	 * @param root The position the choices are made in.
+	 * @param random The random numbers of the decision, each worker gets its own part.
+	 * @param choices The number of choices.
+	 * @param playouts Builds the playout of each worker.
+	 * @return the index of the best choice.
+	 */
+	private int search(Board root, SplittableRandom random, int choices, Callable<Playout> playouts) {
+		long start = System.nanoTime();
+		long deadline = start + budgetMillis * 1_000_000;
+		List<Callable<Bandit>> bandits = new ArrayList<>(THREADS);
+		for (int i = 0; i < THREADS; i++) {
+			SplittableRandom stream = random.split();
+			bandits.add(() -> new Bandit(root, choices, playouts.call(), stream).grow(deadline));
+		}
+
+		long[] visits = new long[choices];
+		long total = 0;
+		try {
+			for (Future<Bandit> future : workers().invokeAll(bandits)) {
+				Bandit bandit = future.get();
+				for (int i = 0; i < choices; i++) {
+					visits[i] += bandit.visits[i];
+				}
+				total += bandit.playouts;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A search worker failed", e.getCause());
+		}
+		lastPlayouts = total;
+		lastNanos = System.nanoTime() - start;
+
+		int best = 0;
+		for (int i = 1; i < choices; i++) {
+			if (visits[i] > visits[best]) {
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * The statistics of one worker over the choices of the bot, a UCB1 bandit.
+	 */
+	private static class Bandit {
+		final Board root;
+		final Simulator simulator;
+		final Playout playout;
+		final long[] visits;
+		final double[] wins;
+		long playouts;
+
+		Bandit(Board root, int choices, Playout playout, SplittableRandom random) {
+			this.root = root;
+			this.simulator = new Simulator(root, random);
+			this.playout = playout;
+			this.visits = new long[choices];
+			this.wins = new double[choices];
+		}
+
+		/**
+		 * Plays playouts until the deadline, each one from the choice with the best UCB1 bound.
+		 */
+		Bandit grow(long deadline) {
+			do {
+				int choice = select();
+				simulator.reset(root);
+				wins[choice] += playout.play(simulator, choice);
+				visits[choice]++;
+				playouts++;
+			} while (System.nanoTime() < deadline);
+			return this;
+		}
+
+		private int select() {
+			if (playouts < visits.length) {
+				return (int) playouts; // Every choice is tried once first
+			}
+			double logTotal = Math.log(playouts);
+			int best = 0;
+			double bestBound = -1;
+			for (int i = 0; i < visits.length; i++) {
+				double bound = wins[i] / visits[i] + EXPLORATION * Math.sqrt(logTotal / visits[i]);
+				if (bound > bestBound) {
+					bestBound = bound;
+					best = i;
+				}
+			}
+			return best;
+		}
+	}
+}
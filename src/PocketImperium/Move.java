@@ -0,0 +1,134 @@
+package PocketImperium;
+
+/**
+ * A command played by a player on the board: the command, the hex the ships leave, the hex
+ * they go to and how many ships are used.
+ * <p>
+ * Hexes are given by their global ID on the {@link Board} and players by their seat. An
+ * Expand has no source hex, its ships come from the hand of the player.
+ * </p>
+ *
+ * @see Board#apply(Move)
+ * @see Board#undo()
+ */
+public final class Move {
+	/** Source of a move whose ships do not come from the board. */
+	public static final int NO_HEX = -1;
+
+	private final CommandCard.Command command;
+	private final int seat;
+	private final int source;
+	private final int target;
+	private final int ships;
+
+	/**
+	 * Builds a move.
+	 * @param command The command played.
+	 * @param seat The seat of the player.
+	 * @param source The hex the ships leave, or {@link #NO_HEX} for an Expand.
+	 * @param target The hex the ships go to.
+	 * @param ships The number of ships used.
+	 */
+	public Move(CommandCard.Command command, int seat, int source, int target, int ships) {
+		this.command = command;
+		this.seat = seat;
+		this.source = source;
+		this.target = target;
+		this.ships = ships;
+	}
+
+	/**
+	 * Builds an Expand: ships from the hand of the player are placed on one of his hexes.
+	 * @param seat The seat of the player.
+	 * @param target The hex receiving the ships.
+	 * @param ships The number of ships placed.
+	 * @return the move.
+	 */
+	public static Move expand(int seat, int target, int ships) {
+		return new Move(CommandCard.Command.EXPAND, seat, NO_HEX, target, ships);
+	}
+
+	/**
+	 * Builds an Explore: ships move from a hex to another one, which the player then owns.
+	 * @param seat The seat of the player.
+	 * @param source The hex the ships leave.
+	 * @param target The hex the ships go to.
+	 * @param ships The number of ships moved.
+	 * @return the move.
+	 */
+	public static Move explore(int seat, int source, int target, int ships) {
+		return new Move(CommandCard.Command.EXPLORE, seat, source, target, ships);
+	}
+
+	/**
+	 * Builds an Exterminate: ships leave a hex to attack another one.
+	 * @param seat The seat of the player.
+	 * @param source The hex the ships leave.
+	 * @param target The hex attacked.
+	 * @param ships The number of attacking ships.
+	 * @return the move.
+	 */
+	public static Move exterminate(int seat, int source, int target, int ships) {
+		return new Move(CommandCard.Command.EXTERMINATE, seat, source, target, ships);
+	}
+
+	/**
+	 * Returns the command played.
+	 * @return the command of the move.
+	 */
+	public CommandCard.Command getCommand() {
+		return command;
+	}
+
+	/**
+	 * Returns the seat of the player making the move.
+	 * @return the seat of the player.
+	 */
+	public int getSeat() {
+		return seat;
+	}
+
+	/**
+	 * Returns the hex the ships leave.
+	 * @return the global ID of the hex, or {@link #NO_HEX} for an Expand.
+	 */
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the hex the ships go to.
+	 * @return the global ID of the hex.
+	 */
+	public int getTarget() {
+		return target;
+	}
+
+	/**
+	 * Returns the number of ships used.
+	 * @return the number of ships.
+	 */
+	public int getShips() {
+		return ships;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Move)) {
+			return false;
+		}
+		Move move = (Move) other;
+		return command == move.command && seat == move.seat && source == move.source
+				&& target == move.target && ships == move.ships;
+	}
+
+	@Override
+	public int hashCode() {
+		return ((((command.ordinal() * 31 + seat) * 31 + source) * 31 + target) * 31) + ships;
+	}
+
+	@Override
+	public String toString() {
+		return command + " seat " + seat + " " + (source == NO_HEX ? "" : source + " -> ") + target + " x" + ships;
+	}
+}
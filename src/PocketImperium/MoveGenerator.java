@@ -0,0 +1,193 @@
+package PocketImperium;
+
+/**
+ * Lists the legal moves of a player for a command, as packed integers written into a buffer
+ * of the caller, so that bots, searches and checks of moves share the same rules and listing
+ * allocates nothing.
+ * <p>
+ * The rules are those bots play by: an Expand adds ships to a hex the player owns, an Explore
+ * moves ships from one of his hexes to a hex nobody else owns within
+ * {@link HexGrid#EXPLORE_RANGE} moves, and an Exterminate moves ships from one of his hexes to
+ * attack a hex of another player. A move uses all the ships the command allows, as far as the
+ * source hex has them.
+ * </p>
+ * <pre>
+ * bits 15-14 ships (1 to 3), 13-12 command, 11-6 source hex + 1 (0 for an Expand), 5-0 target hex
+ * </pre>
+ * The packed move fits in 16 bits, which is what a {@link TranspositionTable} keeps of a move.
+ */
+public final class MoveGenerator {
+	/** Most moves a player can have for a command, the size a buffer needs. */
+	public static final int MAX_MOVES = Board.HEX_COUNT * Board.HEX_COUNT;
+	private static final int EXPAND = 0;
+	private static final int EXPLORE = 1;
+	private static final int EXTERMINATE = 2;
+	private static final int HEX_BITS = 6; // Enough for the 47 hexes of the map
+	private static final int HEX_MASK = (1 << HEX_BITS) - 1;
+	private static final int COMMAND_SHIFT = 2 * HEX_BITS;
+	private static final int SHIPS_SHIFT = COMMAND_SHIFT + 2;
+
+	private MoveGenerator() {
+	}
+
+	/**
+	 * Packs a move.
+	 * @param command 0 for Expand, 1 for Explore and 2 for Exterminate.
+	 * @param source The global ID of the source hex, or {@link Move#NO_HEX}.
+	 * @param target The global ID of the target hex.
+	 * @param ships The number of ships moved, from 1 to 3.
+	 * @return the packed move.
+	 */
+	public static int pack(int command, int source, int target, int ships) {
+		return ships << SHIPS_SHIFT | command << COMMAND_SHIFT | (source + 1) << HEX_BITS | target;
+	}
+
+	/**
+	 * Returns the command of a packed move.
+	 * @param move The packed move.
+	 * @return 0 for Expand, 1 for Explore and 2 for Exterminate.
+	 */
+	public static int command(int move) {
+		return move >>> COMMAND_SHIFT & 3;
+	}
+
+	/**
+	 * Returns the source hex of a packed move.
+	 * @param move The packed move.
+	 * @return the global ID of the hex, or {@link Move#NO_HEX} for an Expand.
+	 */
+	public static int source(int move) {
+		return (move >>> HEX_BITS & HEX_MASK) - 1;
+	}
+
+	/**
+	 * Returns the target hex of a packed move.
+	 * @param move The packed move.
+	 * @return the global ID of the hex.
+	 */
+	public static int target(int move) {
+		return move & HEX_MASK;
+	}
+
+	/**
+	 * Returns the number of ships of a packed move.
+	 * @param move The packed move.
+	 * @return the number of ships, from 1 to 3.
+	 */
+	public static int ships(int move) {
+		return move >>> SHIPS_SHIFT;
+	}
+
+	/**
+	 * Unpacks a move to play it on the real board.
+	 * @param seat The seat of the player.
+	 * @param move The packed move.
+	 * @return the move.
+	 */
+	public static Move toMove(int seat, int move) {
+		return new Move(CommandCard.Command.values()[command(move)], seat, source(move), target(move), ships(move));
+	}
+
+	/**
+	 * Packs a move.
+	 * @param move The move, with 1 to 3 ships.
+	 * @return the packed move.
+	 */
+	public static int pack(Move move) {
+		return pack(move.getCommand().ordinal(), move.getSource(), move.getTarget(), move.getShips());
+	}
+
+	/**
+	 * Lists the legal moves of a player for a command.
+	 * @param board The board.
+	 * @param seat The seat of the player.
+	 * @param command 0 for Expand, 1 for Explore and 2 for Exterminate.
+	 * @param power The number of ships the command allows, from 1 to 3.
+	 * @param buffer Receives the packed moves, it must hold {@link #MAX_MOVES} moves.
+	 * @return the number of moves listed.
+	 */
+	public static int generate(Board board, int seat, int command, int power, int[] buffer) {
+		int count = 0;
+		if (command == EXPAND) {
+			for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+				if (board.getOwner(hex) == seat) {
+					buffer[count++] = pack(EXPAND, Move.NO_HEX, hex, power);
+				}
+			}
+			return count;
+		}
+		for (int source = 0; source < Board.HEX_COUNT; source++) {
+			if (board.getOwner(source) != seat || board.getFleet(source) == 0) {
+				continue;
+			}
+			int ships = Math.min(power, board.getFleet(source));
+			if (command == EXPLORE) {
+				for (long rest = exploreTargets(board, seat, source); rest != 0; rest &= rest - 1) {
+					buffer[count++] = pack(EXPLORE, source, Long.numberOfTrailingZeros(rest), ships);
+				}
+				continue;
+			}
+			for (int target = 0; target < Board.HEX_COUNT; target++) {
+				int owner = board.getOwner(target);
+				if (owner != Board.NOBODY && owner != seat) {
+					buffer[count++] = pack(EXTERMINATE, source, target, ships);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Tells if a move is one of the moves {@link #generate} lists for its command, whatever
+	 * the power of the command as long as the ships are not more than the source has.
+	 * @param board The board.
+	 * @param seat The seat of the player.
+	 * @param move The packed move.
+	 * @return true if the player can play the move.
+	 */
+	public static boolean isLegal(Board board, int seat, int move) {
+		int command = command(move);
+		int source = source(move);
+		int target = target(move);
+		int ships = ships(move);
+		if (ships < 1 || ships > 3 || target >= Board.HEX_COUNT) {
+			return false;
+		}
+		int owner = board.getOwner(target);
+		switch (command) {
+		case EXPAND:
+			return source == Move.NO_HEX && owner == seat;
+		case EXPLORE:
+			return fromOwnHex(board, seat, source, ships) && (exploreTargets(board, seat, source) >>> target & 1) != 0;
+		case EXTERMINATE:
+			return fromOwnHex(board, seat, source, ships) && owner != Board.NOBODY && owner != seat;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Lists the hexes a player can explore to from a hex, whatever the ships on it: the hexes
+	 * within {@link HexGrid#EXPLORE_RANGE} moves that nobody else owns.
+	 * @param board The board.
+	 * @param seat The seat of the player.
+	 * @param source The global ID of the hex the ships leave.
+	 * @return the set of target hexes, one bit per global ID.
+	 */
+	public static long exploreTargets(Board board, int seat, int source) {
+		long targets = 0;
+		for (long rest = HexGrid.reach(source, HexGrid.EXPLORE_RANGE); rest != 0; rest &= rest - 1) {
+			int target = Long.numberOfTrailingZeros(rest);
+			int owner = board.getOwner(target);
+			if (owner == Board.NOBODY || owner == seat) {
+				targets |= 1L << target;
+			}
+		}
+		return targets;
+	}
+
+	private static boolean fromOwnHex(Board board, int seat, int source, int ships) {
+		return source >= 0 && source < Board.HEX_COUNT && board.getOwner(source) == seat
+				&& board.getFleet(source) >= ships;
+	}
+}
@@ -0,0 +1,162 @@
+package PocketImperium;
+
+import java.util.SplittableRandom;
+
+/**
+ * What the players of a game tend to plan, learned from the plans they revealed.
+ * <p>
+ * For each seat and each phase of the turn, the model counts how often each command was
+ * chosen, older turns counting less and less: every turn the counts are multiplied by the
+ * decay before the new plan is added. From the counts it predicts the card a player will
+ * choose in each phase, and how many ships a command will allow, since players who choose
+ * the same card in the same phase share its power (see {@link TurnOrder#power(int)}).
+ * </p>
+ * <p>
+ * The model holds 9 counts per seat and an update touches each of them once, so it costs
+ * the same at every turn however long the game is.
+ * </p>
+ */
+public final class OpponentModel {
+	/** Weight a turn keeps at the next turn when nothing else is set. */
+	public static final double DEFAULT_DECAY = 0.75;
+	private static final double PRIOR = 0.5; // Count every command starts with, so that no card is ruled out
+	private static final int PHASES = 3;
+	private static final int COMMANDS = 3;
+
+	private final int seats;
+	private final double decay;
+	private final double[] counts; // seat * 9 + phase * 3 + command
+	private final double[] totals; // Sum of the counts of a phase, the same for every phase of a seat
+	private final int[] observed;
+
+	/**
+	 * Builds a model that knows nothing yet, every plan being as likely.
+	 * @param seats The number of seats of the game.
+	 * @param decay The weight a turn keeps at the next turn, from 0 (only the last turn counts) to 1.
+	 */
+	public OpponentModel(int seats, double decay) {
+		if (decay < 0 || decay > 1) {
+			throw new IllegalArgumentException("The decay must be between 0 and 1, got " + decay);
+		}
+		this.seats = seats;
+		this.decay = decay;
+		this.counts = new double[seats * PHASES * COMMANDS];
+		this.totals = new double[seats];
+		this.observed = new int[seats];
+	}
+
+	/**
+	 * Learns the plan a player revealed.
+	 * @param seat The seat of the player.
+	 * @param plan The plan, from 0 to 26.
+	 */
+	public void observe(int seat, int plan) {
+		int first = seat * PHASES * COMMANDS;
+		for (int i = first; i < first + PHASES * COMMANDS; i++) {
+			counts[i] *= decay;
+		}
+		for (int phase = 0; phase < PHASES; phase++) {
+			counts[first + phase * COMMANDS + TurnOrder.card(plan, phase)] += 1;
+		}
+		totals[seat] = totals[seat] * decay + 1;
+		observed[seat]++;
+	}
+
+	/**
+	 * Returns the number of plans of a player the model has learned.
+	 * @param seat The seat of the player.
+	 * @return the number of turns observed.
+	 */
+	public int getObservedTurns(int seat) {
+		return observed[seat];
+	}
+
+	/**
+	 * Predicts how likely a player is to choose a command in a phase.
+	 * @param seat The seat of the player.
+	 * @param phase The phase of the turn, from 0 to 2.
+	 * @param command 0 for Expand, 1 for Explore and 2 for Exterminate.
+	 * @return the probability of the card.
+	 */
+	public double probability(int seat, int phase, int command) {
+		return (counts[seat * PHASES * COMMANDS + phase * COMMANDS + command] + PRIOR) / (totals[seat] + COMMANDS * PRIOR);
+	}
+
+	/**
+	 * Predicts how likely a player is to choose a plan, the phases being taken as independent.
+	 * @param seat The seat of the player.
+	 * @param plan The plan, from 0 to 26.
+	 * @return the probability of the plan.
+	 */
+	public double planProbability(int seat, int plan) {
+		double probability = 1;
+		for (int phase = 0; phase < PHASES; phase++) {
+			probability *= probability(seat, phase, TurnOrder.card(plan, phase));
+		}
+		return probability;
+	}
+
+	/**
+	 * Predicts how likely another player is to choose the same card as a player in a phase.
+	 * @param seat The seat of the player.
+	 * @param phase The phase of the turn, from 0 to 2.
+	 * @param command The card the player chooses.
+	 * @return the probability that the command is shared.
+	 */
+	public double collisionProbability(int seat, int phase, int command) {
+		double alone = 1;
+		for (int other = 0; other < seats; other++) {
+			if (other != seat) {
+				alone *= 1 - probability(other, phase, command);
+			}
+		}
+		return 1 - alone;
+	}
+
+	/**
+	 * Predicts how many ships a command will allow a player, from how likely the others are
+	 * to choose the same card in the same phase.
+	 * @param seat The seat of the player.
+	 * @param phase The phase of the turn, from 0 to 2.
+	 * @param command The card the player chooses.
+	 * @return the expected number of ships, from 1 to 3.
+	 */
+	public double expectedPower(int seat, int phase, int command) {
+		// Probabilities that 0, 1 and 2 or more others choose the card
+		double none = 1;
+		double one = 0;
+		double more = 0;
+		for (int other = 0; other < seats; other++) {
+			if (other != seat) {
+				double p = probability(other, phase, command);
+				more = more + one * p;
+				one = one * (1 - p) + none * p;
+				none = none * (1 - p);
+			}
+		}
+		return none * TurnOrder.power(1) + one * TurnOrder.power(2) + more * TurnOrder.power(3);
+	}
+
+	/**
+	 * Draws a plan a player could choose, as likely as the model predicts it.
+	 * @param seat The seat of the player.
+	 * @param random The random numbers to draw with.
+	 * @return the plan, from 0 to 26.
+	 */
+	public int drawPlan(int seat, SplittableRandom random) {
+		int plan = 0;
+		for (int phase = 0; phase < PHASES; phase++) {
+			double left = random.nextDouble();
+			int command = 0;
+			while (command < COMMANDS - 1) {
+				left -= probability(seat, phase, command);
+				if (left < 0) {
+					break;
+				}
+				command++;
+			}
+			plan = plan * COMMANDS + command;
+		}
+		return plan;
+	}
+}
@@ -0,0 +1,48 @@
+package PocketImperium;
+
+/**
+ * Decides how long the game waits at the moments where humans need time to follow what the 
+ * bots are doing.
+ * <p>
+ * The game asks for a pause of a given length and the pacing decides how long it really 
+ * lasts: as asked around a human table, not at all in a simulation, shorter or longer for a 
+ * demo, or only on a {@link VirtualClock} when testing.
+ * </p>
+ */
+public interface Pacing {
+
+	/**
+	 * Waits for a pause asked by the game.
+	 * @param millis The length of the pause at normal speed, in milliseconds.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	void pause(long millis) throws InterruptedException;
+
+	/**
+	 * Returns a pacing that waits as long as the game asks.
+	 * @return the pacing of a human table.
+	 */
+	static Pacing realTime() {
+		return Thread::sleep;
+	}
+
+	/**
+	 * Returns a pacing that never waits.
+	 * @return the pacing of a simulation.
+	 */
+	static Pacing none() {
+		return millis -> { };
+	}
+
+	/**
+	 * Returns a pacing that waits a fraction or a multiple of what the game asks.
+	 * @param factor The factor applied to every pause, 0.5 plays twice as fast.
+	 * @return a scaled pacing.
+	 */
+	static Pacing scaled(double factor) {
+		if (factor < 0) {
+			throw new IllegalArgumentException("The pacing factor cannot be negative: " + factor);
+		}
+		return millis -> Thread.sleep(Math.round(millis * factor));
+	}
+}
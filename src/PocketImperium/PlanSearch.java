@@ -0,0 +1,266 @@
+package PocketImperium;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Search of a plan as the simultaneous game it is: every player reveals one of the 27 plans
+ * at once, and how much a plan is worth depends on the plans of the others, since the players
+ * who choose the same card in a phase share its power.
+ * <p>
+ * A cell of the game is a combination of plans. Its value for each player is found by playing
+ * the turn on a {@link Simulator} with the moves of the {@link GreedyPolicy}, the order of the
+ * turn being looked up in the {@link PlanTable}, and comparing the positions of the players at
+ * the end of the turn. The game is solved by regret matching: every player plays the plans that
+ * he regrets most not having played, and the average of the plans he played tends towards an
+ * equilibrium. Each iteration draws the plans of the players from their current strategies
+ * and measures the regret of every plan of every player against the plans drawn for the others.
+ * </p>
+ * <p>
+ * Each core runs its own regret matching until the time budget is spent, and the average
+ * strategies of the workers are added together. The values of the cells are shared between
+ * the workers: a cell always has the same value, so two workers writing it at once is harmless.
+ * The plan played is drawn from the strategy found, for the bot to stay unpredictable.
+ * </p>
+ *
+ * @see BotPlayer.Strategy#PLANNER
+ */
+public class PlanSearch {
+	/** Time a bot thinks about its plan when nothing else is set, in milliseconds. */
+	public static final long DEFAULT_BUDGET_MILLIS = 50;
+	private static final float UNKNOWN = Float.NaN; // Value of a cell not played yet
+
+	private final long budgetMillis;
+	private float[] cells; // Value of each combination of plans for each seat
+	private long lastIterations;
+	private long lastCells;
+	private double[] lastStrategy = new double[TurnOrder.PLAN_COUNT];
+
+	/**
+	 * Builds a search thinking for the given time about each plan.
+	 * @param budgetMillis The time budget of a plan, in milliseconds.
+	 */
+	public PlanSearch(long budgetMillis) {
+		if (budgetMillis < 1) {
+			throw new IllegalArgumentException("The time budget must be positive");
+		}
+		this.budgetMillis = budgetMillis;
+	}
+
+	/**
+	 * Returns the time budget of a plan.
+	 * @return the budget in milliseconds.
+	 */
+	public long getBudgetMillis() {
+		return budgetMillis;
+	}
+
+	/**
+	 * Returns the number of regret matching iterations of the last plan, over all the workers.
+	 * @return the number of iterations.
+	 */
+	public long getLastIterations() {
+		return lastIterations;
+	}
+
+	/**
+	 * Returns the number of combinations of plans played out for the last plan.
+	 * @return the number of cells evaluated.
+	 */
+	public long getLastCells() {
+		return lastCells;
+	}
+
+	/**
+	 * Returns how often the last search would play each plan.
+	 * @param plan The plan, from 0 to 26.
+	 * @return the probability of the plan.
+	 */
+	public double getLastProbability(int plan) {
+		return lastStrategy[plan];
+	}
+
+	/**
+	 * Chooses the plan of a player for the coming turn.
+	 * @param game The game being played.
+	 * @param seat The seat of the player.
+	 * @return the plan, from 0 to 26, see {@link TurnOrder#card(int, int)}.
+	 */
+	public int choosePlan(Game game, int seat) {
+		long deadline = System.nanoTime() + budgetMillis * 1_000_000;
+		Board root = game.getBoard().copy();
+		int seats = root.getSeatCount();
+		int size = seats;
+		for (int s = 0; s < seats; s++) {
+			size *= TurnOrder.PLAN_COUNT;
+		}
+		if (cells == null || cells.length != size) {
+			cells = new float[size];
+		}
+		Arrays.fill(cells, UNKNOWN);
+		float[] values = cells;
+
+		SplittableRandom random = new SplittableRandom(game.getPlayers().get(seat).random().nextLong());
+		List<Callable<Solver>> solvers = new ArrayList<>(MonteCarloSearch.THREADS);
+		for (int i = 0; i < MonteCarloSearch.THREADS; i++) {
+			SplittableRandom stream = random.split();
+			solvers.add(() -> new Solver(root, values, stream).solve(deadline));
+		}
+
+		double[] strategy = new double[TurnOrder.PLAN_COUNT];
+		lastIterations = 0;
+		lastCells = 0;
+		try {
+			for (Future<Solver> future : MonteCarloSearch.workers().invokeAll(solvers)) {
+				Solver solver = future.get();
+				for (int plan = 0; plan < strategy.length; plan++) {
+					strategy[plan] += solver.strategySum[seat][plan];
+				}
+				lastIterations += solver.iterations;
+				lastCells += solver.evaluated;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A plan search worker failed", e.getCause());
+		}
+		normalize(strategy);
+		lastStrategy = strategy;
+		return draw(strategy, random);
+	}
+
+	/**
+	 * Turns weights into probabilities, every plan being as likely if all the weights are 0.
+	 */
+	private static void normalize(double[] weights) {
+		double total = 0;
+		for (double weight : weights) {
+			total += weight;
+		}
+		for (int plan = 0; plan < weights.length; plan++) {
+			weights[plan] = total > 0 ? weights[plan] / total : 1.0 / weights.length;
+		}
+	}
+
+	private static int draw(double[] strategy, SplittableRandom random) {
+		double left = random.nextDouble();
+		for (int plan = 0; plan < strategy.length - 1; plan++) {
+			left -= strategy[plan];
+			if (left < 0) {
+				return plan;
+			}
+		}
+		return strategy.length - 1;
+	}
+
+	/**
+	 * The regret matching of one worker.
+	 */
+	private static class Solver {
+		final Board root;
+		final Simulator simulator;
+		final float[] values;
+		final SplittableRandom random;
+		final int seats;
+		final double[][] regret;
+		final double[][] strategy;
+		final double[][] strategySum;
+		final int[] plans;
+		final double[] utility = new double[TurnOrder.PLAN_COUNT];
+		long iterations;
+		long evaluated;
+
+		Solver(Board root, float[] values, SplittableRandom random) {
+			this.root = root;
+			this.simulator = new Simulator(root, random.split());
+			this.values = values;
+			this.random = random;
+			this.seats = root.getSeatCount();
+			this.regret = new double[seats][TurnOrder.PLAN_COUNT];
+			this.strategy = new double[seats][TurnOrder.PLAN_COUNT];
+			this.strategySum = new double[seats][TurnOrder.PLAN_COUNT];
+			this.plans = new int[seats];
+		}
+
+		/**
+		 * Runs iterations until the deadline, at least one.
+		 */
+		Solver solve(long deadline) {
+			do {
+				for (int s = 0; s < seats; s++) {
+					match(regret[s], strategy[s]);
+					for (int plan = 0; plan < TurnOrder.PLAN_COUNT; plan++) {
+						strategySum[s][plan] += strategy[s][plan];
+					}
+					plans[s] = draw(strategy[s], random);
+				}
+				for (int s = 0; s < seats; s++) {
+					int drawn = plans[s];
+					double expected = 0;
+					for (int plan = 0; plan < TurnOrder.PLAN_COUNT; plan++) {
+						plans[s] = plan;
+						utility[plan] = value(s);
+						expected += strategy[s][plan] * utility[plan];
+					}
+					plans[s] = drawn;
+					for (int plan = 0; plan < TurnOrder.PLAN_COUNT; plan++) {
+						// Regret matching+: a regret never goes below 0, which converges faster
+						regret[s][plan] = Math.max(0, regret[s][plan] + utility[plan] - expected);
+					}
+				}
+				iterations++;
+			} while (System.nanoTime() < deadline);
+			return this;
+		}
+
+		/**
+		 * Plays each plan in proportion to its regret, or every plan alike if none is regretted.
+		 */
+		private static void match(double[] regrets, double[] strategy) {
+			double total = 0;
+			for (double regret : regrets) {
+				total += regret;
+			}
+			for (int plan = 0; plan < regrets.length; plan++) {
+				strategy[plan] = total > 0 ? regrets[plan] / total : 1.0 / regrets.length;
+			}
+		}
+
+		/**
+		 * Returns the value of the current plans for a seat, playing the turn the first time.
+		 */
+		private double value(int seat) {
+			int cell = PlanTable.combination(plans, seats) * seats;
+			float value = values[cell + seat];
+			if (value != value) { // Not played yet
+				simulator.reset(root);
+				simulator.playGreedyTurn(plans);
+				for (int s = 0; s < seats; s++) {
+					values[cell + s] = lead(s);
+				}
+				evaluated++;
+				value = values[cell + seat];
+			}
+			return value;
+		}
+
+		/**
+		 * Returns how far a seat is ahead of the best of the others after the turn.
+		 */
+		private float lead(int seat) {
+			int mine = simulator.value(seat);
+			int best = Integer.MIN_VALUE;
+			for (int other = 0; other < seats; other++) {
+				if (other != seat) {
+					best = Math.max(best, simulator.value(other));
+				}
+			}
+			return seats == 1 ? mine : mine - best;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package PocketImperium;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The plans of the players and the orders of turn they resolve into, computed once and shared.
+ * <p>
+ * There are only 27 plans (see {@link TurnOrder#card(int, int)}), so each one is a single 
+ * immutable list of shared {@link CommandCard}s. With at most 3 players there are at most 
+ * 19,683 combinations of plans, and the order of the turn of every combination is kept in 
+ * a table: resolving a turn copies its steps and allocates nothing.
+ * </p>
+ * <pre>
+ * combination = plan of seat 0 + 27 * plan of seat 1 + 729 * plan of seat 2
+ * step byte   = seat | command &lt;&lt; 2 | power &lt;&lt; 4
+ * </pre>
+ */
+public final class PlanTable {
+	/** Most players a game can have. */
+	public static final int MAX_SEATS = 3;
+	private static final int PHASES = 3;
+	private static final List<List<CommandCard>> PLANS = plans();
+	private static final byte[][] STEPS = new byte[MAX_SEATS + 1][]; // By number of seats
+
+	static {
+		for (int seats = 1; seats <= MAX_SEATS; seats++) {
+			STEPS[seats] = steps(seats);
+		}
+	}
+
+	private PlanTable() {
+	}
+
+	private static List<List<CommandCard>> plans() {
+		CommandCard.Command[] commands = CommandCard.Command.values();
+		List<List<CommandCard>> plans = new ArrayList<>(TurnOrder.PLAN_COUNT);
+		for (int plan = 0; plan < TurnOrder.PLAN_COUNT; plan++) {
+			plans.add(List.of(CommandCard.of(commands[TurnOrder.card(plan, 0)]),
+					CommandCard.of(commands[TurnOrder.card(plan, 1)]),
+					CommandCard.of(commands[TurnOrder.card(plan, 2)])));
+		}
+		return Collections.unmodifiableList(plans);
+	}
+
+	/**
+	 * Resolves every combination of plans for a number of seats: phase by phase, the players 
+	 * who chose Expand play first, then Explore, then Exterminate, and players with the same 
+	 * command play in seat order.
+	 */
+	private static byte[] steps(int seats) {
+		int combinations = combinations(seats);
+		int length = PHASES * seats;
+		byte[] steps = new byte[combinations * length];
+		for (int combination = 0; combination < combinations; combination++) {
+			int step = combination * length;
+			for (int phase = 0; phase < PHASES; phase++) {
+				for (int command = 0; command < 3; command++) {
+					int repeats = 0;
+					for (int seat = 0; seat < seats; seat++) {
+						if (card(combination, seat, phase) == command) {
+							repeats++;
+						}
+					}
+					for (int seat = 0; seat < seats && repeats > 0; seat++) {
+						if (card(combination, seat, phase) == command) {
+							steps[step++] = (byte) (seat | command << 2 | TurnOrder.power(repeats) << 4);
+						}
+					}
+				}
+			}
+		}
+		return steps;
+	}
+
+	private static int card(int combination, int seat, int phase) {
+		for (int s = 0; s < seat; s++) {
+			combination /= TurnOrder.PLAN_COUNT;
+		}
+		return TurnOrder.card(combination % TurnOrder.PLAN_COUNT, phase);
+	}
+
+	private static int combinations(int seats) {
+		int combinations = 1;
+		for (int seat = 0; seat < seats; seat++) {
+			combinations *= TurnOrder.PLAN_COUNT;
+		}
+		return combinations;
+	}
+
+	/**
+	 * Returns the cards of a plan.
+	 * @param plan The plan, from 0 to 26.
+	 * @return the three cards of the plan, in an immutable list shared by every player.
+	 */
+	public static List<CommandCard> cards(int plan) {
+		return PLANS.get(plan);
+	}
+
+	/**
+	 * Returns the plan of three cards.
+	 * @param cards The cards of the three phases.
+	 * @return the plan, from 0 to 26.
+	 * @throws IllegalArgumentException if there are not three cards.
+	 */
+	public static int planOf(List<CommandCard> cards) {
+		if (cards.size() != PHASES) {
+			throw new IllegalArgumentException("A plan has 3 cards, got " + cards.size());
+		}
+		return TurnOrder.plan(cards.get(0).getCommand().ordinal(), cards.get(1).getCommand().ordinal(),
+				cards.get(2).getCommand().ordinal());
+	}
+
+	/**
+	 * Returns the combination of the plans of the players.
+	 * @param plans The plan of each seat.
+	 * @param seats The number of seats, from 1 to 3.
+	 * @return the index of the combination.
+	 */
+	public static int combination(int[] plans, int seats) {
+		int combination = 0;
+		for (int seat = seats - 1; seat >= 0; seat--) {
+			combination = combination * TurnOrder.PLAN_COUNT + plans[seat];
+		}
+		return combination;
+	}
+
+	/**
+	 * Fills an order of turn with the steps a combination of plans resolves into.
+	 * @param plans The plan of each seat.
+	 * @param seats The number of seats, from 1 to 3.
+	 * @param order The order to fill, its step is set back to the first one.
+	 */
+	static void resolve(int[] plans, int seats, TurnOrder order) {
+		byte[] steps = STEPS[seats];
+		int length = PHASES * seats;
+		int first = combination(plans, seats) * length;
+		for (int i = 0; i < length; i++) {
+			int step = steps[first + i];
+			order.seat[i] = step & 3;
+			order.command[i] = step >> 2 & 3;
+			order.power[i] = step >> 4;
+		}
+		order.length = length;
+		order.step = 0;
+	}
+}
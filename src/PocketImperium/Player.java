@@ -2,10 +2,8 @@ package PocketImperium;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
+import java.util.SplittableRandom;
 
 /**
  * Represents a player in the game. The player is characterized by their name, color,
@@ -15,11 +13,14 @@ import java.util.Scanner;
 public class Player implements Serializable {
     private String name;
     private String color;
-    private Map<Hex, Integer> fleetList = new HashMap<>(); // Associe un Hex à un nombre de vaisseaux
+    private int[] fleetList; // Nombre de vaisseaux placés sur chaque Hex, par ID global
+    private int fleetSize; // Somme de fleetList
 	private int ships;
     private int points;
     protected List<CommandCard> planList;
     private List<Sector> ownedSector;
+    private transient IOChannel io; // null means the console
+    private transient SplittableRandom random; // Given by the game, see Game#setSeed(long)
     
     /**
      * Class that represents a Player. A player is characterized by his name, his color,
@@ -34,9 +35,28 @@ public class Player implements Serializable {
         this.ships = 15;
         this.planList = new ArrayList<>();
         this.ownedSector = new ArrayList<>();
-        this.fleetList = new HashMap<>();
+        this.fleetList = new int[Board.HEX_COUNT];
     }
     
+    /**
+     * Returns the random numbers behind the choices made for this Player.
+     * @return the stream the game gave to the Player, or an unseeded one if he sits at no game.
+     */
+    SplittableRandom random() {
+        if (random == null) {
+            random = new SplittableRandom();
+        }
+        return random;
+    }
+
+    /**
+     * Gives the Player the random numbers for his choices of the coming turn.
+     * @param random: the stream of the Player
+     */
+    void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
     /**
      * This method returns the Players name.
      * @return a string: players name
@@ -46,11 +66,51 @@ public class Player implements Serializable {
     }
 
     /**
-     * This method returns the number of ships or fleets the Player has placed as well hexes where the ships are.
-     * @return a Map with the owned hex as the key and the number of ships present on it as the value.
+     * This method returns the Players color.
+     * @return a string: players color
+     */
+    public String getColor() {
+        return color;
+    }
+
+    /**
+     * This method returns the number of ships the Player has placed on a hex.
+     * @param hex: the hex the ships were placed on.
+     * @return an integer: the number of ships of the Player recorded on this hex.
+     */
+    public int getFleet(Hex hex) {
+        return getFleet(hex.getId());
+    }
+
+    /**
+     * This method returns the number of ships the Player has placed on a hex.
+     * @param hex: the global ID of the hex, see {@link Board}.
+     * @return an integer: the number of ships of the Player recorded on this hex.
      */
-    public Map<Hex, Integer> getFleetList() {
-        return fleetList;
+    public int getFleet(int hex) {
+        return fleetList[hex];
+    }
+
+    /**
+     * Gives back to a Player loaded from a save the ships in his hand and his points.
+     * @param ships: the number of ships in the hand of the Player
+     * @param points: the points of the Player
+     */
+    void restoreHand(int ships, int points) {
+        this.ships = ships;
+        this.points = points;
+    }
+
+    /**
+     * Gives back to a Player loaded from a save the ships he placed on each hex.
+     * @param fleets: the number of ships placed on each hex, by global ID
+     */
+    void restoreFleets(int[] fleets) {
+        this.fleetSize = 0;
+        for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+            this.fleetList[hex] = fleets[hex];
+            this.fleetSize += fleets[hex];
+        }
     }
 
     /**
@@ -77,7 +137,8 @@ public class Player implements Serializable {
 	 */
     public void addFleet(Hex hex, int fleetSize) {
         // Ajoute ou met à jour une flotte sur un Hex
-        fleetList.put(hex, fleetList.getOrDefault(hex, 0) + fleetSize);
+        fleetList[hex.getId()] += fleetSize;
+        this.fleetSize += fleetSize;
         this.ships = this.ships - fleetSize;
     }
     /**
@@ -91,16 +152,9 @@ public class Player implements Serializable {
      */
     public void removeFleet(Hex hex, int fleetSize) {
         // Retire une flotte d'un Hex, ou supprime l'entrée si la flotte tombe à 0
-        if (fleetList.containsKey(hex)) {
-            int currentFleet = fleetList.get(hex);
-            int newFleetSize = currentFleet - fleetSize;
-            if (newFleetSize <= 0) {
-                fleetList.remove(hex);
-            }
-            else {
-                fleetList.put(hex, newFleetSize);
-            }
-        }
+        int removed = Math.min(fleetList[hex.getId()], fleetSize);
+        fleetList[hex.getId()] -= removed;
+        this.fleetSize -= removed;
     }
     
     /**
@@ -117,32 +171,32 @@ public class Player implements Serializable {
      * by entering an integer (1: Expand - 2: Explore - 3: Exterminate) <p>
      */
     public void plan() {
-        Scanner scanner = new Scanner(System.in);
+        IOChannel scanner = io();
         
         // Afficher dynamiquement toutes les commandes disponibles dans CommandCard.Command
         CommandCard.Command[] availableCommands = CommandCard.Command.values();
-        System.out.println("Please select the order of your Command cards from the following: ");
+        io().println("Please select the order of your Command cards from the following: ");
         for (int i = 0; i < availableCommands.length; i++) {
-            System.out.println((i + 1) + ". " + availableCommands[i]);
+            io().println((i + 1) + ". " + availableCommands[i]);
         }
     
         // Demander au joueur de choisir 3 commandes dans un ordre
         for (int i = 1; i <= 3; i++) {
             CommandCard.Command chosenCommand = null;
             do {
-                System.out.print("Your " + i + "th card is: (1 until " + availableCommands.length + ") : ");
+                io().print("Your " + i + "th card is: (1 until " + availableCommands.length + ") : ");
                 int choice = scanner.nextInt();
                 scanner.nextLine();  // Consommer la ligne restante après nextInt()
     
                 if (choice >= 1 && choice <= availableCommands.length) {
                     chosenCommand = availableCommands[choice - 1]; // Convertit l'entrée utilisateur en Command
                 } else {
-                    System.out.println("Wrong choice. Please select a number between 1 and " + availableCommands.length + ".");
+                    io().println("Wrong choice. Please select a number between 1 and " + availableCommands.length + ".");
                 }
             } while (chosenCommand == null); // Continue jusqu'à ce qu'un choix valide soit effectué
     
-            // Créer un nouvel objet CommandCard avec la commande choisie
-            CommandCard card = new CommandCard(chosenCommand);
+            // Prendre la carte partagée de la commande choisie
+            CommandCard card = CommandCard.of(chosenCommand);
             planList.add(card); // Ajoute la carte choisie à la liste
         }
     }
@@ -162,13 +216,13 @@ public class Player implements Serializable {
     	// Display all the owned sectors
     	List<Integer> sectorID = new ArrayList<Integer>();
        for(int i = 0; i <  this.ownedSector.size(); i++) {
-    	   System.out.println(this.name + " owns the " + this.ownedSector.get(i).getSectorID() + " sector");
+    	   io().println(this.name + " owns the " + this.ownedSector.get(i).getSectorID() + " sector");
     	   sectorID.add(this.ownedSector.get(i).getSectorID());
        }
        
        // Ask the user for the hex, he wants to put the ships on
-       Scanner scan = new Scanner(System.in);
-       System.out.println("Please select your sector to place " + shipNumber + " ships");
+       IOChannel scan = io();
+       io().println("Please select your sector to place " + shipNumber + " ships");
        int selectedSector = -1;
        int selectedSectorIndex = -1;
        while(sectorID.contains(selectedSector) == false) {
@@ -181,10 +235,10 @@ public class Player implements Serializable {
        // We have the sector now, the user will select the hex next
        Sector sector = this.ownedSector.get(selectedSectorIndex);
        List<Integer> ownedHex = new ArrayList<Integer>();
-       System.out.println("Hexs available :");
+       io().println("Hexs available :");
        for(int i = 0; i < sector.getSection().size(); i++) {
     	    if(sector.getSection().get(i).getAvailability() == true) {
-    		   System.out.println("Hex " + i);
+    		   io().println("Hex " + i);
     		   ownedHex.add(i);
     	   }
        }
@@ -193,7 +247,7 @@ public class Player implements Serializable {
        int count = 0;
        while(ownedHex.contains(selectedHex) == false) {
             if (count != 0) {
-                System.out.println("Wrong entry, please take another Hex");
+                io().println("Wrong entry, please take another Hex");
             }
     	    selectedHex = scan.nextInt();
             count = count + 1;
@@ -203,9 +257,9 @@ public class Player implements Serializable {
        sector.getSection().get(selectedHex).setFleet(shipNumber);
        this.ships = this.ships - shipNumber;
        
-       System.out.println("Hex number " + selectedHex + " has " + 
+       io().println("Hex number " + selectedHex + " has " + 
                                sector.getSection().get(selectedHex).getFleet() + " ships \n");
-       System.out.println("You have " + this.ships + " remaining.");
+       io().println("You have " + this.ships + " remaining.");
     }
     
 
@@ -221,13 +275,13 @@ public class Player implements Serializable {
         // Secteur et hex d'origine
         Sector fromSector = findOwnedSectorById(fromSectorID);
         if (fromSector == null) {
-            System.out.println("Invalid source sector. Aborting.");
+            io().println("Invalid source sector. Aborting.");
             return;
         }
     
         Hex fromHex = fromSector.getHex(fromHexID);
         if (fromHex == null || fromHex.getFleet() < shipNumber) {
-            System.out.println("Invalid source hex or insufficient ships. Aborting.");
+            io().println("Invalid source hex or insufficient ships. Aborting.");
             return;
         }
     
@@ -237,13 +291,17 @@ public class Player implements Serializable {
     
         Sector toSector = map[targetRow][targetCol];
         if (toSector == null) {
-            System.out.println("Invalid target sector. Aborting.");
+            io().println("Invalid target sector. Aborting.");
             return;
         }
     
         Hex toHex = toSector.getHex(toHexID);
         if (toHex == null || toHex.getAvailability()) {
-            System.out.println("Target hex is unavailable. Aborting.");
+            io().println("Target hex is unavailable. Aborting.");
+            return;
+        }
+        if (!HexGrid.canExplore(fromHex.getId(), toHex.getId())) {
+            io().println("Target hex is out of reach. Aborting.");
             return;
         }
     
@@ -257,7 +315,7 @@ public class Player implements Serializable {
             this.ownedSector.add(toSector);
         }
     
-        System.out.println("Successfully moved " + shipNumber + " ships from Sector " + fromSectorID + " Hex " + fromHexID +
+        io().println("Successfully moved " + shipNumber + " ships from Sector " + fromSectorID + " Hex " + fromHexID +
                 " to Sector " + toSectorID + " Hex " + toHexID + ".");
     }
     
@@ -275,6 +333,31 @@ public class Player implements Serializable {
         return null;
     }
 
+    /**
+     * Returns the channel the Player is prompted through and answers on.
+     * @return the channel set with {@link #setChannel(IOChannel)}, or the console by default
+     */
+    protected IOChannel io() {
+        return io != null ? io : StreamChannel.console();
+    }
+
+    /**
+     * Returns the channel of the Player if he has one of his own.
+     * @return the channel of the Player, or null if he uses the console
+     */
+    public IOChannel getChannel() {
+        return io;
+    }
+
+    /**
+     * Sets the channel the Player is prompted through and answers on, such as a socket 
+     * for a remote player or a script to replay his decisions.
+     * @param io the channel to use, or null to go back to the console
+     */
+    public void setChannel(IOChannel io) {
+        this.io = io;
+    }
+
     /**
      * Returns the list of commands in order selected by the player
      * @return a list of type CommandCard representing the Player's command list
@@ -288,7 +371,7 @@ public class Player implements Serializable {
      * @return an integer representing the number of fleet size the Player possesses
      */
     public int getFleetSize() {
-        return fleetList.values().stream().mapToInt(Integer::intValue).sum();
+        return fleetSize;
     }
 
     /**
@@ -319,23 +402,23 @@ public class Player implements Serializable {
      */
     public int commandFleetNumber(String command, int maxNumberShips) {
 		int shipNumber = 4;
-		Scanner scan = new Scanner(System.in);
+		IOChannel scan = io();
 		switch(command) {
 		case "EXPAND":
 			while(shipNumber > maxNumberShips) {
-				System.out.println("Please select the number of ships you want to place: ");
+				io().println("Please select the number of ships you want to place: ");
 				shipNumber = scan.nextInt();
 			}
 			break;
 		case "EXPLORE":
 			while(shipNumber > maxNumberShips) {
-				System.out.println("Please select the number of ships you want to move: ");
+				io().println("Please select the number of ships you want to move: ");
 				shipNumber = scan.nextInt();
 			}
 			break;
 		case "EXTERMINATE":
 			while(shipNumber > maxNumberShips) {
-				System.out.println("Please select the number of ships you want to attack with: ");
+				io().println("Please select the number of ships you want to attack with: ");
 				shipNumber = scan.nextInt();
 			}
 			break;
@@ -0,0 +1,105 @@
+package PocketImperium;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the saves of a directory with their summary.
+ * <p>
+ * Only the {@link SaveHeader} of each save is read, and it is kept with the size and the time 
+ * of the file, so that listing the directory again only reads the saves that changed. Files 
+ * that are not saves are left out.
+ * </p>
+ */
+public class SaveCatalogue {
+	private final Path directory;
+	private final Map<Path, Entry> entries = new HashMap<>();
+
+	/**
+	 * Builds the catalogue of a directory, it is read by {@link #list()}.
+	 * @param directory The directory holding the saves.
+	 */
+	public SaveCatalogue(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Lists the saves of the directory, the most recent first.
+	 * @return the saves with their summary.
+	 * @throws IOException if the directory cannot be read.
+	 */
+	public List<Entry> list() throws IOException {
+		Map<Path, Entry> found = new HashMap<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+				if (!attributes.isRegularFile()) {
+					continue;
+				}
+				long modified = attributes.lastModifiedTime().toMillis();
+				Entry entry = entries.get(file);
+				if (entry == null || entry.size != attributes.size() || entry.modified != modified) {
+					try {
+						entry = new Entry(file, SaveHeader.read(file), attributes.size(), modified);
+					} catch (IOException | RuntimeException e) {
+						continue; // Not a save
+					}
+				}
+				found.put(file, entry);
+			}
+		}
+		entries.clear();
+		entries.putAll(found);
+
+		List<Entry> saves = new ArrayList<>(found.values());
+		saves.sort(Comparator.comparingLong((Entry entry) -> entry.getHeader().getTimestamp()).reversed()
+				.thenComparing(Entry::getFile));
+		return saves;
+	}
+
+	/**
+	 * A save of the catalogue.
+	 */
+	public static final class Entry {
+		private final Path file;
+		private final SaveHeader header;
+		private final long size;
+		private final long modified;
+
+		private Entry(Path file, SaveHeader header, long size, long modified) {
+			this.file = file;
+			this.header = header;
+			this.size = size;
+			this.modified = modified;
+		}
+
+		/**
+		 * Returns the file of the save.
+		 * @return the path of the save.
+		 */
+		public Path getFile() {
+			return file;
+		}
+
+		/**
+		 * Returns the summary of the save.
+		 * @return the header of the save.
+		 */
+		public SaveHeader getHeader() {
+			return header;
+		}
+
+		@Override
+		public String toString() {
+			return file.getFileName() + "  " + header;
+		}
+	}
+}
@@ -0,0 +1,468 @@
+package PocketImperium;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary format of the saved games.
+ * <p>
+ * A save starts with a magic number and the version of the format, followed by a summary of 
+ * the game ({@link SaveHeader}), the players in seat order and the board as packed primitives. Players are referred 
+ * to by their seat, so nothing but names and colors is written as text, and a save of a whole 
+ * game is a few hundred bytes. Each hex takes one byte for its level and owner and one or more 
+ * bytes for its fleet, written as a variable-length integer.
+ * </p>
+ * <pre>
+ * int    magic 'PIMP'
+ * short  version
+ * short  length of the summary, then the summary (turn number, finished, turns played, 
+ *          players and scores, see {@link SaveHeader})
+ * long   seed of the game
+ * byte   number of seats, then for each seat:
+ *          UTF name, UTF color,
+ *          byte kind (0 = human, 1 + strategy ordinal for a bot), varint search budget for a bot,
+ *          varint ships in hand, varint points,
+ *          byte plan (number of cards &lt;&lt; 5 | cards in base 3),
+ *          byte number of owned sectors, byte sector ID for each,
+ *          byte number of hexes with ships placed, then byte hex and varint ships for each
+ * for each hex:    byte level | (owner seat + 1) &lt;&lt; 2, varint fleet
+ * for each sector: byte owner seat + 1
+ * </pre>
+ * <p>
+ * The saves written by the first versions of the game with Java serialization are still 
+ * read, through {@link LegacySaveReader}, but never written.
+ * </p>
+ */
+public final class SaveCodec {
+	/** First bytes of every save: "PIMP" in ASCII. */
+	public static final int MAGIC = 0x50494D50;
+	/** Version of the format written by this class. */
+	public static final short VERSION = 1;
+
+	private static final int HUMAN = 0;
+
+	private SaveCodec() {
+	}
+
+	/**
+	 * Writes a game.
+	 * @param game The game to save.
+	 * @param out Where to write it, the stream is left open.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	public static void write(Game game, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeShort(VERSION);
+		SaveHeader.of(game, System.currentTimeMillis()).write(data);
+		data.writeLong(game.getSeed());
+
+		List<Player> players = game.getPlayers();
+		data.writeByte(players.size());
+		for (Player player : players) {
+			writePlayer(data, player);
+		}
+
+		Board board = game.getBoard();
+		for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+			data.writeByte(board.getLevel(hex) | (board.getOwner(hex) + 1) << 2);
+			writeVarInt(data, board.getFleet(hex));
+		}
+		for (int sectorID = 1; sectorID <= Board.SECTOR_COUNT; sectorID++) {
+			data.writeByte(board.getSectorOwner(sectorID) + 1);
+		}
+		data.flush();
+	}
+
+	private static void writePlayer(DataOutputStream data, Player player) throws IOException {
+		data.writeUTF(player.getName());
+		data.writeUTF(player.getColor());
+		if (player instanceof BotPlayer) {
+			BotPlayer bot = (BotPlayer) player;
+			data.writeByte(1 + bot.getStrategy().ordinal());
+			writeVarInt(data, (int) bot.getSearchBudget());
+		} else {
+			data.writeByte(HUMAN);
+		}
+		writeVarInt(data, player.getRemainingShips());
+		writeVarInt(data, player.getPoints());
+
+		data.writeByte(packPlan(player.getPlanList()));
+
+		List<Sector> owned = player.getOwnedSector();
+		data.writeByte(owned.size());
+		for (Sector sector : owned) {
+			data.writeByte(sector.getSectorID());
+		}
+
+		int placed = 0;
+		for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+			if (player.getFleet(hex) != 0) {
+				placed++;
+			}
+		}
+		data.writeByte(placed);
+		for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+			if (player.getFleet(hex) != 0) {
+				data.writeByte(hex);
+				writeVarInt(data, player.getFleet(hex));
+			}
+		}
+	}
+
+	/**
+	 * Reads a game, in this format or in the format of the first versions of the game.
+	 * @param in The save, from its first byte.
+	 * @return the game, ready to go on.
+	 * @throws IOException if the save is damaged or was written by a newer version.
+	 */
+	public static Game read(InputStream in) throws IOException {
+		if (!in.markSupported()) {
+			in = new BufferedInputStream(in);
+		}
+		in.mark(2);
+		DataInputStream data = new DataInputStream(in);
+		short header = data.readShort();
+		in.reset();
+		if (LegacySaveReader.isLegacy(header)) {
+			return importLegacy(LegacySaveReader.read(in));
+		}
+
+		if (data.readInt() != MAGIC) {
+			throw new StreamCorruptedException("Not a Pocket Imperium save");
+		}
+		int version = data.readShort();
+		if (version > VERSION) {
+			throw new InvalidObjectException("The save was written by a newer version (format " + version + ")");
+		}
+		SaveHeader summary = SaveHeader.read(data);
+		long seed = data.readLong();
+
+		int seats = data.readUnsignedByte();
+		List<Player> players = new ArrayList<>(seats);
+		int[][] ownedSectors = new int[seats][];
+		for (int seat = 0; seat < seats; seat++) {
+			players.add(readPlayer(data));
+			ownedSectors[seat] = new int[data.readUnsignedByte()];
+			for (int i = 0; i < ownedSectors[seat].length; i++) {
+				ownedSectors[seat][i] = data.readUnsignedByte();
+			}
+			int[] fleets = new int[Board.HEX_COUNT];
+			for (int placed = data.readUnsignedByte(); placed > 0; placed--) {
+				fleets[checkHex(data.readUnsignedByte())] = readVarInt(data);
+			}
+			players.get(seat).restoreFleets(fleets);
+		}
+
+		Board board = new Board(players);
+		for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+			int packed = data.readUnsignedByte();
+			board.setLevel(hex, packed & 3);
+			board.setOwner(hex, checkSeat((packed >> 2) - 1, seats));
+			board.setFleet(hex, readVarInt(data));
+		}
+		for (int sectorID = 1; sectorID <= Board.SECTOR_COUNT; sectorID++) {
+			board.setSectorOwner(sectorID, checkSeat(data.readUnsignedByte() - 1, seats));
+		}
+
+		Game game = Game.restore(players, board, summary.getTurnNumber(), summary.isFinished(), summary.getTurnsPlayed());
+		game.setSeed(seed);
+		for (int seat = 0; seat < seats; seat++) {
+			for (int sectorID : ownedSectors[seat]) {
+				if (sectorID < 1 || sectorID > Board.SECTOR_COUNT) {
+					throw new StreamCorruptedException("Unknown sector " + sectorID);
+				}
+				players.get(seat).setOwner(game.getSector(sectorID));
+			}
+		}
+		return game;
+	}
+
+	private static Player readPlayer(DataInputStream data) throws IOException {
+		String name = data.readUTF();
+		String color = data.readUTF();
+		int kind = data.readUnsignedByte();
+		Player player;
+		if (kind == HUMAN) {
+			player = new Player(name, color);
+		} else {
+			BotPlayer.Strategy[] strategies = BotPlayer.Strategy.values();
+			if (kind > strategies.length) {
+				throw new StreamCorruptedException("Unknown bot strategy " + (kind - 1));
+			}
+			BotPlayer bot = new BotPlayer(name, color, strategies[kind - 1]);
+			bot.setSearchBudget(readVarInt(data));
+			player = bot;
+		}
+		player.restoreHand(readVarInt(data), readVarInt(data));
+
+		unpackPlan(data.readUnsignedByte(), player.getPlanList());
+		return player;
+	}
+
+	/**
+	 * Packs the cards a player has planned in a byte: the number of cards times 32, plus 
+	 * the cards as a plan, see {@link TurnOrder#card(int, int)}. Missing cards count as Expand.
+	 * @param plan The cards of the player, at most 3.
+	 * @return the packed plan, from 0 to 127.
+	 */
+	static int packPlan(List<CommandCard> plan) {
+		int cards = 0;
+		for (int phase = 0; phase < 3; phase++) {
+			cards = cards * 3 + (phase < plan.size() ? plan.get(phase).getCommand().ordinal() : 0);
+		}
+		return plan.size() << 5 | cards;
+	}
+
+	/**
+	 * Adds the cards of a packed plan to a list of cards.
+	 * @param packed The plan packed by {@link #packPlan(List)}.
+	 * @param plan The list receiving the cards.
+	 */
+	static void unpackPlan(int packed, List<CommandCard> plan) {
+		CommandCard.Command[] commands = CommandCard.Command.values();
+		for (int phase = 0; phase < packed >> 5; phase++) {
+			plan.add(CommandCard.of(commands[TurnOrder.card(packed & 31, phase)]));
+		}
+	}
+
+	private static int checkHex(int hex) throws StreamCorruptedException {
+		if (hex >= Board.HEX_COUNT) {
+			throw new StreamCorruptedException("Unknown hex " + hex);
+		}
+		return hex;
+	}
+
+	private static int checkSeat(int seat, int seats) throws StreamCorruptedException {
+		if (seat >= seats) {
+			throw new StreamCorruptedException("Unknown seat " + seat);
+		}
+		return seat;
+	}
+
+	/**
+	 * Writes a non-negative integer 7 bits at a time, small numbers take a single byte.
+	 */
+	static void writeVarInt(DataOutputStream data, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			data.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		data.writeByte(value);
+	}
+
+	static int readVarInt(DataInputStream data) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = data.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new StreamCorruptedException("Integer too long");
+	}
+
+	/**
+	 * Saves a game in memory.
+	 * @param game The game to save.
+	 * @return the bytes of the save.
+	 */
+	public static byte[] toBytes(Game game) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try {
+			write(game, bytes);
+		} catch (IOException e) {
+			throw new IllegalStateException("Writing to memory cannot fail", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads a game saved in memory.
+	 * @param save The bytes of the save.
+	 * @return the game.
+	 * @throws IOException if the save is damaged.
+	 */
+	public static Game fromBytes(byte[] save) throws IOException {
+		return read(new ByteArrayInputStream(save));
+	}
+
+	/**
+	 * Turns an old save into a game. The first versions of the game had fewer hexes in some 
+	 * sectors, the hexes they did not have are added as empty systems of level 0.
+	 * @param saved The game as read from the old save.
+	 * @return the game, ready to go on.
+	 * @throws IOException if the save does not hold a game of a known shape.
+	 */
+	private static Game importLegacy(LegacySaveReader.Record saved) throws IOException {
+		if (!saved.is("Game") || !(saved.get("playerList") instanceof LegacySaveReader.Record)
+				|| !(saved.get("map") instanceof Object[])) {
+			throw new InvalidObjectException("The old save does not hold a game");
+		}
+
+		// Players, and their seat for the references of the map
+		List<Player> players = new ArrayList<>();
+		Map<LegacySaveReader.Record, Integer> seats = new IdentityHashMap<>();
+		for (Object element : list(saved.get("playerList"))) {
+			LegacySaveReader.Record savedPlayer = record(element);
+			String name = String.valueOf(savedPlayer.get("name"));
+			String color = String.valueOf(savedPlayer.get("color"));
+			Player player;
+			if (savedPlayer.is("BotPlayer")) {
+				player = new BotPlayer(name, color, constant(BotPlayer.Strategy.class, savedPlayer.get("strategy")));
+			} else {
+				player = new Player(name, color);
+			}
+			player.restoreHand(savedPlayer.getInt("ships", 0), savedPlayer.getInt("points", 0));
+			for (Object card : list(savedPlayer.get("planList"))) {
+				player.getPlanList().add(CommandCard.of(constant(CommandCard.Command.class, record(card).get("command"))));
+			}
+			seats.put(savedPlayer, players.size());
+			players.add(player);
+		}
+		if (players.isEmpty() || players.size() > 3) {
+			throw new InvalidObjectException("The old save has " + players.size() + " players");
+		}
+
+		// The map, sector by sector
+		Board board = new Board(players);
+		Map<LegacySaveReader.Record, Integer> hexIDs = new IdentityHashMap<>();
+		boolean ownersSaved = true;
+		for (Object row : (Object[]) saved.get("map")) {
+			if (!(row instanceof Object[])) {
+				throw new InvalidObjectException("The map of the old save is not a grid");
+			}
+			for (Object element : (Object[]) row) {
+				LegacySaveReader.Record sector = record(element);
+				int sectorID = sector.getInt("sectorID", 0);
+				if (sectorID < 1 || sectorID > Board.SECTOR_COUNT) {
+					throw new InvalidObjectException("Unknown sector " + sectorID + " in the old save");
+				}
+				List<Object> hexes = list(sector.get("section"));
+				if (hexes.size() > Board.hexCount(sectorID)) {
+					throw new InvalidObjectException("Sector " + sectorID + " of the old save has " + hexes.size() + " hexes");
+				}
+				for (int i = 0; i < hexes.size(); i++) {
+					LegacySaveReader.Record savedHex = record(hexes.get(i));
+					int hex = Board.firstHex(sectorID) + i;
+					hexIDs.put(savedHex, hex);
+					board.setLevel(hex, savedHex.getInt("systemLevel", 0));
+					board.setFleet(hex, savedHex.getInt("fleet", 0));
+					if (savedHex.has("fleetOwner")) {
+						board.setOwner(hex, seatOf(savedHex.get("fleetOwner"), seats));
+					} else {
+						ownersSaved = false;
+					}
+				}
+				board.setSectorOwner(sectorID, seatOf(sector.get("owner"), seats));
+			}
+		}
+
+		// Ships placed by each player, the oldest saves only know the owner of a hex from them
+		int[][] fleets = new int[players.size()][];
+		for (Map.Entry<LegacySaveReader.Record, Integer> seat : seats.entrySet()) {
+			if (seat.getKey().get("fleetList") == null) {
+				continue;
+			}
+			fleets[seat.getValue()] = new int[Board.HEX_COUNT];
+			List<Object> placed = list(seat.getKey().get("fleetList"));
+			for (int i = 0; i + 1 < placed.size(); i += 2) {
+				Integer hex = hexIDs.get(record(placed.get(i)));
+				if (hex != null) {
+					fleets[seat.getValue()][hex] += record(placed.get(i + 1)).getInt("value", 0);
+					if (!ownersSaved) {
+						board.setOwner(hex, seat.getValue());
+					}
+				}
+			}
+		}
+		if (!ownersSaved) {
+			// Without any other clue, ships belong to the owner of their sector
+			for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+				if (board.getOwner(hex) == Board.NOBODY && board.getFleet(hex) > 0) {
+					board.setOwner(hex, board.getSectorOwner(Board.sectorOf(hex)));
+				}
+			}
+		}
+		for (int seat = 0; seat < players.size(); seat++) {
+			if (fleets[seat] == null) {
+				// Saves without the placed ships: the fleets of the hexes of the player count instead
+				fleets[seat] = new int[Board.HEX_COUNT];
+				for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+					if (board.getOwner(hex) == seat) {
+						fleets[seat][hex] = board.getFleet(hex);
+					}
+				}
+			}
+			players.get(seat).restoreFleets(fleets[seat]);
+		}
+
+		int turnNumber = saved.getInt("turnNumber", 0);
+		Game game = Game.restore(players, board, turnNumber, saved.getBoolean("isFinished"), Math.max(0, turnNumber - 1));
+		for (Map.Entry<LegacySaveReader.Record, Integer> seat : seats.entrySet()) {
+			Player player = players.get(seat.getValue());
+			if (seat.getKey().has("ownedSector")) {
+				for (Object sector : list(seat.getKey().get("ownedSector"))) {
+					player.setOwner(game.getSector(record(sector).getInt("sectorID", 0)));
+				}
+			} else {
+				for (int sectorID = 1; sectorID <= Board.SECTOR_COUNT; sectorID++) {
+					if (board.getSectorOwner(sectorID) == seat.getValue()) {
+						player.setOwner(game.getSector(sectorID));
+					}
+				}
+			}
+		}
+		return game;
+	}
+
+	private static LegacySaveReader.Record record(Object object) throws InvalidObjectException {
+		if (!(object instanceof LegacySaveReader.Record)) {
+			throw new InvalidObjectException("Expected an object in the old save, found " + object);
+		}
+		return (LegacySaveReader.Record) object;
+	}
+
+	private static <E extends Enum<E>> E constant(Class<E> type, Object object) throws InvalidObjectException {
+		String constant = record(object).getEnumConstant();
+		try {
+			return Enum.valueOf(type, String.valueOf(constant));
+		} catch (IllegalArgumentException e) {
+			throw new InvalidObjectException("Unknown " + type.getSimpleName() + " " + constant + " in the old save");
+		}
+	}
+
+	private static int seatOf(Object player, Map<LegacySaveReader.Record, Integer> seats) throws InvalidObjectException {
+		if (player == null) {
+			return Board.NOBODY;
+		}
+		Integer seat = seats.get(record(player));
+		if (seat == null) {
+			throw new InvalidObjectException("The old save refers to a player who is not seated");
+		}
+		return seat;
+	}
+
+	private static List<Object> list(Object list) throws InvalidObjectException {
+		if (list == null) {
+			return List.of();
+		}
+		if (!(list instanceof LegacySaveReader.Record)) {
+			throw new InvalidObjectException("Expected a list in the old save");
+		}
+		return ((LegacySaveReader.Record) list).getWritten();
+	}
+}
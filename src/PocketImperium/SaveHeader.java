@@ -0,0 +1,246 @@
+package PocketImperium;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Summary written at the start of a save: when it was made, the turn, and the name,
+ * strategy and score of each player.
+ * <p>
+ * The summary comes before the players and the board, behind its own length, so that it
+ * can be read from the first bytes of a file without decoding the game. The saves of the first
+ * versions of the game, written with Java serialization, are decoded in full to build it.
+ * </p>
+ * <pre>
+ * long   time of the save, in milliseconds since 1970
+ * byte   turn number, byte flags (1 = finished), varint turns played
+ * byte   number of seats, then for each seat:
+ *          UTF name, byte kind (0 = human, 1 + strategy ordinal for a bot), varint score
+ * </pre>
+ *
+ * @see SaveCodec
+ * @see SaveCatalogue
+ */
+public final class SaveHeader {
+	private static final int HUMAN = 0;
+	private static final int FINISHED = 1;
+	private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+			.withZone(ZoneId.systemDefault());
+
+	private final long timestamp;
+	private final int turnNumber;
+	private final boolean finished;
+	private final int turnsPlayed;
+	private final String[] names;
+	private final BotPlayer.Strategy[] strategies;
+	private final int[] scores;
+
+	private SaveHeader(long timestamp, int turnNumber, boolean finished, int turnsPlayed,
+			String[] names, BotPlayer.Strategy[] strategies, int[] scores) {
+		this.timestamp = timestamp;
+		this.turnNumber = turnNumber;
+		this.finished = finished;
+		this.turnsPlayed = turnsPlayed;
+		this.names = names;
+		this.strategies = strategies;
+		this.scores = scores;
+	}
+
+	/**
+	 * Sums up a game.
+	 * @param game The game.
+	 * @param timestamp The time of the save, in milliseconds since 1970.
+	 * @return the summary of the game.
+	 */
+	static SaveHeader of(Game game, long timestamp) {
+		List<Player> players = game.getPlayers();
+		String[] names = new String[players.size()];
+		BotPlayer.Strategy[] strategies = new BotPlayer.Strategy[players.size()];
+		for (int seat = 0; seat < players.size(); seat++) {
+			Player player = players.get(seat);
+			names[seat] = player.getName();
+			if (player instanceof BotPlayer) {
+				strategies[seat] = ((BotPlayer) player).getStrategy();
+			}
+		}
+		int[] scores = new int[players.size()];
+		if (game.getBoard() != null) {
+			GameResult result = game.getResult();
+			for (int seat = 0; seat < scores.length; seat++) {
+				scores[seat] = result.getScore(seat);
+			}
+		}
+		return new SaveHeader(timestamp, game.getTurnNumber(), game.isFinished(), game.getTurnsPlayed(),
+				names, strategies, scores);
+	}
+
+	/**
+	 * Writes the summary behind its length.
+	 * @param data Where to write it.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	void write(DataOutputStream data) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		DataOutputStream header = new DataOutputStream(bytes);
+		header.writeLong(timestamp);
+		header.writeByte(turnNumber);
+		header.writeByte(finished ? FINISHED : 0);
+		SaveCodec.writeVarInt(header, turnsPlayed);
+		header.writeByte(names.length);
+		for (int seat = 0; seat < names.length; seat++) {
+			header.writeUTF(names[seat]);
+			header.writeByte(strategies[seat] == null ? HUMAN : 1 + strategies[seat].ordinal());
+			SaveCodec.writeVarInt(header, scores[seat]);
+		}
+		data.writeShort(bytes.size());
+		bytes.writeTo(data);
+	}
+
+	/**
+	 * Reads the summary, from its length.
+	 * @param data The save, after its version.
+	 * @return the summary.
+	 * @throws IOException if the summary is damaged.
+	 */
+	static SaveHeader read(DataInputStream data) throws IOException {
+		byte[] bytes = new byte[data.readUnsignedShort()];
+		data.readFully(bytes);
+		DataInputStream header = new DataInputStream(new ByteArrayInputStream(bytes));
+		long timestamp = header.readLong();
+		int turnNumber = header.readByte();
+		boolean finished = (header.readByte() & FINISHED) != 0;
+		int turnsPlayed = SaveCodec.readVarInt(header);
+		int seats = header.readUnsignedByte();
+		String[] names = new String[seats];
+		BotPlayer.Strategy[] strategies = new BotPlayer.Strategy[seats];
+		int[] scores = new int[seats];
+		BotPlayer.Strategy[] known = BotPlayer.Strategy.values();
+		for (int seat = 0; seat < seats; seat++) {
+			names[seat] = header.readUTF();
+			int kind = header.readUnsignedByte();
+			if (kind > known.length) {
+				throw new StreamCorruptedException("Unknown bot strategy " + (kind - 1));
+			}
+			strategies[seat] = kind == HUMAN ? null : known[kind - 1];
+			scores[seat] = SaveCodec.readVarInt(header);
+		}
+		return new SaveHeader(timestamp, turnNumber, finished, turnsPlayed, names, strategies, scores);
+	}
+
+	/**
+	 * Reads the summary of a save file, only its first bytes are read when it has one.
+	 * @param file The save.
+	 * @return the summary of the save.
+	 * @throws IOException if the file is not a save or is damaged.
+	 */
+	public static SaveHeader read(Path file) throws IOException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 512)) {
+			in.mark(8);
+			DataInputStream data = new DataInputStream(in);
+			if (data.readInt() == SaveCodec.MAGIC) {
+				int version = data.readShort();
+				if (version > SaveCodec.VERSION) {
+					throw new InvalidObjectException("The save was written by a newer version (format " + version + ")");
+				}
+				return read(data);
+			}
+
+			// An old save has no summary, the whole game tells it
+			in.reset();
+			return of(SaveCodec.read(in), Files.getLastModifiedTime(file).toMillis());
+		}
+	}
+
+	/**
+	 * Returns when the save was made.
+	 * @return the time in milliseconds since 1970.
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Returns the turn the game was saved at.
+	 * @return the turn number.
+	 */
+	public int getTurnNumber() {
+		return turnNumber;
+	}
+
+	/**
+	 * Tells if the saved game is over.
+	 * @return true if the game is finished.
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Returns the number of turns started when the game was saved.
+	 * @return the number of turns played.
+	 */
+	public int getTurnsPlayed() {
+		return turnsPlayed;
+	}
+
+	/**
+	 * Returns the number of players of the saved game.
+	 * @return the number of seats.
+	 */
+	public int getPlayerCount() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the name of a player.
+	 * @param seat The seat of the player.
+	 * @return the name.
+	 */
+	public String getPlayerName(int seat) {
+		return names[seat];
+	}
+
+	/**
+	 * Returns the strategy of a player.
+	 * @param seat The seat of the player.
+	 * @return the strategy of a bot, or null for a human.
+	 */
+	public BotPlayer.Strategy getStrategy(int seat) {
+		return strategies[seat];
+	}
+
+	/**
+	 * Returns the score of a player when the game was saved.
+	 * @param seat The seat of the player.
+	 * @return the score.
+	 */
+	public int getScore(int seat) {
+		return scores[seat];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		text.append(TIME.format(Instant.ofEpochMilli(timestamp)));
+		text.append(finished ? "  finished" : "  turn " + turnNumber);
+		for (int seat = 0; seat < names.length; seat++) {
+			text.append(seat == 0 ? "  " : ", ").append(names[seat]);
+			text.append(" (").append(strategies[seat] == null ? "human" : strategies[seat]).append(") ");
+			text.append(scores[seat]);
+		}
+		return text.toString();
+	}
+}
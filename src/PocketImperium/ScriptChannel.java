@@ -0,0 +1,86 @@
+package PocketImperium;
+
+import java.util.Scanner;
+
+/**
+ * A channel whose answers come from a script held in memory, as if they had been typed on 
+ * the console, and whose messages are kept in memory or thrown away.
+ * <p>
+ * It lets a game be replayed from the recording of a {@link StreamChannel} at full speed, 
+ * and lets many games run in the same process without sharing the console. Reading past 
+ * the end of the script throws a {@link java.util.NoSuchElementException} instead of waiting.
+ * </p>
+ */
+public class ScriptChannel implements IOChannel {
+	private final Scanner scanner;
+	private final StringBuilder transcript; // null when the messages are thrown away
+
+	/**
+	 * Builds a channel answering from a script and throwing the messages away.
+	 * @param script The text to read the answers from, one line per line typed.
+	 */
+	public ScriptChannel(String script) {
+		this(script, false);
+	}
+
+	/**
+	 * Builds a channel answering from a script.
+	 * @param script The text to read the answers from, one line per line typed.
+	 * @param keepTranscript True to keep the messages so that they can be read with {@link #getTranscript()}.
+	 */
+	public ScriptChannel(String script, boolean keepTranscript) {
+		this.scanner = new Scanner(script);
+		this.transcript = keepTranscript ? new StringBuilder() : null;
+	}
+
+	/**
+	 * Returns a channel with nothing to read and that throws every message away, for games 
+	 * where only bots play.
+	 * @return an empty, silent channel.
+	 */
+	public static ScriptChannel silent() {
+		return new ScriptChannel("");
+	}
+
+	/**
+	 * Returns every message written to the channel.
+	 * @return the messages, or an empty string if they were not kept.
+	 */
+	public String getTranscript() {
+		return transcript == null ? "" : transcript.toString();
+	}
+
+	@Override
+	public void print(String text) {
+		if (transcript != null) {
+			transcript.append(text);
+		}
+	}
+
+	@Override
+	public void println(String text) {
+		if (transcript != null) {
+			transcript.append(text).append(System.lineSeparator());
+		}
+	}
+
+	@Override
+	public boolean hasNextInt() {
+		return scanner.hasNextInt();
+	}
+
+	@Override
+	public int nextInt() {
+		return scanner.nextInt();
+	}
+
+	@Override
+	public String next() {
+		return scanner.next();
+	}
+
+	@Override
+	public String nextLine() {
+		return scanner.nextLine();
+	}
+}
@@ -7,22 +7,26 @@ import java.util.*;
  * This class represents a sector in the map of Pocket Imperium. Section is represented
  * threw its specific sector ID, the hexes that compose it, as well as the Player who 
  * owns it (if there is one).
+ * <p>
+ * A Sector is a view over a {@link Board}, which holds its owner and the state of its hexes.
+ * </p>
  */
 public class Sector implements Serializable {
-	private int sectorID;
-	private List<Hex> section;
-	private Player owner;
+	private final Board board;
+	private final int sectorID;
+	private final List<Hex> section;
 	
 	/**
 	 * Builds a Sector object with the sector ID and list of hex that it contains.
 	 * 
+	 * @param board The board holding the state of the sector
 	 * @param sectorID An integer representing the Sectors ID
 	 * @param section A list of hexes to represent the hexes that it composes
 	 */
-	public Sector(int sectorID, List<Hex> section) {
+	public Sector(Board board, int sectorID, List<Hex> section) {
+		this.board = board;
 		this.sectorID = sectorID;
 		this.section = section;
-		this.owner = null; // Initially the sector doesn't have an owner
 	}
 	
 	/**
@@ -55,9 +59,17 @@ public class Sector implements Serializable {
 	 * Display all the available hexes that are free in the Sector
 	 */
 	public void availableSection() {
+		availableSection(StreamChannel.console());
+	}
+	
+	/**
+	 * Display all the available hexes that are free in the Sector on the given channel
+	 * @param out The channel the game is talking through
+	 */
+	public void availableSection(IOChannel out) {
 		for(int i = 0; i < section.size(); i++) {
 			if(this.section.get(i).fleetAvailablity() > 0) {
-				System.out.println("No." + i + " section is a system Level of " + 
+				out.println("No." + i + " section is a system Level of " + 
 						this.section.get(i).getSystemLevel() + ", and it has space");
 			}
 		}
@@ -78,19 +90,23 @@ public class Sector implements Serializable {
 	 * @return A boolean representing if the sector has an owner.
 	 */
 	public boolean hasOwner() {
-		if(this.owner == null) {
-			return false;
-		}
-		
-		return true;
+		return board.getSectorOwner(sectorID) != Board.NOBODY;
 	}
 	
 	/**
 	 * Displays to the screen that this sector is free, as well as its sector ID.
 	 */
 	public void displayFreeSector() {
+		displayFreeSector(StreamChannel.console());
+	}
+	
+	/**
+	 * Displays on the given channel that this sector is free, as well as its sector ID.
+	 * @param out The channel the game is talking through
+	 */
+	public void displayFreeSector(IOChannel out) {
 		if(!hasOwner()) {
-			System.out.println(this.getSectorID() + " sector is free");
+			out.println(this.getSectorID() + " sector is free");
 		}
 	}
 	
@@ -122,7 +138,7 @@ public class Sector implements Serializable {
 	 * Sets a player as the owner of the sector
 	 */
 	public void setOwner(Player player) {
-		this.owner = player;
+		board.setSectorOwner(sectorID, board.seatOf(player));
 	}
 
 	/**
@@ -130,8 +146,8 @@ public class Sector implements Serializable {
 	 * @return A string representing the player owners' name
 	 */
 	public String getOwnerName() {
-		if (this.owner != null) {
-			return this.owner.getName();
+		if (this.hasOwner()) {
+			return this.getOwner().getName();
 		}
 		return null; // Si le secteur n'a pas de propriétaire
 	}
@@ -152,7 +168,7 @@ public class Sector implements Serializable {
      * @return A player who is the owner of this sector
      */
 	public Player getOwner() {
-        return this.owner;
+        return board.getPlayer(board.getSectorOwner(sectorID));
     }
 
 	/**
@@ -165,9 +181,10 @@ public class Sector implements Serializable {
     /**
      * Returns any random hex with a specified level from the Sector.
      * @param level An integer representing the system level we want.
+     * @param random The random numbers of the choice.
      * @return A random random with the specified level.
      */
-	public int getRandomHexWithLevel(int level) {
+	public int getRandomHexWithLevel(int level, SplittableRandom random) {
 		List<Hex> availableHexes = new ArrayList<>();
 	
 		// Filtrer les hexagones disponibles avec le niveau spécifié
@@ -179,7 +196,6 @@ public class Sector implements Serializable {
 	
 		// Choisir un hexagone aléatoire parmi les hexagones disponibles
 		if (!availableHexes.isEmpty()) {
-			Random random = new Random();
 			Hex chosenHex = availableHexes.get(random.nextInt(availableHexes.size()));
 			return this.section.indexOf(chosenHex); // Retourne l'indice de l'hexagone choisi
 		}
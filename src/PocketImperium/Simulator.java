@@ -0,0 +1,207 @@
+package PocketImperium;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays turns of Pocket Imperium on a scratch {@link Board}, without players, console or 
+ * pauses, for the bots that look ahead.
+ * <p>
+ * The rules follow the game as bots play it, the moves are listed by the {@link MoveGenerator} 
+ * as packed integers, so that listing and playing them does not allocate.
+ * </p>
+ * <p>
+ * Playouts mostly play the move of the {@link GreedyPolicy}, and a random legal move once 
+ * in {@link #RANDOM_MOVE_ODDS}, so that they stay close to real play without all being alike.
+ * </p>
+ */
+final class Simulator {
+	private static final int EXPAND = 0;
+	private static final int EXPLORE = 1;
+	private static final int EXTERMINATE = 2;
+	private static final int RANDOM_MOVE_ODDS = 4;
+
+	private final Board board;
+	private final int seats;
+	private final SplittableRandom random;
+	private final TurnOrder order = new TurnOrder();
+	private final int[] plans;
+	private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+	private final GreedyPolicy greedy = new GreedyPolicy();
+
+	/**
+	 * Builds a simulator playing on a copy of a board.
+	 * @param board The board to copy.
+	 * @param random The source of randomness of the playouts.
+	 */
+	Simulator(Board board, SplittableRandom random) {
+		this.board = board.copy();
+		this.seats = board.getSeatCount();
+		this.random = random;
+		this.plans = new int[seats];
+	}
+
+	/**
+	 * Returns the scratch board the simulator plays on.
+	 * @return the board of the simulator.
+	 */
+	Board getBoard() {
+		return board;
+	}
+
+	/**
+	 * Puts the scratch board back in the state of another board.
+	 * @param root The board to copy.
+	 */
+	void reset(Board root) {
+		board.copyFrom(root);
+	}
+
+	/**
+	 * Plays a move on the scratch board.
+	 * @param seat The seat of the player.
+	 * @param move The packed move, see {@link MoveGenerator}.
+	 */
+	void play(int seat, int move) {
+		play(board, seat, move);
+	}
+
+	/**
+	 * Plays a move on any board, without recording it.
+	 * @param board The board.
+	 * @param seat The seat of the player.
+	 * @param move The packed move, see {@link MoveGenerator}.
+	 */
+	static void play(Board board, int seat, int move) {
+		int target = MoveGenerator.target(move);
+		int ships = MoveGenerator.ships(move);
+		switch (MoveGenerator.command(move)) {
+		case EXPAND:
+			board.addFleet(target, ships);
+			break;
+		case EXPLORE:
+			board.addFleet(MoveGenerator.source(move), -ships);
+			board.addFleet(target, ships);
+			board.setOwner(target, seat);
+			break;
+		case EXTERMINATE:
+			board.addFleet(MoveGenerator.source(move), -ships);
+			board.attack(target, ships, seat);
+			break;
+		}
+	}
+
+	/**
+	 * Plays the move of a playout, or nothing if the player has no legal move.
+	 */
+	private void playPolicy(int seat, int command, int power) {
+		if (random.nextInt(RANDOM_MOVE_ODDS) != 0) {
+			int move = greedy.choose(board, seat, command, power);
+			if (move != GreedyPolicy.NO_MOVE) {
+				play(seat, move);
+			}
+			return;
+		}
+		int count = MoveGenerator.generate(board, seat, command, power, moves);
+		if (count > 0) {
+			play(seat, moves[random.nextInt(count)]);
+		}
+	}
+
+	/**
+	 * Plays the steps of a turn from a given step to the end, with the moves of the playouts.
+	 * @param turn The order of the turn.
+	 * @param from The first step to play.
+	 */
+	void playSteps(TurnOrder turn, int from) {
+		for (int i = from; i < turn.length; i++) {
+			playPolicy(turn.seat[i], turn.command[i], turn.power[i]);
+		}
+	}
+
+	/**
+	 * Plays a whole turn with the given plans and the moves of the playouts.
+	 * @param turnPlans The plan of each seat.
+	 */
+	void playTurn(int[] turnPlans) {
+		order.resolve(turnPlans, seats);
+		playSteps(order, 0);
+	}
+
+	/**
+	 * Plays a whole turn with the given plans and the moves of the {@link GreedyPolicy} only, 
+	 * so that the same plans always give the same board.
+	 * @param turnPlans The plan of each seat.
+	 */
+	void playGreedyTurn(int[] turnPlans) {
+		order.resolve(turnPlans, seats);
+		for (int i = 0; i < order.length; i++) {
+			int move = greedy.choose(board, order.seat[i], order.command[i], order.power[i]);
+			if (move != GreedyPolicy.NO_MOVE) {
+				play(order.seat[i], move);
+			}
+		}
+	}
+
+	/**
+	 * Plays random turns until the end of the game.
+	 * @param fromTurn The number of the first turn to play.
+	 */
+	void playUntilEnd(int fromTurn) {
+		for (int turn = fromTurn; turn <= Game.LAST_TURN; turn++) {
+			for (int seat = 0; seat < seats; seat++) {
+				plans[seat] = randomPlan();
+			}
+			playTurn(plans);
+		}
+	}
+
+	/**
+	 * Draws a plan a player could choose, as an opponent model predicts it.
+	 * @param model The model, or null to draw any plan alike.
+	 * @param seat The seat of the player.
+	 * @return a plan from 0 to 26.
+	 */
+	int modelPlan(OpponentModel model, int seat) {
+		return model == null ? randomPlan() : model.drawPlan(seat, random);
+	}
+
+	/**
+	 * Draws a plan at random.
+	 * @return a plan from 0 to 26.
+	 */
+	int randomPlan() {
+		return random.nextInt(TurnOrder.PLAN_COUNT);
+	}
+
+	/**
+	 * Estimates how well a player is doing: the score of his sectors plus the level of every 
+	 * system he controls, since the score alone does not change once the sectors are taken.
+	 * @param seat The seat of the player.
+	 * @return the value of the position for the player.
+	 */
+	int value(int seat) {
+		return board.getScore(seat) + board.getControlledLevel(seat);
+	}
+
+	/**
+	 * Returns the share of the win of a player in the current position.
+	 * @param seat The seat of the player.
+	 * @return 1 if he is ahead of everybody, 0 if someone is ahead of him, a share if he is tied.
+	 */
+	double reward(int seat) {
+		int mine = value(seat);
+		int tied = 1;
+		for (int other = 0; other < seats; other++) {
+			if (other != seat) {
+				int theirs = value(other);
+				if (theirs > mine) {
+					return 0;
+				}
+				if (theirs == mine) {
+					tied++;
+				}
+			}
+		}
+		return 1.0 / tied;
+	}
+}
@@ -0,0 +1,355 @@
+package PocketImperium;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Snapshots of a game at the start of every turn, stored as a chain of small deltas.
+ * <p>
+ * Every few turns the whole game is written with {@link SaveCodec}, which makes a keyframe.
+ * The other turns only write what changed since the turn before: the fields of the board,
+ * given by their slot as in {@link Board#getSlot(int)}, and the ships, points and plan of the
+ * players. A turn is loaded from the keyframe before it and the few deltas after the keyframe.
+ * </p>
+ * <pre>
+ * int magic 'PIMS', short version, then for each frame:
+ * byte kind (1 = keyframe, 2 = delta), byte turn number, int length of the frame, then
+ *   a keyframe: a save of the game,
+ *   a delta:    varint turns played, byte flags (1 = finished),
+ *               varint number of slots, then byte slot and varint value for each,
+ *               byte number of players, then byte seat, varint ships in hand, varint points
+ *               and byte plan for each
+ * </pre>
+ *
+ * @see Game#setSnapshots(SnapshotChain)
+ */
+public class SnapshotChain implements Closeable {
+	/** Frames between two keyframes when nothing else is set. */
+	public static final int DEFAULT_KEYFRAME_INTERVAL = 4;
+	private static final int MAGIC = 0x50494D53; // "PIMS"
+	private static final short VERSION = 1;
+	private static final int FILE_HEADER = 6;
+	private static final int FRAME_HEADER = 6;
+	private static final byte KEYFRAME = 1;
+	private static final byte DELTA = 2;
+	private static final int FINISHED = 1;
+
+	private final FileChannel channel;
+	private final int keyframeInterval;
+	private final ByteArrayOutputStream frame = new ByteArrayOutputStream(256);
+	private final DataOutputStream data = new DataOutputStream(frame);
+	private final int[] slots = new int[Board.SLOT_COUNT]; // Board at the last frame
+	private int[] hands = new int[0]; // Ships, points and plan of each seat at the last frame
+	private int frames;
+	private long lastBytes;
+	private long totalBytes;
+
+	/**
+	 * Starts a chain with a keyframe every {@link #DEFAULT_KEYFRAME_INTERVAL} frames.
+	 * @param filename The file of the chain, it is replaced.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public SnapshotChain(String filename) throws IOException {
+		this(filename, DEFAULT_KEYFRAME_INTERVAL);
+	}
+
+	/**
+	 * Starts a chain.
+	 * @param filename The file of the chain, it is replaced.
+	 * @param keyframeInterval The number of frames between two keyframes, 1 writes only keyframes.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public SnapshotChain(String filename, int keyframeInterval) throws IOException {
+		if (keyframeInterval < 1) {
+			throw new IllegalArgumentException("keyframeInterval must be positive");
+		}
+		this.keyframeInterval = keyframeInterval;
+		this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).putShort(VERSION);
+		header.flip();
+		write(header);
+	}
+
+	/**
+	 * Adds a snapshot of the game to the chain.
+	 * @param game The game, at the start of a turn.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void record(Game game) throws IOException {
+		Board board = game.getBoard();
+		List<Player> players = game.getPlayers();
+		frame.reset();
+		byte kind;
+		if (frames % keyframeInterval == 0 || hands.length != players.size() * 3) {
+			kind = KEYFRAME;
+			SaveCodec.write(game, data);
+			for (int slot = 0; slot < Board.SLOT_COUNT; slot++) {
+				slots[slot] = board.getSlot(slot);
+			}
+			hands = new int[players.size() * 3];
+			for (int seat = 0; seat < players.size(); seat++) {
+				handOf(players.get(seat), seat);
+			}
+		} else {
+			kind = DELTA;
+			SaveCodec.writeVarInt(data, game.getTurnsPlayed());
+			data.writeByte(game.isFinished() ? FINISHED : 0);
+
+			// Only the fields that changed since the last frame
+			int changed = 0;
+			for (int slot = 0; slot < Board.SLOT_COUNT; slot++) {
+				if (board.getSlot(slot) != slots[slot]) {
+					changed++;
+				}
+			}
+			SaveCodec.writeVarInt(data, changed);
+			for (int slot = 0; slot < Board.SLOT_COUNT; slot++) {
+				int value = board.getSlot(slot);
+				if (value != slots[slot]) {
+					data.writeByte(slot);
+					SaveCodec.writeVarInt(data, value);
+					slots[slot] = value;
+				}
+			}
+
+			int moved = 0;
+			for (int seat = 0; seat < players.size(); seat++) {
+				if (!sameHand(players.get(seat), seat)) {
+					moved++;
+				}
+			}
+			data.writeByte(moved);
+			for (int seat = 0; seat < players.size(); seat++) {
+				Player player = players.get(seat);
+				if (!sameHand(player, seat)) {
+					handOf(player, seat);
+					data.writeByte(seat);
+					SaveCodec.writeVarInt(data, player.getRemainingShips());
+					SaveCodec.writeVarInt(data, player.getPoints());
+					data.writeByte(SaveCodec.packPlan(player.getPlanList()));
+				}
+			}
+		}
+		data.flush();
+
+		ByteBuffer out = ByteBuffer.allocate(FRAME_HEADER + frame.size());
+		out.put(kind).put((byte) game.getTurnNumber()).putInt(frame.size()).put(frame.toByteArray());
+		out.flip();
+		write(out);
+		frames++;
+		lastBytes = out.limit();
+		totalBytes += lastBytes;
+	}
+
+	private boolean sameHand(Player player, int seat) {
+		return hands[seat * 3] == player.getRemainingShips() && hands[seat * 3 + 1] == player.getPoints()
+				&& hands[seat * 3 + 2] == SaveCodec.packPlan(player.getPlanList());
+	}
+
+	private void handOf(Player player, int seat) {
+		hands[seat * 3] = player.getRemainingShips();
+		hands[seat * 3 + 1] = player.getPoints();
+		hands[seat * 3 + 2] = SaveCodec.packPlan(player.getPlanList());
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Returns the number of snapshots in the chain.
+	 * @return the number of frames.
+	 */
+	public int getFrameCount() {
+		return frames;
+	}
+
+	/**
+	 * Returns the size of the last frame written.
+	 * @return the number of bytes, header included.
+	 */
+	public long getLastBytes() {
+		return lastBytes;
+	}
+
+	/**
+	 * Returns the size of the chain.
+	 * @return the number of bytes written.
+	 */
+	public long getTotalBytes() {
+		return totalBytes + FILE_HEADER;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.force(false);
+		channel.close();
+	}
+
+	/**
+	 * Reads the snapshots of a chain. Opening it only reads the headers of the frames,
+	 * loading a snapshot reads its keyframe and the deltas up to it.
+	 */
+	public static class Reader implements Closeable {
+		private final FileChannel channel;
+		private long[] offsets = new long[16]; // Start of the content of each frame
+		private int[] lengths = new int[16];
+		private byte[] kinds = new byte[16];
+		private byte[] turns = new byte[16];
+		private int frames;
+
+		/**
+		 * Opens a chain.
+		 * @param filename The file of the chain.
+		 * @throws IOException if the file cannot be read or is not a chain.
+		 */
+		public Reader(String filename) throws IOException {
+			channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+			ByteBuffer header = ByteBuffer.allocate(Math.max(FILE_HEADER, FRAME_HEADER));
+			header.limit(FILE_HEADER);
+			if (channel.read(header, 0) < FILE_HEADER || header.getInt(0) != MAGIC) {
+				channel.close();
+				throw new StreamCorruptedException("Not a Pocket Imperium snapshot chain");
+			}
+			if (header.getShort(4) > VERSION) {
+				channel.close();
+				throw new InvalidObjectException("The chain was written by a newer version");
+			}
+
+			// Index the frames, a frame cut short at the end is left out
+			long position = FILE_HEADER;
+			long size = channel.size();
+			while (position + FRAME_HEADER <= size) {
+				header.clear().limit(FRAME_HEADER);
+				channel.read(header, position);
+				int length = header.getInt(2);
+				if (position + FRAME_HEADER + length > size) {
+					break;
+				}
+				if (frames == offsets.length) {
+					offsets = Arrays.copyOf(offsets, frames * 2);
+					lengths = Arrays.copyOf(lengths, frames * 2);
+					kinds = Arrays.copyOf(kinds, frames * 2);
+					turns = Arrays.copyOf(turns, frames * 2);
+				}
+				kinds[frames] = header.get(0);
+				turns[frames] = header.get(1);
+				offsets[frames] = position + FRAME_HEADER;
+				lengths[frames] = length;
+				frames++;
+				position += FRAME_HEADER + length;
+			}
+			if (frames > 0 && kinds[0] != KEYFRAME) {
+				channel.close();
+				throw new StreamCorruptedException("The chain does not start with a keyframe");
+			}
+		}
+
+		/**
+		 * Returns the number of snapshots in the chain.
+		 * @return the number of frames.
+		 */
+		public int getFrameCount() {
+			return frames;
+		}
+
+		/**
+		 * Returns the turn a snapshot was taken at.
+		 * @param frame The index of the snapshot.
+		 * @return the turn number.
+		 */
+		public int getTurnNumber(int frame) {
+			return turns[check(frame)];
+		}
+
+		/**
+		 * Tells if a snapshot is a keyframe, holding the whole game.
+		 * @param frame The index of the snapshot.
+		 * @return true for a keyframe, false for a delta.
+		 */
+		public boolean isKeyframe(int frame) {
+			return kinds[check(frame)] == KEYFRAME;
+		}
+
+		private int check(int frame) {
+			if (frame < 0 || frame >= frames) {
+				throw new IndexOutOfBoundsException("No frame " + frame + " in a chain of " + frames);
+			}
+			return frame;
+		}
+
+		/**
+		 * Rebuilds the game as it was at a snapshot.
+		 * @param frame The index of the snapshot.
+		 * @return the game, ready to play the turn it was taken at.
+		 * @throws IOException if the chain is damaged.
+		 */
+		public Game load(int frame) throws IOException {
+			int key = check(frame);
+			while (kinds[key] != KEYFRAME) {
+				key--;
+			}
+			Game game = SaveCodec.fromBytes(content(key));
+			Board board = game.getBoard();
+			List<Player> players = game.getPlayers();
+			for (int delta = key + 1; delta <= frame; delta++) {
+				if (kinds[delta] != DELTA) {
+					throw new StreamCorruptedException("Unknown frame " + kinds[delta]);
+				}
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(content(delta)));
+				int turnsPlayed = SaveCodec.readVarInt(in);
+				boolean finished = (in.readUnsignedByte() & FINISHED) != 0;
+				game.restoreProgress(turns[delta], finished, turnsPlayed);
+				for (int changed = SaveCodec.readVarInt(in); changed > 0; changed--) {
+					int slot = in.readUnsignedByte();
+					if (slot >= Board.SLOT_COUNT) {
+						throw new StreamCorruptedException("Unknown slot " + slot);
+					}
+					board.setSlot(slot, SaveCodec.readVarInt(in));
+				}
+				for (int moved = in.readUnsignedByte(); moved > 0; moved--) {
+					int seat = in.readUnsignedByte();
+					if (seat >= players.size()) {
+						throw new StreamCorruptedException("Unknown seat " + seat);
+					}
+					Player player = players.get(seat);
+					player.restoreHand(SaveCodec.readVarInt(in), SaveCodec.readVarInt(in));
+					List<CommandCard> plan = player.getPlanList();
+					plan.clear();
+					SaveCodec.unpackPlan(in.readUnsignedByte(), plan);
+				}
+			}
+			return game;
+		}
+
+		private byte[] content(int frame) throws IOException {
+			ByteBuffer content = ByteBuffer.allocate(lengths[frame]);
+			while (content.hasRemaining()) {
+				if (channel.read(content, offsets[frame] + content.position()) < 0) {
+					throw new StreamCorruptedException("The chain is cut short");
+				}
+			}
+			return content.array();
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
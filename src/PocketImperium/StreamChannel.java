@@ -0,0 +1,117 @@
+package PocketImperium;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Scanner;
+
+/**
+ * A channel reading the answers from an input stream and writing the messages to an output 
+ * stream, such as the console, a pipe or a socket.
+ * <p>
+ * A single {@link Scanner} is kept for the whole life of the channel, so nothing typed ahead 
+ * is lost between two prompts. Everything that is read can also be copied to a recording, 
+ * which can later be given to a {@link ScriptChannel} to replay the same decisions.
+ * </p>
+ */
+public class StreamChannel implements IOChannel {
+	private static StreamChannel console;
+
+	private final Scanner scanner;
+	private final PrintStream out;
+
+	/**
+	 * Builds a channel over an input and an output stream.
+	 * @param in The stream the answers come from.
+	 * @param out The stream the messages go to.
+	 */
+	public StreamChannel(InputStream in, OutputStream out) {
+		this(in, out, null);
+	}
+
+	/**
+	 * Builds a channel over an input and an output stream that records every answer it reads.
+	 * @param in The stream the answers come from.
+	 * @param out The stream the messages go to.
+	 * @param recording The stream receiving a copy of the answers, or null to record nothing.
+	 */
+	public StreamChannel(InputStream in, OutputStream out, OutputStream recording) {
+		this.scanner = new Scanner(recording == null ? in : new Tee(in, recording));
+		this.out = out instanceof PrintStream ? (PrintStream) out : new PrintStream(out, true);
+	}
+
+	/**
+	 * Returns the channel of the console, shared by everyone playing on this terminal.
+	 * @return the channel reading {@code System.in} and writing to {@code System.out}.
+	 */
+	public static synchronized StreamChannel console() {
+		if (console == null) {
+			console = new StreamChannel(System.in, System.out);
+		}
+		return console;
+	}
+
+	@Override
+	public void print(String text) {
+		out.print(text);
+	}
+
+	@Override
+	public void println(String text) {
+		out.println(text);
+	}
+
+	@Override
+	public boolean hasNextInt() {
+		return scanner.hasNextInt();
+	}
+
+	@Override
+	public int nextInt() {
+		return scanner.nextInt();
+	}
+
+	@Override
+	public String next() {
+		return scanner.next();
+	}
+
+	@Override
+	public String nextLine() {
+		return scanner.nextLine();
+	}
+
+	/**
+	 * Copies everything read from a stream to another one.
+	 */
+	private static class Tee extends FilterInputStream {
+		private final OutputStream copy;
+
+		Tee(InputStream in, OutputStream copy) {
+			super(in);
+			this.copy = copy;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				copy.write(b);
+				copy.flush();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int count = super.read(buffer, offset, length);
+			if (count > 0) {
+				copy.write(buffer, offset, count);
+				copy.flush();
+			}
+			return count;
+		}
+	}
+}
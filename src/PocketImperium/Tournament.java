@@ -0,0 +1,434 @@
+package PocketImperium;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays a round-robin tournament between bot strategies using all the cores of the machine.
+ * <p>
+ * Every ordered choice of strategies for the seats of a game (a lineup) is played the same
+ * number of times, once for each game seed, so that no strategy profits from its seat or its
+ * color: every lineup plays on the same maps, and the whole tournament follows from one seed.
+ * Games are headless and fully independent, so they are split over a work-stealing
+ * {@link ForkJoinPool} and each worker keeps its own statistics until the results are merged.
+ * </p>
+ * <p>
+ * The score of a player only comes from the sectors he takes at setup, so the win rates and 
+ * the mean scores follow from the seats and the maps, not from how the strategies play: 
+ * every strategy gets the same ones. What a strategy changes by its play is the level of the 
+ * systems it controls at the end of the game, which the report gives as the mean level.
+ * </p>
+ *
+ * @see Game#simulate(BotPlayer.Strategy...)
+ */
+public class Tournament {
+	private static final int GAMES_PER_TASK = 32; // Below this a task plays its games instead of splitting
+	private static final String[] COLORS = {"Red", "Green", "Blue"};
+
+	private final BotPlayer.Strategy[] strategies;
+	private final int[][] lineups; // Index of the strategy sitting at each seat
+	private final int seeds;
+	private final int parallelism;
+	private GameArchive archive; // Receives every game when set
+	private long seed; // The seeds of the games follow from it
+
+	/**
+	 * Builds a tournament between the given strategies.
+	 * @param strategies The strategies taking part, a game seats up to 3 of them.
+	 * @param seeds The number of maps every lineup is played on.
+	 * @param parallelism The number of worker threads.
+	 */
+	public Tournament(List<BotPlayer.Strategy> strategies, int seeds, int parallelism) {
+		if (strategies.isEmpty()) {
+			throw new IllegalArgumentException("A tournament needs at least one strategy");
+		}
+		if (seeds < 1 || parallelism < 1) {
+			throw new IllegalArgumentException("seeds and parallelism must be positive");
+		}
+		this.strategies = strategies.toArray(new BotPlayer.Strategy[0]);
+		this.lineups = lineups(this.strategies.length, Math.min(3, this.strategies.length));
+		this.seeds = seeds;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Lists every ordered choice of {@code seats} different strategies among {@code count}.
+	 * @param count The number of strategies.
+	 * @param seats The number of seats in a game.
+	 * @return an array with one lineup per row.
+	 */
+	private static int[][] lineups(int count, int seats) {
+		List<int[]> lineups = new ArrayList<>();
+		permute(new int[seats], 0, new boolean[count], lineups);
+		return lineups.toArray(new int[0][]);
+	}
+
+	private static void permute(int[] lineup, int seat, boolean[] used, List<int[]> lineups) {
+		if (seat == lineup.length) {
+			lineups.add(lineup.clone());
+			return;
+		}
+		for (int i = 0; i < used.length; i++) {
+			if (!used[i]) {
+				used[i] = true;
+				lineup[seat] = i;
+				permute(lineup, seat + 1, used, lineups);
+				used[i] = false;
+			}
+		}
+	}
+
+	/**
+	 * Adds the record of every game played to an archive.
+	 * @param archive The archive, or null.
+	 */
+	public void setArchive(GameArchive archive) {
+		this.archive = archive;
+	}
+
+	/**
+	 * Sets the seed the seeds of the games follow from, 0 by default.
+	 * @param seed The seed of the tournament.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the number of games the tournament will play.
+	 * @return the number of lineups times the number of seeds.
+	 */
+	public int getGameCount() {
+		return lineups.length * seeds;
+	}
+
+	/**
+	 * Plays every game of the tournament.
+	 * @return the statistics of each strategy, in total and by seat.
+	 */
+	public Report run() {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			long start = System.nanoTime();
+			Stats stats = pool.invoke(new Games(0, getGameCount()));
+			return new Report(stats, System.nanoTime() - start);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Plays one game of the tournament and adds its result to the statistics.
+	 * @param game The number of the game, it gives the lineup and the seed.
+	 * @param stats The statistics of the worker playing the game.
+	 */
+	private void play(int game, Stats stats) {
+		int[] lineup = lineups[game / seeds];
+		BotPlayer.Strategy[] seated = new BotPlayer.Strategy[lineup.length];
+		for (int seat = 0; seat < lineup.length; seat++) {
+			seated[seat] = strategies[lineup[seat]];
+		}
+
+		GameResult result;
+		try {
+			result = Game.simulate(Game.streamSeed(seed, game % seeds), archive, seated);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Tournament interrupted", e);
+		}
+
+		// Players sharing the best score share the win
+		int best = result.getScore(result.getWinnerIndex());
+		int winners = 0;
+		for (int seat = 0; seat < lineup.length; seat++) {
+			if (result.getScore(seat) == best) {
+				winners++;
+			}
+		}
+		for (int seat = 0; seat < lineup.length; seat++) {
+			double win = result.getScore(seat) == best ? 1.0 / winners : 0;
+			stats.add(lineup[seat], seat, win, result.getScore(seat), result.getControlledLevel(seat));
+		}
+		stats.games++;
+	}
+
+	/**
+	 * Plays a range of games, splitting it in two while it is large enough to share.
+	 */
+	private class Games extends RecursiveTask<Stats> {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+
+		Games(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Stats compute() {
+			if (to - from <= GAMES_PER_TASK) {
+				Stats stats = new Stats(strategies.length);
+				for (int game = from; game < to; game++) {
+					play(game, stats);
+				}
+				return stats;
+			}
+			int middle = (from + to) >>> 1;
+			Games left = new Games(from, middle);
+			left.fork();
+			Stats right = new Games(middle, to).compute();
+			return left.join().merge(right);
+		}
+	}
+
+	/**
+	 * Running sums for one strategy, in total or at one seat.
+	 */
+	private static class Tally {
+		long games;
+		double wins;
+		long score;
+		long squaredScore;
+		long level;
+		long squaredLevel;
+
+		void add(double win, int points, int levels) {
+			games++;
+			wins += win;
+			score += points;
+			squaredScore += (long) points * points;
+			level += levels;
+			squaredLevel += (long) levels * levels;
+		}
+
+		void merge(Tally other) {
+			games += other.games;
+			wins += other.wins;
+			score += other.score;
+			squaredScore += other.squaredScore;
+			level += other.level;
+			squaredLevel += other.squaredLevel;
+		}
+
+		double winRate() {
+			return games == 0 ? 0 : wins / games;
+		}
+
+		/**
+		 * Half width of the 95% Wilson interval around the win rate.
+		 */
+		double winRateMargin() {
+			if (games == 0) {
+				return 0;
+			}
+			double z = 1.96;
+			double p = winRate();
+			return z * Math.sqrt(p * (1 - p) / games + z * z / (4.0 * games * games)) / (1 + z * z / games);
+		}
+
+		double meanScore() {
+			return games == 0 ? 0 : (double) score / games;
+		}
+
+		double meanLevel() {
+			return games == 0 ? 0 : (double) level / games;
+		}
+
+		/**
+		 * Half width of the 95% normal interval around a mean.
+		 */
+		double meanMargin(long sum, long squaredSum) {
+			if (games < 2) {
+				return 0;
+			}
+			double mean = (double) sum / games;
+			double variance = Math.max(0, ((double) squaredSum - games * mean * mean) / (games - 1));
+			return 1.96 * Math.sqrt(variance / games);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("games %7d  win rate %5.1f%% +/- %4.1f%%  mean score %6.2f +/- %.2f  mean level %6.2f +/- %.2f",
+					games, 100 * winRate(), 100 * winRateMargin(), meanScore(), meanMargin(score, squaredScore),
+					meanLevel(), meanMargin(level, squaredLevel));
+		}
+	}
+
+	/**
+	 * Statistics gathered by one worker, by strategy and by seat.
+	 */
+	private static class Stats {
+		final Tally[] total;
+		final Tally[][] bySeat;
+		long games;
+
+		Stats(int strategies) {
+			total = new Tally[strategies];
+			bySeat = new Tally[strategies][COLORS.length];
+			for (int i = 0; i < strategies; i++) {
+				total[i] = new Tally();
+				for (int seat = 0; seat < COLORS.length; seat++) {
+					bySeat[i][seat] = new Tally();
+				}
+			}
+		}
+
+		void add(int strategy, int seat, double win, int score, int level) {
+			total[strategy].add(win, score, level);
+			bySeat[strategy][seat].add(win, score, level);
+		}
+
+		Stats merge(Stats other) {
+			for (int i = 0; i < total.length; i++) {
+				total[i].merge(other.total[i]);
+				for (int seat = 0; seat < COLORS.length; seat++) {
+					bySeat[i][seat].merge(other.bySeat[i][seat]);
+				}
+			}
+			games += other.games;
+			return this;
+		}
+	}
+
+	/**
+	 * Outcome of a tournament.
+	 */
+	public class Report {
+		private final Stats stats;
+		private final long nanos;
+
+		private Report(Stats stats, long nanos) {
+			this.stats = stats;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * Returns the number of games played.
+		 * @return the number of games played.
+		 */
+		public long getGames() {
+			return stats.games;
+		}
+
+		/**
+		 * Returns how many games were played per second of wall clock.
+		 * @return the throughput of the tournament.
+		 */
+		public double getGamesPerSecond() {
+			return stats.games / (nanos / 1e9);
+		}
+
+		/**
+		 * Returns the share of the games won by a strategy, ties being shared.
+		 * @param strategy The index of the strategy in the list given to the tournament.
+		 * @return a number between 0 and 1.
+		 */
+		public double getWinRate(int strategy) {
+			return stats.total[strategy].winRate();
+		}
+
+		/**
+		 * Returns the mean final score of a strategy.
+		 * @param strategy The index of the strategy in the list given to the tournament.
+		 * @return the mean score over all the games it played.
+		 */
+		public double getMeanScore(int strategy) {
+			return stats.total[strategy].meanScore();
+		}
+
+		/**
+		 * Returns the mean level of the systems a strategy controls at the end of its games.
+		 * @param strategy The index of the strategy in the list given to the tournament.
+		 * @return the mean controlled level over all the games it played.
+		 */
+		public double getMeanLevel(int strategy) {
+			return stats.total[strategy].meanLevel();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder();
+			text.append(String.format("%d games in %.3f s: %.1f games/s with %d threads (%.1f games/s per thread)%n",
+					stats.games, nanos / 1e9, getGamesPerSecond(), parallelism, getGamesPerSecond() / parallelism));
+			for (int i = 0; i < strategies.length; i++) {
+				text.append(String.format("%-10s %s%n", strategies[i], stats.total[i]));
+				for (int seat = 0; seat < COLORS.length; seat++) {
+					if (stats.bySeat[i][seat].games > 0) {
+						text.append(String.format("  seat %d %-5s %s%n", seat + 1, COLORS[seat], stats.bySeat[i][seat]));
+					}
+				}
+			}
+			return text.toString();
+		}
+	}
+
+	/**
+	 * Runs a tournament from the command line.
+	 * <p>
+	 * Usage: {@code [--seeds N] [--threads N] [--seed N] [--archive FILE] [--table-mb N] [strategy...]},
+	 * by default every strategy plays with 100 seeds per lineup on all the available cores.
+	 * </p>
+	 * <p>
+	 * The strategies that search against the clock (see {@link BotPlayer.Strategy#isTimed()}) only
+	 * play when named: their searches share one pool of threads between all the games played at
+	 * once, so their time budgets measure the wait for a thread as much as the search.
+	 * </p>
+	 * @param args The command line arguments.
+	 * @throws IOException if the archive cannot be written.
+	 */
+	public static void main(String[] args) throws IOException {
+		int seeds = 100;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String archive = null;
+		long seed = 0;
+		List<BotPlayer.Strategy> strategies = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--seeds":
+				seeds = Integer.parseInt(args[++i]);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "--seed":
+				seed = Long.parseLong(args[++i]);
+				break;
+			case "--archive":
+				archive = args[++i];
+				break;
+			case "--table-mb":
+				EndgameSolver.setTableSize(Integer.parseInt(args[++i]));
+				break;
+			default:
+				strategies.add(BotPlayer.Strategy.valueOf(args[i].toUpperCase()));
+			}
+		}
+		if (strategies.isEmpty()) {
+			for (BotPlayer.Strategy strategy : BotPlayer.Strategy.values()) {
+				if (!strategy.isTimed()) {
+					strategies.add(strategy);
+				}
+			}
+		}
+
+		Tournament tournament = new Tournament(strategies, seeds, threads);
+		tournament.setSeed(seed);
+		System.out.println("Playing " + tournament.getGameCount() + " games between " + strategies + "...");
+		if (archive == null) {
+			System.out.print(tournament.run());
+		} else {
+			try (GameArchive games = GameArchive.open(archive)) {
+				tournament.setArchive(games);
+				System.out.print(tournament.run());
+				System.out.println(games.size() + " games in the archive " + archive);
+			}
+		}
+		if (strategies.contains(BotPlayer.Strategy.MCTS) || strategies.contains(BotPlayer.Strategy.PLANNER)) {
+			System.out.println("Transposition table: " + EndgameSolver.getTable());
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package PocketImperium;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size table of the positions a search has already evaluated, shared by the threads
+ * of the search without locks.
+ * <p>
+ * Positions are found by their Zobrist hash ({@link Game#getPositionHash()} or
+ * {@link Board#getHash()} combined with what else the search tells apart). An entry packs in
+ * a single {@code long} the evaluation of the position, the depth it was searched to, the best
+ * move found and the generation of the search that stored it. Entries are kept in buckets of
+ * {@link #BUCKET_SIZE}: a new entry replaces the same position, an empty slot, or else the
+ * entry of the bucket searched the least deep, entries of older searches going first. The
+ * table never grows.
+ * </p>
+ * <p>
+ * Each slot is two {@code long}s: the entry, and the hash xored with the entry. Threads write
+ * them without locks, and a reader only accepts an entry whose xor gives back the hash it looks
+ * for, so an entry torn by two threads writing at once is seen as missing rather than wrong.
+ * </p>
+ * <pre>
+ * bits 63-32 evaluation, 31-16 best move, 15-8 depth, 7-0 generation (never 0 in a used slot)
+ * </pre>
+ */
+public final class TranspositionTable {
+	/** Entries in a bucket, a position can only be stored in its bucket. */
+	public static final int BUCKET_SIZE = 4;
+	/** Returned by {@link #probe(long)} for a position not in the table. */
+	public static final long MISS = 0;
+	private static final int SLOT_BYTES = 16;
+	private static final int MAX_DEPTH = 255;
+	private static final int AGE_WEIGHT = 8; // Depth an entry loses for each search it is older
+
+	private final long[] checks; // Hash ^ entry of each slot
+	private final long[] entries;
+	private final int bucketMask;
+	private volatile int generation = 1;
+	private final LongAdder probes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder stores = new LongAdder();
+	private final LongAdder replacements = new LongAdder();
+
+	/**
+	 * Builds an empty table.
+	 * @param megabytes The memory the table may use, it is rounded down to a power of two buckets.
+	 */
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("The table needs at least 1 MB");
+		}
+		long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (SLOT_BYTES * BUCKET_SIZE));
+		buckets = Math.min(buckets, 1 << 26); // Arrays are indexed by int
+		this.checks = new long[(int) buckets * BUCKET_SIZE];
+		this.entries = new long[(int) buckets * BUCKET_SIZE];
+		this.bucketMask = (int) buckets - 1;
+	}
+
+	private int bucketOf(long hash) {
+		return ((int) (hash ^ hash >>> 32) & bucketMask) * BUCKET_SIZE;
+	}
+
+	/**
+	 * Looks a position up.
+	 * @param hash The hash of the position.
+	 * @return the packed entry, or {@link #MISS}.
+	 */
+	public long probe(long hash) {
+		probes.increment();
+		int bucket = bucketOf(hash);
+		for (int slot = bucket; slot < bucket + BUCKET_SIZE; slot++) {
+			long entry = entries[slot];
+			if (entry != MISS && (checks[slot] ^ entry) == hash) {
+				hits.increment();
+				return entry;
+			}
+		}
+		return MISS;
+	}
+
+	/**
+	 * Stores the evaluation of a position.
+	 * @param hash The hash of the position.
+	 * @param value The evaluation, for the player the search is for.
+	 * @param depth The depth the position was searched to, up to 255.
+	 * @param move The best move found, as coded by the search, 16 bits.
+	 */
+	public void store(long hash, int value, int depth, int move) {
+		int current = generation;
+		long entry = (long) value << 32 | (move & 0xFFFFL) << 16 | Math.min(Math.max(depth, 0), MAX_DEPTH) << 8 | current;
+		int bucket = bucketOf(hash);
+		int victim = bucket;
+		int lowest = Integer.MAX_VALUE;
+		for (int slot = bucket; slot < bucket + BUCKET_SIZE; slot++) {
+			long stored = entries[slot];
+			if (stored == MISS) {
+				victim = slot;
+				break;
+			}
+			if ((checks[slot] ^ stored) == hash) {
+				if (depthOf(stored) > depth && generationOf(stored) == current) {
+					return; // A deeper search of the same position is kept
+				}
+				victim = slot;
+				break;
+			}
+			int age = (current - generationOf(stored) + 255) % 255;
+			int priority = depthOf(stored) - AGE_WEIGHT * age;
+			if (priority < lowest) {
+				lowest = priority;
+				victim = slot;
+			}
+		}
+		if (entries[victim] != MISS && (checks[victim] ^ entries[victim]) != hash) {
+			replacements.increment();
+		}
+		entries[victim] = entry;
+		checks[victim] = hash ^ entry;
+		stores.increment();
+	}
+
+	/**
+	 * Starts a new search: the entries stored so far become older and are replaced first.
+	 */
+	public void newSearch() {
+		generation = generation % 255 + 1;
+	}
+
+	/**
+	 * Empties the table and resets its counters.
+	 */
+	public void clear() {
+		Arrays.fill(entries, MISS);
+		Arrays.fill(checks, 0);
+		probes.reset();
+		hits.reset();
+		stores.reset();
+		replacements.reset();
+	}
+
+	/**
+	 * Returns the evaluation of an entry.
+	 * @param entry The entry returned by {@link #probe(long)}.
+	 * @return the evaluation.
+	 */
+	public static int valueOf(long entry) {
+		return (int) (entry >> 32);
+	}
+
+	/**
+	 * Returns the best move of an entry.
+	 * @param entry The entry returned by {@link #probe(long)}.
+	 * @return the move.
+	 */
+	public static int moveOf(long entry) {
+		return (int) (entry >>> 16) & 0xFFFF;
+	}
+
+	/**
+	 * Returns the depth of an entry.
+	 * @param entry The entry returned by {@link #probe(long)}.
+	 * @return the depth.
+	 */
+	public static int depthOf(long entry) {
+		return (int) (entry >>> 8) & 0xFF;
+	}
+
+	private static int generationOf(long entry) {
+		return (int) entry & 0xFF;
+	}
+
+	/**
+	 * Returns the number of positions the table can hold.
+	 * @return the number of slots.
+	 */
+	public int getCapacity() {
+		return entries.length;
+	}
+
+	/**
+	 * Returns the number of lookups.
+	 * @return the number of probes.
+	 */
+	public long getProbes() {
+		return probes.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that found their position.
+	 * @return the number of hits.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the share of the lookups that found their position.
+	 * @return a number between 0 and 1.
+	 */
+	public double getHitRate() {
+		long probed = probes.sum();
+		return probed == 0 ? 0 : (double) hits.sum() / probed;
+	}
+
+	/**
+	 * Returns the number of entries stored.
+	 * @return the number of stores.
+	 */
+	public long getStores() {
+		return stores.sum();
+	}
+
+	/**
+	 * Returns the number of entries that pushed out another position.
+	 * @return the number of replacements.
+	 */
+	public long getReplacements() {
+		return replacements.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d slots, %d probes, %.1f%% hits, %d stores, %d replaced",
+				getCapacity(), getProbes(), 100 * getHitRate(), getStores(), getReplacements());
+	}
+}
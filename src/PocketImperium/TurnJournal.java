@@ -0,0 +1,365 @@
+package PocketImperium;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of a game, so that a game can be recovered after a crash in the middle of a turn.
+ * <p>
+ * A checkpoint writes a snapshot of the game next to the journal (the journal file name 
+ * followed by {@code .snap}) and starts the journal over. Afterwards every turn, every plan 
+ * and every command resolved is appended as a record of {@link #RECORD_SIZE} bytes. A command 
+ * records the fields of the board it changed with their new values, so replaying it does not 
+ * depend on the random choices of the bots or on what a human typed: recovery loads the 
+ * snapshot and writes the recorded values back, which takes microseconds for a whole game.
+ * </p>
+ * <p>
+ * Records are gathered in a buffer and written, then forced to the disk, every 
+ * {@code syncEvery} records and at the end of every turn.
+ * </p>
+ * <pre>
+ * byte type, byte turn number, byte step (turns played for a turn record), byte seat,
+ * byte command (packed plan for a plan record, first step for a turn record), byte power,
+ * byte number of changes, its top bit set on the last record of a command,
+ * 3 changes of byte slot and short value
+ * </pre>
+ * A command changing more than 3 fields takes several records in a row, and a crash can 
+ * leave only the first of them in the file: recovery only writes back a command whose last 
+ * record it found. The first change of a command is always the number of ships left in the 
+ * hand of its player, under the slot {@code 0xFF}.
+ *
+ * @see Game#setJournal(TurnJournal)
+ */
+public class TurnJournal implements Closeable {
+	/** Size of a record, the header of the journal takes one record as well. */
+	public static final int RECORD_SIZE = 16;
+	/** Records written between two syncs when nothing else is set. */
+	public static final int DEFAULT_SYNC_EVERY = 64;
+	private static final int MAGIC = 0x50494D4A; // "PIMJ"
+	private static final short VERSION = 1;
+	private static final byte TURN = 1;
+	private static final byte PLAN = 2;
+	private static final byte COMMAND = 3;
+	private static final int CHANGES_PER_RECORD = 3;
+	private static final int LAST_RECORD = 0x80; // Flag of the number of changes ending a command
+	private static final int HAND_SLOT = 0xFF; // Ships in the hand of the player of a command
+
+	private final Path journal;
+	private final Path snapshot;
+	private final int syncEvery;
+	private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 128);
+	private final int[] slots = new int[Board.SLOT_COUNT];
+	private FileChannel channel;
+	private int unsynced;
+	private long records;
+	private long syncs;
+
+	/**
+	 * Opens a journal syncing every {@link #DEFAULT_SYNC_EVERY} records.
+	 * @param filename The journal file, the snapshot is written next to it.
+	 */
+	public TurnJournal(String filename) {
+		this(filename, DEFAULT_SYNC_EVERY);
+	}
+
+	/**
+	 * Opens a journal.
+	 * @param filename The journal file, the snapshot is written next to it.
+	 * @param syncEvery The number of records written between two syncs.
+	 */
+	public TurnJournal(String filename, int syncEvery) {
+		if (syncEvery < 1) {
+			throw new IllegalArgumentException("syncEvery must be positive");
+		}
+		this.journal = Paths.get(filename);
+		this.snapshot = snapshotOf(journal);
+		this.syncEvery = syncEvery;
+	}
+
+	private static Path snapshotOf(Path journal) {
+		return journal.resolveSibling(journal.getFileName() + ".snap");
+	}
+
+	/**
+	 * Saves the whole game and starts the journal over from it.
+	 * @param game The game to save.
+	 * @throws IOException if the snapshot or the journal cannot be written.
+	 */
+	public void checkpoint(Game game) throws IOException {
+		close();
+		byte[] save = SaveCodec.toBytes(game);
+		Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+		try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, 
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			out.write(ByteBuffer.wrap(save));
+			out.force(false);
+		}
+		Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		// The header ties the journal to its snapshot
+		CRC32 crc = new CRC32();
+		crc.update(save);
+		channel = FileChannel.open(journal, StandardOpenOption.CREATE, 
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		buffer.clear();
+		buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(crc.getValue());
+		sync();
+	}
+
+	/**
+	 * Records the start of a turn.
+	 * @param turnNumber The number of the turn.
+	 * @param turnsPlayed The number of turns started, this one included.
+	 * @param firstStep The step the turn starts from, 0 unless it was recovered.
+	 * @throws IOException if the journal cannot be written.
+	 */
+	void turnStarted(int turnNumber, int turnsPlayed, int firstStep) throws IOException {
+		append(TURN, turnNumber, turnsPlayed, 0, firstStep, 0, 0);
+		finish();
+	}
+
+	/**
+	 * Records the plan of a player.
+	 * @param turnNumber The number of the turn.
+	 * @param seat The seat of the player.
+	 * @param plan The cards the player planned.
+	 * @throws IOException if the journal cannot be written.
+	 */
+	void planned(int turnNumber, int seat, List<CommandCard> plan) throws IOException {
+		append(PLAN, turnNumber, 0, seat, SaveCodec.packPlan(plan), 0, 0);
+		finish();
+	}
+
+	/**
+	 * Records a command, with the fields of the board it changed since {@link Board#beginChange()}.
+	 * @param board The board the command was played on, its change is still open.
+	 * @param turnNumber The number of the turn.
+	 * @param step The step of the turn.
+	 * @param seat The seat of the player.
+	 * @param command 0 for Expand, 1 for Explore and 2 for Exterminate.
+	 * @param power The number of ships the command allowed.
+	 * @param hand The number of ships left in the hand of the player.
+	 * @throws IOException if the journal cannot be written.
+	 */
+	void resolved(Board board, int turnNumber, int step, int seat, int command, int power, int hand) throws IOException {
+		int changed = board.getChangedSlots(slots);
+		int first = -1; // The hand goes first
+		do {
+			int count = Math.min(CHANGES_PER_RECORD, changed - first);
+			boolean last = first + count >= changed;
+			append(COMMAND, turnNumber, step, seat, command, power, last ? count | LAST_RECORD : count);
+			for (int i = first; i < first + count; i++) {
+				if (i < 0) {
+					buffer.put((byte) HAND_SLOT).putShort((short) hand);
+				} else {
+					buffer.put((byte) slots[i]).putShort((short) board.getSlot(slots[i]));
+				}
+			}
+			first += count;
+			finish();
+		} while (first < changed);
+	}
+
+	/**
+	 * Writes the first bytes of a record.
+	 */
+	private void append(byte type, int turnNumber, int step, int seat, int value, int power, int changes) throws IOException {
+		if (channel == null) {
+			throw new IllegalStateException("The journal needs a checkpoint first");
+		}
+		if (buffer.remaining() < RECORD_SIZE) {
+			write();
+		}
+		buffer.put(type).put((byte) turnNumber).put((byte) step).put((byte) seat)
+				.put((byte) value).put((byte) power).put((byte) changes);
+	}
+
+	/**
+	 * Pads the record being written to its full size.
+	 */
+	private void finish() throws IOException {
+		while (buffer.position() % RECORD_SIZE != 0) {
+			buffer.put((byte) 0);
+		}
+		records++;
+		if (++unsynced >= syncEvery) {
+			sync();
+		}
+	}
+
+	private void write() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the records waiting in the buffer and forces them to the disk.
+	 * @throws IOException if the journal cannot be written.
+	 */
+	public void sync() throws IOException {
+		if (channel == null) {
+			return;
+		}
+		write();
+		channel.force(false);
+		unsynced = 0;
+		syncs++;
+	}
+
+	/**
+	 * Returns the number of records appended since the journal was opened.
+	 * @return the number of records.
+	 */
+	public long getRecordCount() {
+		return records;
+	}
+
+	/**
+	 * Returns how many times the journal was forced to the disk.
+	 * @return the number of syncs.
+	 */
+	public long getSyncCount() {
+		return syncs;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			sync();
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Rebuilds a game from its last snapshot and its journal. The game resumes where the 
+	 * journal stops: in the middle of a turn if every plan of the turn was recorded, otherwise 
+	 * at the start of the turn. A record cut short by the crash is ignored, and so is a command 
+	 * whose last record is missing.
+	 * @param filename The journal file, its snapshot is read next to it.
+	 * @return the game, ready to go on with {@link Game#resume()}.
+	 * @throws IOException if the files cannot be read or do not belong together.
+	 */
+	public static Game recover(String filename) throws IOException {
+		Path journal = Paths.get(filename);
+		byte[] save = Files.readAllBytes(snapshotOf(journal));
+		ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(journal));
+		if (records.remaining() < RECORD_SIZE || records.getInt() != MAGIC) {
+			throw new StreamCorruptedException("Not a Pocket Imperium journal");
+		}
+		if (records.getShort() > VERSION) {
+			throw new InvalidObjectException("The journal was written by a newer version");
+		}
+		records.getShort();
+		CRC32 crc = new CRC32();
+		crc.update(save);
+		if (records.getLong() != crc.getValue()) {
+			throw new InvalidObjectException("The journal does not belong to its snapshot");
+		}
+		return replay(SaveCodec.fromBytes(save), records);
+	}
+
+	/**
+	 * Writes the records of a journal back on a game.
+	 * @param game The game as it was at the checkpoint.
+	 * @param records The records, after the header.
+	 * @return the game.
+	 */
+	private static Game replay(Game game, ByteBuffer records) throws IOException {
+		Board board = game.getBoard();
+		List<Player> players = game.getPlayers();
+		int turnNumber = -1;
+		int turnsPlayed = game.getTurnsPlayed();
+		int plans = 0;
+		int steps = 0;
+		// Changes of the command being read, written back once its last record is read
+		int[] changedSlots = new int[Board.SLOT_COUNT + 1];
+		int[] changedValues = new int[Board.SLOT_COUNT + 1];
+		int changed = 0;
+		while (records.remaining() >= RECORD_SIZE) {
+			int start = records.position();
+			byte type = records.get();
+			int turn = records.get();
+			int step = records.get() & 0xFF;
+			int seat = records.get();
+			int plan = records.get() & 0xFF; // First step for a turn record
+			records.get(); // Power, kept for whoever reads the journal
+			int changes = records.get() & 0xFF;
+			boolean last = (changes & LAST_RECORD) != 0;
+			changes &= ~LAST_RECORD;
+			if (type == 0) {
+				break; // Space the crash left empty
+			}
+			if (seat < 0 || seat >= players.size() || changes > CHANGES_PER_RECORD
+					|| type == COMMAND && changed + changes > changedSlots.length) {
+				throw new StreamCorruptedException("Damaged journal record at byte " + start);
+			}
+			switch (type) {
+			case TURN:
+				changed = 0;
+				turnNumber = turn;
+				turnsPlayed = step;
+				plans = 0;
+				steps = plan;
+				break;
+			case PLAN:
+				changed = 0;
+				List<CommandCard> cards = players.get(seat).getPlanList();
+				cards.clear();
+				SaveCodec.unpackPlan(plan, cards);
+				plans |= 1 << seat;
+				break;
+			case COMMAND:
+				for (int i = 0; i < changes; i++) {
+					int slot = records.get() & 0xFF;
+					if (slot != HAND_SLOT && slot >= Board.SLOT_COUNT) {
+						throw new StreamCorruptedException("Damaged journal record at byte " + start);
+					}
+					changedSlots[changed] = slot;
+					changedValues[changed++] = records.getShort();
+				}
+				if (last) {
+					for (int i = 0; i < changed; i++) {
+						if (changedSlots[i] == HAND_SLOT) {
+							Player player = players.get(seat);
+							player.restoreHand(changedValues[i], player.getPoints());
+						} else {
+							board.setSlot(changedSlots[i], changedValues[i]);
+						}
+					}
+					changed = 0;
+					steps = step + 1;
+				}
+				break;
+			default:
+				throw new StreamCorruptedException("Unknown journal record " + type + " at byte " + start);
+			}
+			records.position(start + RECORD_SIZE);
+		}
+
+		if (turnNumber < 0) {
+			return game; // Still at the checkpoint
+		}
+		if (plans == (1 << players.size()) - 1) {
+			game.resumeAt(turnNumber, turnsPlayed, steps);
+		} else {
+			// The turn stopped during planning, its plans are made again
+			game.resumeAt(turnNumber - 1, turnsPlayed - 1, -1);
+		}
+		return game;
+	}
+}
@@ -0,0 +1,124 @@
+package PocketImperium;
+
+/**
+ * The order in which the commands of a turn are played once every player has revealed his plan.
+ * <p>
+ * Each step of the turn gives the seat of the player, the command he plays (0 for Expand, 
+ * 1 for Explore and 2 for Exterminate, the ordinals of {@link CommandCard.Command}) and the number of 
+ * ships the command allows. Plans are given as integers from 0 to 26, the card of the first 
+ * phase being the most significant digit in base 3.
+ * </p>
+ */
+public final class TurnOrder {
+	/** Number of different plans: 3 cards for each of the 3 phases. */
+	public static final int PLAN_COUNT = 27;
+	private static final int[] PHASE_WEIGHT = {9, 3, 1};
+
+	final int[] seat = new int[9];
+	final int[] command = new int[9];
+	final int[] power = new int[9];
+	int length;
+	int step; // Step being played
+
+	/**
+	 * Returns the card a plan plays in a phase.
+	 * @param plan The plan, from 0 to 26.
+	 * @param phase The phase of the turn, from 0 to 2.
+	 * @return the command of the card, 0 for Expand, 1 for Explore and 2 for Exterminate.
+	 */
+	public static int card(int plan, int phase) {
+		return plan / PHASE_WEIGHT[phase] % 3;
+	}
+
+	/**
+	 * Returns the plan playing the given cards.
+	 * @param first The command of the first phase.
+	 * @param second The command of the second phase.
+	 * @param third The command of the third phase.
+	 * @return the plan, from 0 to 26.
+	 */
+	public static int plan(int first, int second, int third) {
+		return first * 9 + second * 3 + third;
+	}
+
+	/**
+	 * Returns the number of ships a command allows depending on how many players chose it in the same phase.
+	 * @param numberOfRep The number of players who chose the command.
+	 * @return 3 ships if he is alone, 2 if they are two and 1 otherwise.
+	 */
+	public static int power(int numberOfRep) {
+		if (numberOfRep == 1) {
+			return 3;
+		}
+		if (numberOfRep == 2) {
+			return 2;
+		}
+		return 1;
+	}
+
+	/**
+	 * Fills the order from the plans of the players: phase by phase, the players who chose 
+	 * Expand play first, then Explore, then Exterminate, and players with the same command 
+	 * play in seat order. The order is looked up in the {@link PlanTable}.
+	 * @param plans The plan of each seat.
+	 * @param seats The number of seats.
+	 */
+	public void resolve(int[] plans, int seats) {
+		PlanTable.resolve(plans, seats, this);
+	}
+
+	/**
+	 * Copies another order.
+	 * @param other The order to copy.
+	 */
+	void copyFrom(TurnOrder other) {
+		System.arraycopy(other.seat, 0, seat, 0, other.length);
+		System.arraycopy(other.command, 0, command, 0, other.length);
+		System.arraycopy(other.power, 0, power, 0, other.length);
+		length = other.length;
+		step = other.step;
+	}
+
+	/**
+	 * Returns the number of steps of the turn.
+	 * @return the number of commands played in the turn.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the step being played.
+	 * @return the index of the current step.
+	 */
+	public int getStep() {
+		return step;
+	}
+
+	/**
+	 * Returns the seat of the player playing a step.
+	 * @param index The index of the step.
+	 * @return the seat of the player.
+	 */
+	public int getSeat(int index) {
+		return seat[index];
+	}
+
+	/**
+	 * Returns the command played at a step.
+	 * @param index The index of the step.
+	 * @return 0 for Expand, 1 for Explore and 2 for Exterminate.
+	 */
+	public int getCommand(int index) {
+		return command[index];
+	}
+
+	/**
+	 * Returns the number of ships the command of a step allows.
+	 * @param index The index of the step.
+	 * @return the number of ships, from 1 to 3.
+	 */
+	public int getPower(int index) {
+		return power[index];
+	}
+}
@@ -0,0 +1,32 @@
+package PocketImperium;
+
+/**
+ * A pacing that never waits but moves a clock of its own forward by the length of every 
+ * pause, so that the timing of a game can be checked instantly.
+ */
+public class VirtualClock implements Pacing {
+	private long now;
+	private int pauses;
+
+	@Override
+	public synchronized void pause(long millis) {
+		now += millis;
+		pauses++;
+	}
+
+	/**
+	 * Returns the time spent in pauses since the clock was created.
+	 * @return the virtual time in milliseconds.
+	 */
+	public synchronized long now() {
+		return now;
+	}
+
+	/**
+	 * Returns the number of pauses the game asked for.
+	 * @return the number of pauses.
+	 */
+	public synchronized int getPauses() {
+		return pauses;
+	}
+}
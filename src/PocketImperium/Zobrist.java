@@ -0,0 +1,137 @@
+package PocketImperium;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys of the Zobrist hash of a position.
+ * <p>
+ * The hash of a position is the exclusive or of one key for each of its features: the level 
+ * of each system, the fleet of each hex, the owner of each hex and sector, the ships in the 
+ * hand of each seat, the turn and the step of the turn. The levels are set once when the map 
+ * is built, so that boards of two different maps do not share hashes. A change of a feature 
+ * swaps its old key for its new one, so the {@link Board} updates its hash in a couple of 
+ * operations on every write. Empty hexes, hexes without a system and fields owned by nobody 
+ * have no key, so an empty board hashes to 0.
+ * </p>
+ * <p>
+ * The keys are drawn once from a fixed seed, so hashes are the same in every run and can be 
+ * kept in datasets.
+ * </p>
+ *
+ * @see Board#getHash()
+ * @see Game#getPositionHash()
+ */
+final class Zobrist {
+	private static final int LEVELS = 4;
+	private static final int FLEETS = 32; // Fleets with a key of their own, larger ones are mixed
+	private static final int OWNERS = 8;
+	private static final int SEATS = 3;
+	private static final int SHIPS = 32;
+	private static final int TURNS = 16;
+	private static final int STEPS = 16;
+
+	private static final long[] LEVEL = new long[Board.HEX_COUNT * LEVELS];
+	private static final long[] FLEET = new long[Board.HEX_COUNT * FLEETS];
+	private static final long[] OWNER = new long[(Board.HEX_COUNT + Board.SECTOR_COUNT) * OWNERS];
+	private static final long[] HAND = new long[SEATS * SHIPS];
+	private static final long[] TURN = new long[TURNS];
+	private static final long[] STEP = new long[STEPS];
+
+	static {
+		SplittableRandom random = new SplittableRandom(0x5049_4D50_5A4F_4252L);
+		for (long[] keys : new long[][] {FLEET, OWNER, HAND, TURN, STEP, LEVEL}) {
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = random.nextLong();
+			}
+		}
+	}
+
+	private Zobrist() {
+	}
+
+	/**
+	 * Returns the key of a feature outside the tables.
+	 */
+	private static long mix(long kind, long index, long value) {
+		return Game.streamSeed(kind << 48 ^ index << 24 ^ value, kind);
+	}
+
+	/**
+	 * Returns the key of the system level of a hex.
+	 * @param hex The global ID of the hex.
+	 * @param level The level of its system.
+	 * @return the key, 0 for a hex without a system.
+	 */
+	static long level(int hex, int level) {
+		if (level == 0) {
+			return 0;
+		}
+		return level > 0 && level < LEVELS ? LEVEL[hex * LEVELS + level] : mix(7, hex, level);
+	}
+
+	/**
+	 * Returns the key of the fleet of a hex.
+	 * @param hex The global ID of the hex.
+	 * @param ships The number of ships on the hex.
+	 * @return the key, 0 for an empty hex.
+	 */
+	static long fleet(int hex, int ships) {
+		if (ships == 0) {
+			return 0;
+		}
+		return ships < FLEETS && ships > 0 ? FLEET[hex * FLEETS + ships] : mix(1, hex, ships);
+	}
+
+	/**
+	 * Returns the key of the owner of a hex or a sector.
+	 * @param index The global ID of the hex, or {@link Board#HEX_COUNT} + the index of the sector.
+	 * @param stored The seat + 1 of the owner.
+	 * @return the key, 0 when nobody owns it.
+	 */
+	static long owner(int index, int stored) {
+		if (stored == 0) {
+			return 0;
+		}
+		return stored < OWNERS ? OWNER[index * OWNERS + stored] : mix(2, index, stored);
+	}
+
+	/**
+	 * Returns the key of the ships left in the hand of a seat.
+	 * @param seat The seat of the player.
+	 * @param ships The number of ships in his hand.
+	 * @return the key.
+	 */
+	static long hand(int seat, int ships) {
+		return seat < SEATS && ships >= 0 && ships < SHIPS ? HAND[seat * SHIPS + ships] : mix(3, seat, ships);
+	}
+
+	/**
+	 * Returns the key of a turn.
+	 * @param turnNumber The number of the turn.
+	 * @return the key.
+	 */
+	static long turn(int turnNumber) {
+		return turnNumber >= 0 && turnNumber < TURNS ? TURN[turnNumber] : mix(4, 0, turnNumber);
+	}
+
+	/**
+	 * Returns the key of the step of a turn, the planning phase being step -1.
+	 * @param step The step of the turn.
+	 * @return the key.
+	 */
+	static long step(int step) {
+		return step >= -1 && step < STEPS - 1 ? STEP[step + 1] : mix(5, 0, step);
+	}
+
+	/**
+	 * Returns the key of a combination of plans, which gives the order of the turn, as a seat
+	 * searches it. Positions of the {@link EndgameSolver} are not part of the game, so this key
+	 * is not in the hash of a board.
+	 * @param seat The seat searching.
+	 * @param combination The combination, see {@link PlanTable#combination(int[], int)}.
+	 * @return the key.
+	 */
+	static long plans(int seat, int combination) {
+		return mix(6, seat, combination);
+	}
+}
@@ -0,0 +1,83 @@
+package PocketImperium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the hash a {@link Board} updates on every change is the one computed from scratch.
+ */
+class BoardHashTest {
+	private static final long[] SEEDS = {1, 2, 3, 42, 2025};
+	private static final int PLIES = 300;
+
+	@Test
+	void hashFollowsSeededGames() throws InterruptedException {
+		for (long seed : SEEDS) {
+			Game game = Game.headless(BotPlayer.Strategy.RANDOM, BotPlayer.Strategy.AGGRESSIVE, BotPlayer.Strategy.DEFENSIVE);
+			game.setSeed(seed);
+			int[] checks = new int[1];
+			// The game pauses before and after every command, the board is checked there
+			game.setPacing(millis -> {
+				assertHashed(game.getBoard());
+				checks[0]++;
+			});
+			game.playGame();
+			assertHashed(game.getBoard());
+			assertTrue(checks[0] > 0, "The game never paused");
+		}
+	}
+
+	@Test
+	void undoRestoresHash() throws InterruptedException {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		for (long seed : SEEDS) {
+			Game game = Game.headless(BotPlayer.Strategy.RANDOM, BotPlayer.Strategy.RANDOM, BotPlayer.Strategy.RANDOM);
+			game.setSeed(seed);
+			game.buildMap();
+			game.setupGame();
+			Board board = game.getBoard();
+			assertHashed(board);
+
+			SplittableRandom random = new SplittableRandom(seed);
+			for (int ply = 0; ply < PLIES; ply++) {
+				int seat = random.nextInt(board.getSeatCount());
+				int count = MoveGenerator.generate(board, seat, random.nextInt(3), 1 + random.nextInt(3), moves);
+				for (int i = 0; i < count; i++) {
+					long before = board.getHash();
+					board.apply(MoveGenerator.toMove(seat, moves[i]));
+					assertHashed(board);
+					board.undo();
+					assertEquals(before, board.getHash(), "Undo left another hash, seed " + seed);
+				}
+				if (count > 0) {
+					board.play(MoveGenerator.toMove(seat, moves[random.nextInt(count)]));
+					assertHashed(board);
+				}
+			}
+		}
+	}
+
+	@Test
+	void mapsHashApart() {
+		long[] hashes = new long[SEEDS.length];
+		for (int i = 0; i < SEEDS.length; i++) {
+			Game game = Game.headless(BotPlayer.Strategy.RANDOM, BotPlayer.Strategy.RANDOM, BotPlayer.Strategy.RANDOM);
+			game.setSeed(SEEDS[i]);
+			game.buildMap();
+			assertHashed(game.getBoard());
+			hashes[i] = game.getBoard().getHash();
+			for (int j = 0; j < i; j++) {
+				assertNotEquals(hashes[j], hashes[i], "Empty boards of seeds " + SEEDS[j] + " and " + SEEDS[i] + " collide");
+			}
+		}
+	}
+
+	private static void assertHashed(Board board) {
+		assertEquals(board.computeHash(), board.getHash());
+	}
+}
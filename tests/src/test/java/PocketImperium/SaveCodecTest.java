@@ -0,0 +1,94 @@
+package PocketImperium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Loads the saves shipped at the root of the repository, written with Java serialization by
+ * the first versions of the game, and saves them again in the format of {@link SaveCodec}.
+ */
+class SaveCodecTest {
+	private static final int SHIPS_PLACED = 8; // Two sectors of two hexes with two ships each
+
+	private static Game load(String name) throws IOException {
+		try (InputStream in = Files.newInputStream(Path.of("..", name))) {
+			return SaveCodec.read(in);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"save", "devsave", "jeu", "test"})
+	void legacySaveLoads(String name) throws IOException {
+		Game game = load(name);
+		assertEquals(2, game.getTurnNumber());
+		assertEquals(1, game.getTurnsPlayed());
+		assertFalse(game.isFinished());
+
+		assertEquals(2, game.getPlayers().size());
+		assertEquals("Red", game.getPlayers().get(0).getColor());
+		assertEquals("Green", game.getPlayers().get(1).getColor());
+		for (Player player : game.getPlayers()) {
+			assertFalse(player instanceof BotPlayer, player.getName() + " was a human");
+			assertEquals(11, player.getRemainingShips(), "Ships in the hand of " + player.getName());
+			assertEquals(2, player.getOwnedSector().size(), "Sectors of " + player.getName());
+		}
+
+		Board board = game.getBoard();
+		int ships = 0;
+		for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+			ships += board.getFleet(hex);
+			if (board.getFleet(hex) > 0) {
+				assertFalse(board.getOwner(hex) == Board.NOBODY, "Ships without an owner on hex " + hex);
+			}
+		}
+		assertEquals(SHIPS_PLACED, ships);
+		assertEquals(board.computeHash(), board.getHash());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"save", "devsave", "jeu", "test"})
+	void legacySaveRoundTrips(String name) throws IOException {
+		Game game = load(name);
+		Game copy = SaveCodec.fromBytes(SaveCodec.toBytes(game));
+
+		assertEquals(game.getTurnNumber(), copy.getTurnNumber());
+		assertEquals(game.getTurnsPlayed(), copy.getTurnsPlayed());
+		assertEquals(game.isFinished(), copy.isFinished());
+		assertEquals(game.getSeed(), copy.getSeed());
+		assertEquals(game.getPlayers().size(), copy.getPlayers().size());
+		for (int seat = 0; seat < game.getPlayers().size(); seat++) {
+			Player player = game.getPlayers().get(seat);
+			Player read = copy.getPlayers().get(seat);
+			assertEquals(player.getName(), read.getName());
+			assertEquals(player.getColor(), read.getColor());
+			assertEquals(player.getRemainingShips(), read.getRemainingShips());
+			assertEquals(player.getPoints(), read.getPoints());
+			assertEquals(player.getPlanList().size(), read.getPlanList().size());
+			assertEquals(player.getOwnedSector().size(), read.getOwnedSector().size());
+			for (int i = 0; i < player.getOwnedSector().size(); i++) {
+				assertEquals(player.getOwnedSector().get(i).getSectorID(), read.getOwnedSector().get(i).getSectorID());
+			}
+			for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+				assertEquals(player.getFleet(hex), read.getFleet(hex), "Ships of " + player.getName() + " on hex " + hex);
+			}
+		}
+
+		Board board = game.getBoard();
+		Board readBoard = copy.getBoard();
+		for (int hex = 0; hex < Board.HEX_COUNT; hex++) {
+			assertEquals(board.getLevel(hex), readBoard.getLevel(hex), "Level of hex " + hex);
+		}
+		for (int slot = 0; slot < Board.SLOT_COUNT; slot++) {
+			assertEquals(board.getSlot(slot), readBoard.getSlot(slot), "Slot " + slot);
+		}
+		assertEquals(board.getHash(), readBoard.getHash());
+	}
+}
@@ -0,0 +1,96 @@
+package PocketImperium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks what the {@link TranspositionTable} keeps, what it pushes out, and its counters.
+ */
+class TranspositionTableTest {
+	private static final int MEGABYTES = 1;
+
+	/**
+	 * Returns positions all falling in the first bucket of the table.
+	 */
+	private static long[] sameBucket(TranspositionTable table, int count) {
+		long buckets = table.getCapacity() / TranspositionTable.BUCKET_SIZE;
+		long[] hashes = new long[count];
+		for (int i = 0; i < count; i++) {
+			hashes[i] = (i + 1) * buckets << 32;
+		}
+		return hashes;
+	}
+
+	@Test
+	void storedEntryIsFound() {
+		TranspositionTable table = new TranspositionTable(MEGABYTES);
+		long[] hashes = sameBucket(table, 2);
+		table.store(hashes[0], -5, 3, 1234);
+
+		long entry = table.probe(hashes[0]);
+		assertEquals(-5, TranspositionTable.valueOf(entry));
+		assertEquals(3, TranspositionTable.depthOf(entry));
+		assertEquals(1234, TranspositionTable.moveOf(entry));
+		assertEquals(TranspositionTable.MISS, table.probe(hashes[1]));
+
+		assertEquals(2, table.getProbes());
+		assertEquals(1, table.getHits());
+		assertEquals(0.5, table.getHitRate());
+		assertEquals(1, table.getStores());
+		assertEquals(0, table.getReplacements());
+
+		table.clear();
+		assertEquals(TranspositionTable.MISS, table.probe(hashes[0]));
+		assertEquals(1, table.getProbes());
+		assertEquals(0, table.getStores());
+	}
+
+	@Test
+	void deeperSearchOfPositionIsKept() {
+		TranspositionTable table = new TranspositionTable(MEGABYTES);
+		long hash = sameBucket(table, 1)[0];
+		table.store(hash, 1, 5, 0);
+		table.store(hash, 2, 3, 0);
+		assertEquals(1, TranspositionTable.valueOf(table.probe(hash)), "A shallower search replaced a deeper one");
+
+		table.newSearch();
+		table.store(hash, 2, 3, 0);
+		assertEquals(2, TranspositionTable.valueOf(table.probe(hash)), "An older search was kept");
+		assertEquals(0, table.getReplacements(), "A position replacing itself was counted");
+	}
+
+	@Test
+	void shallowestEntryIsReplaced() {
+		TranspositionTable table = new TranspositionTable(MEGABYTES);
+		long[] hashes = sameBucket(table, TranspositionTable.BUCKET_SIZE + 1);
+		int[] depths = {4, 1, 6, 8};
+		for (int i = 0; i < depths.length; i++) {
+			table.store(hashes[i], i, depths[i], 0);
+		}
+		table.store(hashes[depths.length], 9, 2, 0);
+
+		assertEquals(TranspositionTable.MISS, table.probe(hashes[1]));
+		for (int i : new int[] {0, 2, 3, 4}) {
+			assertNotEquals(TranspositionTable.MISS, table.probe(hashes[i]), "Entry " + i + " was pushed out");
+		}
+		assertEquals(1, table.getReplacements());
+	}
+
+	@Test
+	void olderEntryIsReplacedFirst() {
+		TranspositionTable table = new TranspositionTable(MEGABYTES);
+		long[] hashes = sameBucket(table, TranspositionTable.BUCKET_SIZE + 1);
+		for (int i = 0; i < TranspositionTable.BUCKET_SIZE; i++) {
+			table.store(hashes[i], i, 4, 0);
+		}
+		table.newSearch();
+		table.store(hashes[0], 0, 1, 0); // Shallow, but of the current search
+		table.store(hashes[TranspositionTable.BUCKET_SIZE], 9, 9, 0);
+
+		assertNotEquals(TranspositionTable.MISS, table.probe(hashes[0]), "The entry of the current search was pushed out");
+		assertEquals(TranspositionTable.MISS, table.probe(hashes[1]));
+		assertEquals(1, table.getReplacements());
+	}
+}
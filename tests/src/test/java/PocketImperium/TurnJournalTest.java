@@ -0,0 +1,67 @@
+package PocketImperium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that recovery only writes back the commands the journal holds in full.
+ */
+class TurnJournalTest {
+	private static final int[] HEXES = {0, 1, 2, 3, 4};
+	private static final int HAND = 7;
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void commandCutShortIsDropped() throws IOException, InterruptedException {
+		Game game = Game.headless(BotPlayer.Strategy.RANDOM, BotPlayer.Strategy.RANDOM, BotPlayer.Strategy.RANDOM);
+		game.setSeed(42);
+		game.buildMap();
+		game.setupGame();
+		Board board = game.getBoard();
+		int[] before = new int[HEXES.length];
+		for (int i = 0; i < HEXES.length; i++) {
+			before[i] = board.getFleet(HEXES[i]);
+		}
+
+		String filename = folder.resolve("journal").toString();
+		TurnJournal journal = new TurnJournal(filename, 1);
+		journal.checkpoint(game);
+		journal.turnStarted(1, 1, 0);
+		for (int seat = 0; seat < game.getPlayers().size(); seat++) {
+			journal.planned(1, seat, game.getPlayers().get(seat).getPlanList());
+		}
+		// Five fields and the hand take two records
+		board.beginChange();
+		for (int hex : HEXES) {
+			board.setFleet(hex, board.getFleet(hex) + 1);
+		}
+		journal.resolved(board, 1, 0, 0, 0, 1, HAND);
+		board.commitChange();
+		journal.close();
+		long size = journal.getRecordCount() * TurnJournal.RECORD_SIZE + TurnJournal.RECORD_SIZE;
+
+		Board whole = TurnJournal.recover(filename).getBoard();
+		for (int i = 0; i < HEXES.length; i++) {
+			assertEquals(before[i] + 1, whole.getFleet(HEXES[i]), "Full command not written back on hex " + HEXES[i]);
+		}
+
+		// A crash between the two records of the command
+		try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.WRITE)) {
+			channel.truncate(size - TurnJournal.RECORD_SIZE);
+		}
+		Game recovered = TurnJournal.recover(filename);
+		for (int i = 0; i < HEXES.length; i++) {
+			assertEquals(before[i], recovered.getBoard().getFleet(HEXES[i]), "Partial command written back on hex " + HEXES[i]);
+		}
+		assertEquals(game.getPlayers().get(0).getRemainingShips(), recovered.getPlayers().get(0).getRemainingShips());
+	}
+}
@@ -0,0 +1,53 @@
+package PocketImperium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Plays paced games on a {@link VirtualClock}, which must take the time a human table would
+ * without waiting for it.
+ */
+class VirtualClockTest {
+	// Pauses of the game at normal speed, in milliseconds
+	private static final long PLACEMENT = 1000; // 4 per bot while setting up
+	private static final long PLAN = 2000; // 1 per bot and turn
+	private static final long COMMAND = 2000 + 2000; // 3 per bot and turn, before and after the command
+
+	@Test
+	void pacedGameRunsOnVirtualTime() throws InterruptedException {
+		for (int seats = 1; seats <= 3; seats++) {
+			BotPlayer.Strategy[] strategies = new BotPlayer.Strategy[seats];
+			Arrays.fill(strategies, BotPlayer.Strategy.RANDOM);
+			Game game = Game.headless(strategies);
+			game.setSeed(seats);
+			VirtualClock clock = new VirtualClock();
+			game.setPacing(clock);
+
+			long start = System.nanoTime();
+			game.playGame();
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+			int turns = game.getTurnsPlayed();
+			assertTrue(turns > 0, "No turn was played");
+			assertEquals(seats * (4 * PLACEMENT + turns * (PLAN + 3 * COMMAND)), clock.now());
+			assertEquals(seats * (4 + turns * (1 + 3 * 2)), clock.getPauses());
+			assertTrue(elapsed < clock.now(), "The game waited " + elapsed + " ms");
+		}
+	}
+
+	@Test
+	void clockStartsAtZero() {
+		VirtualClock clock = new VirtualClock();
+		assertEquals(0, clock.now());
+		assertEquals(0, clock.getPauses());
+		clock.pause(1500);
+		clock.pause(0);
+		assertEquals(1500, clock.now());
+		assertEquals(2, clock.getPauses());
+	}
+}